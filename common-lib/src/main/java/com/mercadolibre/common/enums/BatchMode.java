@@ -0,0 +1,6 @@
+package com.mercadolibre.common.enums;
+
+public enum BatchMode {
+    ATOMIC,      // any failing operation rolls back the whole batch
+    BEST_EFFORT  // failing operations are reported, the rest are applied
+}
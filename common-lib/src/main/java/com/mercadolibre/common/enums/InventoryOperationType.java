@@ -0,0 +1,9 @@
+package com.mercadolibre.common.enums;
+
+public enum InventoryOperationType {
+    INCREMENT,
+    DECREMENT,
+    SET,
+    // Merges a PN-counter into the row; the quantity becomes the merged value
+    MERGE
+}
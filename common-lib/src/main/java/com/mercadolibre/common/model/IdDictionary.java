@@ -0,0 +1,82 @@
+package com.mercadolibre.common.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary encoding for store and product ids: each distinct id gets a small int code, assigned in
+ * first-seen order, and one canonical {@code String} instance shared by everything holding it.
+ * <p>
+ * Codes are local to the process, so they only key in-memory structures. REST payloads, Kafka events,
+ * Redis keys and database rows keep the string ids. Lookups of known ids never lock; ids are never
+ * removed, so it is meant for bounded sets such as stores and SKUs.
+ */
+public final class IdDictionary {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    // Ids by code; a code is published in codes only after its slot is written
+    private volatile String[] ids = new String[INITIAL_CAPACITY];
+    private int size; // guarded by this
+
+    /**
+     * Code of {@code id}, assigning the next one if the id is new.
+     */
+    public int encode(String id) {
+        Integer code = codes.get(id);
+        return code != null ? code : assign(id);
+    }
+
+    /**
+     * Code of {@code id}, or -1 if it was never encoded.
+     */
+    public int codeOf(String id) {
+        Integer code = codes.get(id);
+        return code != null ? code : -1;
+    }
+
+    public String decode(int code) {
+        String[] current = ids;
+        String id = code >= 0 && code < current.length ? current[code] : null;
+        if (id == null) {
+            throw new IllegalArgumentException("Unknown id code: " + code);
+        }
+        return id;
+    }
+
+    /**
+     * Canonical instance of {@code id}, so a map loading millions of rows keeps one copy per distinct id.
+     */
+    public String intern(String id) {
+        int code = encode(id);
+        return ids[code]; // read after encode, which may have grown the array
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Packs two codes into one {@code long}, e.g. a (store, product) key for a primitive-keyed map.
+     */
+    public static long pair(int first, int second) {
+        return ((long) first << 32) | (second & 0xffffffffL);
+    }
+
+    private synchronized int assign(String id) {
+        Integer existing = codes.get(id);
+        if (existing != null) {
+            return existing;
+        }
+        String[] current = ids;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+            ids = current;
+        }
+        int code = size++;
+        current[code] = id;
+        codes.put(id, code);
+        return code;
+    }
+}
@@ -0,0 +1,44 @@
+package com.mercadolibre.common.model;
+
+import com.mercadolibre.common.enums.BatchMode;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+import java.util.Map;
+
+public class InventoryBatchRequest {
+
+    @NotNull(message = "Batch mode is required")
+    private BatchMode mode = BatchMode.ATOMIC;
+
+    private boolean publishEvent = true;
+
+    @NotEmpty(message = "At least one operation is required")
+    @Size(max = 1000, message = "A batch cannot have more than 1000 operations")
+    private List<@Valid InventoryOperation> operations;
+
+    // Optional: Kafka partition -> last offset covered by this batch, so a redelivered batch is applied once
+    private Map<String, Long> sourceOffsets;
+
+    // Constructors
+    public InventoryBatchRequest() {}
+
+    public InventoryBatchRequest(BatchMode mode, boolean publishEvent, List<InventoryOperation> operations) {
+        this.mode = mode;
+        this.publishEvent = publishEvent;
+        this.operations = operations;
+    }
+
+    // Getters and setters
+    public BatchMode getMode() { return mode; }
+    public void setMode(BatchMode mode) { this.mode = mode; }
+    public boolean isPublishEvent() { return publishEvent; }
+    public void setPublishEvent(boolean publishEvent) { this.publishEvent = publishEvent; }
+    public List<InventoryOperation> getOperations() { return operations; }
+    public void setOperations(List<InventoryOperation> operations) { this.operations = operations; }
+    public Map<String, Long> getSourceOffsets() { return sourceOffsets; }
+    public void setSourceOffsets(Map<String, Long> sourceOffsets) { this.sourceOffsets = sourceOffsets; }
+}
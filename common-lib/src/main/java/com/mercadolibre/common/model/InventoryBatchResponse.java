@@ -0,0 +1,45 @@
+package com.mercadolibre.common.model;
+
+import com.mercadolibre.common.enums.BatchMode;
+
+import java.util.List;
+
+public class InventoryBatchResponse {
+
+    private BatchMode mode;
+    private int successCount;
+    private int failureCount;
+    private List<InventoryOperationResult> results;
+    private boolean duplicate;
+
+    // For Jackson, when a client reads the response
+    private InventoryBatchResponse() {}
+
+    public InventoryBatchResponse(BatchMode mode, List<InventoryOperationResult> results) {
+        this.mode = mode;
+        this.results = results;
+        for (InventoryOperationResult result : results) {
+            if (result.isSuccess()) {
+                successCount++;
+            } else {
+                failureCount++;
+            }
+        }
+    }
+
+    /**
+     * Response for a batch whose source offsets were already applied; nothing was changed.
+     */
+    public static InventoryBatchResponse duplicate(BatchMode mode) {
+        InventoryBatchResponse response = new InventoryBatchResponse(mode, List.of());
+        response.duplicate = true;
+        return response;
+    }
+
+    // Getters
+    public BatchMode getMode() { return mode; }
+    public int getSuccessCount() { return successCount; }
+    public int getFailureCount() { return failureCount; }
+    public List<InventoryOperationResult> getResults() { return results; }
+    public boolean isDuplicate() { return duplicate; }
+}
@@ -0,0 +1,37 @@
+package com.mercadolibre.common.model;
+
+public class InventoryDelta {
+
+    private String storeId;
+    private String productId;
+    private int quantity;
+    // Counter of the row after the change, if the producer keeps one
+    private PnCounter counter;
+
+    public InventoryDelta() {}
+
+    public InventoryDelta(String storeId, String productId, int quantity) {
+        this.storeId = storeId;
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    // Getters and setters
+    public String getStoreId() { return storeId; }
+    public void setStoreId(String storeId) { this.storeId = storeId; }
+    public String getProductId() { return productId; }
+    public void setProductId(String productId) { this.productId = productId; }
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+    public PnCounter getCounter() { return counter; }
+    public void setCounter(PnCounter counter) { this.counter = counter; }
+
+    @Override
+    public String toString() {
+        return "InventoryDelta{" +
+                "storeId='" + storeId + '\'' +
+                ", productId='" + productId + '\'' +
+                ", quantity=" + quantity +
+                '}';
+    }
+}
@@ -1,6 +1,7 @@
 package com.mercadolibre.common.model;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 public class InventoryEvent {
@@ -12,6 +13,8 @@ public class InventoryEvent {
     private String eventType;
     private LocalDateTime timestamp;
     private LocalDateTime processedAt;
+    private List<InventoryDelta> deltas; // only set on BATCH_UPDATE events
+    private PnCounter counter; // counter of the row after an UPDATE, if the producer keeps one
 
     public InventoryEvent() {
         this.eventId = UUID.randomUUID().toString();
@@ -41,6 +44,10 @@ public class InventoryEvent {
     public void setTimestamp(LocalDateTime timestamp) { this.timestamp = timestamp; }
     public LocalDateTime getProcessedAt() { return processedAt; }
     public void setProcessedAt(LocalDateTime processedAt) { this.processedAt = processedAt; }
+    public List<InventoryDelta> getDeltas() { return deltas; }
+    public void setDeltas(List<InventoryDelta> deltas) { this.deltas = deltas; }
+    public PnCounter getCounter() { return counter; }
+    public void setCounter(PnCounter counter) { this.counter = counter; }
 
     @Override
     public String toString() {
@@ -51,6 +58,7 @@ public class InventoryEvent {
                 ", quantity=" + quantity +
                 ", eventType='" + eventType + '\'' +
                 ", timestamp=" + timestamp +
+                (deltas != null ? ", deltas=" + deltas.size() : "") +
                 '}';
     }
 }
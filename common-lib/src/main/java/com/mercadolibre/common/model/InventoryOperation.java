@@ -0,0 +1,46 @@
+package com.mercadolibre.common.model;
+
+import com.mercadolibre.common.enums.InventoryOperationType;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+public class InventoryOperation {
+
+    @NotBlank(message = "Store id is required")
+    private String storeId;
+
+    @NotBlank(message = "Product id is required")
+    private String productId;
+
+    @NotNull(message = "Operation type is required")
+    private InventoryOperationType type;
+
+    @Min(value = 0, message = "Quantity cannot be negative")
+    private int quantity;
+
+    // Only for MERGE operations
+    private PnCounter counter;
+
+    // Constructors
+    public InventoryOperation() {}
+
+    public InventoryOperation(String storeId, String productId, InventoryOperationType type, int quantity) {
+        this.storeId = storeId;
+        this.productId = productId;
+        this.type = type;
+        this.quantity = quantity;
+    }
+
+    // Getters and setters
+    public String getStoreId() { return storeId; }
+    public void setStoreId(String storeId) { this.storeId = storeId; }
+    public String getProductId() { return productId; }
+    public void setProductId(String productId) { this.productId = productId; }
+    public InventoryOperationType getType() { return type; }
+    public void setType(InventoryOperationType type) { this.type = type; }
+    public int getQuantity() { return quantity; }
+    public void setQuantity(int quantity) { this.quantity = quantity; }
+    public PnCounter getCounter() { return counter; }
+    public void setCounter(PnCounter counter) { this.counter = counter; }
+}
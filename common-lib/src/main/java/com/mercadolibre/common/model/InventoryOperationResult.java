@@ -0,0 +1,61 @@
+package com.mercadolibre.common.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.mercadolibre.common.enums.InventoryOperationType;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class InventoryOperationResult {
+
+    private int index;
+    private String storeId;
+    private String productId;
+    private InventoryOperationType type;
+    private boolean success;
+    private Integer quantity;
+    private String errorCode;
+    private String message;
+
+    // For Jackson, when a client reads the response
+    private InventoryOperationResult() {}
+
+    private InventoryOperationResult(int index, InventoryOperation operation, boolean success) {
+        this.index = index;
+        this.storeId = operation.getStoreId();
+        this.productId = operation.getProductId();
+        this.type = operation.getType();
+        this.success = success;
+    }
+
+    public static InventoryOperationResult success(int index, InventoryOperation operation, int quantity) {
+        InventoryOperationResult result = new InventoryOperationResult(index, operation, true);
+        result.quantity = quantity;
+        return result;
+    }
+
+    public static InventoryOperationResult failure(int index, InventoryOperation operation,
+                                                   String errorCode, String message) {
+        return failure(index, operation, errorCode, message, null);
+    }
+
+    /**
+     * Failure that also reports the quantity the product currently holds, when it is known.
+     */
+    public static InventoryOperationResult failure(int index, InventoryOperation operation,
+                                                   String errorCode, String message, Integer currentQuantity) {
+        InventoryOperationResult result = new InventoryOperationResult(index, operation, false);
+        result.errorCode = errorCode;
+        result.message = message;
+        result.quantity = currentQuantity;
+        return result;
+    }
+
+    // Getters
+    public int getIndex() { return index; }
+    public String getStoreId() { return storeId; }
+    public String getProductId() { return productId; }
+    public InventoryOperationType getType() { return type; }
+    public boolean isSuccess() { return success; }
+    public Integer getQuantity() { return quantity; }
+    public String getErrorCode() { return errorCode; }
+    public String getMessage() { return message; }
+}
@@ -0,0 +1,134 @@
+package com.mercadolibre.common.model;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * PN-counter CRDT: per-node totals of increments and decrements, each only ever growing. The value
+ * is the sum of increments minus the sum of decrements. Two counters merge by taking the larger total
+ * per node and direction, which is commutative, associative and idempotent, so replicas converge
+ * whatever order, or however many times, states are exchanged in.
+ * <p>
+ * Not thread-safe.
+ */
+public class PnCounter {
+
+    /**
+     * Node holding the quantity a row already had when it got its counter.
+     */
+    public static final String SEED_NODE = "seed";
+
+    private Map<String, Long> increments = new HashMap<>();
+    private Map<String, Long> decrements = new HashMap<>();
+
+    public PnCounter() {}
+
+    public static PnCounter seeded(int quantity) {
+        PnCounter counter = new PnCounter();
+        counter.add(SEED_NODE, quantity);
+        return counter;
+    }
+
+    /**
+     * Records a signed change made by {@code node}.
+     */
+    public void add(String node, long delta) {
+        if (delta > 0) {
+            increments.merge(node, delta, Long::sum);
+        } else if (delta < 0) {
+            decrements.merge(node, -delta, Long::sum);
+        }
+    }
+
+    public long value() {
+        long value = 0;
+        for (long increment : increments.values()) {
+            value += increment;
+        }
+        for (long decrement : decrements.values()) {
+            value -= decrement;
+        }
+        return value;
+    }
+
+    /**
+     * Merges {@code other} into this counter and returns this counter.
+     */
+    public PnCounter merge(PnCounter other) {
+        if (other != null) {
+            other.increments.forEach((node, total) -> increments.merge(node, total, Math::max));
+            other.decrements.forEach((node, total) -> decrements.merge(node, total, Math::max));
+        }
+        return this;
+    }
+
+    /**
+     * Folds the totals of {@code retiredNodes} into the seed and drops their entries, keeping the
+     * value. Returns whether any node was folded.
+     * <p>
+     * Only for nodes that will never change a counter again, and only on a counter no other copy of
+     * itself is merged into: a replica still holding a folded node would add its totals a second
+     * time. Scoped copies leave out the seed, so counters merged from scoped copies of this one keep
+     * the totals they already hold for the folded nodes.
+     */
+    public boolean compact(Collection<String> retiredNodes) {
+        boolean folded = false;
+        for (String node : retiredNodes) {
+            if (SEED_NODE.equals(node)) {
+                continue;
+            }
+            Long increment = increments.remove(node);
+            if (increment != null) {
+                increments.merge(SEED_NODE, increment, Long::sum);
+                folded = true;
+            }
+            Long decrement = decrements.remove(node);
+            if (decrement != null) {
+                decrements.merge(SEED_NODE, decrement, Long::sum);
+                folded = true;
+            }
+        }
+        return folded;
+    }
+
+    /**
+     * Copy of this counter with every node renamed to {@code scope/node}, leaving out the seed. Lets
+     * the counters of several rows be merged into one without their nodes colliding.
+     */
+    public PnCounter scoped(String scope) {
+        PnCounter scoped = new PnCounter();
+        increments.forEach((node, total) -> {
+            if (!SEED_NODE.equals(node)) {
+                scoped.increments.put(scope + '/' + node, total);
+            }
+        });
+        decrements.forEach((node, total) -> {
+            if (!SEED_NODE.equals(node)) {
+                scoped.decrements.put(scope + '/' + node, total);
+            }
+        });
+        return scoped;
+    }
+
+    public PnCounter copy() {
+        PnCounter copy = new PnCounter();
+        copy.increments.putAll(increments);
+        copy.decrements.putAll(decrements);
+        return copy;
+    }
+
+    // Getters and setters
+    public Map<String, Long> getIncrements() { return increments; }
+    public void setIncrements(Map<String, Long> increments) { this.increments = increments != null ? new HashMap<>(increments) : new HashMap<>(); }
+    public Map<String, Long> getDecrements() { return decrements; }
+    public void setDecrements(Map<String, Long> decrements) { this.decrements = decrements != null ? new HashMap<>(decrements) : new HashMap<>(); }
+
+    @Override
+    public String toString() {
+        return "PnCounter{" +
+                "increments=" + increments +
+                ", decrements=" + decrements +
+                '}';
+    }
+}
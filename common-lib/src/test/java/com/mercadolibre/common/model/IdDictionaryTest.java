@@ -0,0 +1,127 @@
+package com.mercadolibre.common.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class IdDictionaryTest {
+
+    // Several times the initial capacity of 1024, so the id array grows more than once
+    private static final int IDS = 5000;
+    private static final int THREADS = 8;
+
+    @Test
+    void codesAreAssignedInFirstSeenOrderPastTheInitialCapacity() {
+        IdDictionary dictionary = new IdDictionary();
+
+        for (int i = 0; i < IDS; i++) {
+            assertThat(dictionary.encode(sku(i))).isEqualTo(i);
+        }
+
+        assertThat(dictionary.size()).isEqualTo(IDS);
+        for (int i = 0; i < IDS; i++) {
+            assertThat(dictionary.encode(sku(i))).isEqualTo(i);
+            assertThat(dictionary.codeOf(sku(i))).isEqualTo(i);
+            assertThat(dictionary.decode(i)).isEqualTo(sku(i));
+        }
+        assertThat(dictionary.codeOf("SKU-UNKNOWN")).isEqualTo(-1);
+        assertThatThrownBy(() -> dictionary.decode(IDS)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> dictionary.decode(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void internReturnsTheFirstInstanceSeenAcrossGrowth() {
+        IdDictionary dictionary = new IdDictionary();
+        List<String> first = IntStream.range(0, IDS).mapToObj(IdDictionaryTest::sku).toList();
+
+        for (String id : first) {
+            assertThat(dictionary.intern(id)).isSameAs(id);
+        }
+
+        for (int i = 0; i < IDS; i++) {
+            String copy = sku(i);
+            assertThat(dictionary.intern(copy)).isSameAs(first.get(i)).isNotSameAs(copy);
+            assertThat(dictionary.decode(i)).isSameAs(first.get(i));
+        }
+        assertThat(dictionary.size()).isEqualTo(IDS);
+    }
+
+    @Test
+    void concurrentEncodeAndInternAgreeOnOneCodeAndInstancePerId() throws Exception {
+        IdDictionary dictionary = new IdDictionary();
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Result>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int seed = t;
+                futures.add(executor.submit(worker(dictionary, start, seed)));
+            }
+
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> future : futures) {
+                results.add(future.get(30, TimeUnit.SECONDS));
+            }
+
+            assertThat(dictionary.size()).isEqualTo(IDS);
+            Result reference = results.get(0);
+            assertThat(reference.codes()).doesNotHaveDuplicates()
+                    .containsExactlyInAnyOrderElementsOf(IntStream.range(0, IDS).boxed().toList());
+            for (Result result : results) {
+                assertThat(result.codes()).isEqualTo(reference.codes());
+                for (int i = 0; i < IDS; i++) {
+                    assertThat(result.interned().get(i)).isSameAs(reference.interned().get(i));
+                }
+            }
+            for (int i = 0; i < IDS; i++) {
+                int code = reference.codes().get(i);
+                assertThat(dictionary.decode(code)).isEqualTo(sku(i)).isSameAs(reference.interned().get(i));
+                assertThat(dictionary.codeOf(sku(i))).isEqualTo(code);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // Encodes or interns every id in its own order, decoding each code right away while other threads grow the array
+    private static Callable<Result> worker(IdDictionary dictionary, CyclicBarrier start, int seed) {
+        return () -> {
+            List<Integer> order = new ArrayList<>(IntStream.range(0, IDS).boxed().toList());
+            Collections.shuffle(order, new Random(seed));
+            List<Integer> codes = new ArrayList<>(Collections.nCopies(IDS, -1));
+            List<String> interned = new ArrayList<>(Collections.nCopies(IDS, null));
+            start.await();
+            for (int i : order) {
+                String id = sku(i);
+                int code = (i + seed) % 2 == 0 ? dictionary.encode(id) : dictionary.encode(dictionary.intern(id));
+                if (!dictionary.decode(code).equals(id)) {
+                    throw new AssertionError("Code " + code + " decoded to " + dictionary.decode(code) + ", not " + id);
+                }
+                codes.set(i, code);
+                interned.set(i, dictionary.intern(sku(i)));
+            }
+            return new Result(codes, interned);
+        };
+    }
+
+    // A new instance each call, so intern has a copy to replace
+    private static String sku(int i) {
+        return "SKU-" + i;
+    }
+
+    private record Result(List<Integer> codes, List<String> interned) {
+    }
+}
@@ -0,0 +1,61 @@
+package com.mercadolibre.common.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mercadolibre.common.config.JacksonConfig;
+import com.mercadolibre.common.enums.BatchMode;
+import com.mercadolibre.common.enums.InventoryOperationType;
+import com.mercadolibre.common.exception.ErrorCode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InventoryBatchContractTest {
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+
+    @Test
+    void requestRoundTripKeepsTypesCountersAndOffsets() throws Exception {
+        InventoryOperation merge = new InventoryOperation("store-000", "SKU-1", InventoryOperationType.MERGE, 0);
+        PnCounter counter = new PnCounter();
+        counter.add("store-1", -3);
+        merge.setCounter(counter);
+        InventoryBatchRequest request = new InventoryBatchRequest(BatchMode.BEST_EFFORT, false, List.of(
+                merge, new InventoryOperation("store-000", "SKU-2", InventoryOperationType.DECREMENT, 2)));
+        request.setSourceOffsets(Map.of("inventory-events-0", 41L));
+
+        InventoryBatchRequest read = objectMapper.readValue(objectMapper.writeValueAsString(request),
+                InventoryBatchRequest.class);
+
+        assertThat(read.getMode()).isEqualTo(BatchMode.BEST_EFFORT);
+        assertThat(read.isPublishEvent()).isFalse();
+        assertThat(read.getOperations()).extracting(InventoryOperation::getType)
+                .containsExactly(InventoryOperationType.MERGE, InventoryOperationType.DECREMENT);
+        assertThat(read.getOperations().get(0).getCounter().value()).isEqualTo(-3);
+        assertThat(read.getSourceOffsets()).containsEntry("inventory-events-0", 41L);
+    }
+
+    @Test
+    void responseIsReadableByClients() throws Exception {
+        InventoryOperation decrement = new InventoryOperation("store-000", "SKU-1", InventoryOperationType.DECREMENT, 5);
+        InventoryBatchResponse response = new InventoryBatchResponse(BatchMode.BEST_EFFORT, List.of(
+                InventoryOperationResult.success(0, decrement, 10),
+                InventoryOperationResult.failure(1, decrement, ErrorCode.INSUFFICIENT_INVENTORY, "Not enough stock", 3)));
+
+        InventoryBatchResponse read = objectMapper.readValue(objectMapper.writeValueAsString(response),
+                InventoryBatchResponse.class);
+
+        assertThat(read.getMode()).isEqualTo(BatchMode.BEST_EFFORT);
+        assertThat(read.getSuccessCount()).isEqualTo(1);
+        assertThat(read.getFailureCount()).isEqualTo(1);
+        assertThat(read.isDuplicate()).isFalse();
+        InventoryOperationResult failure = read.getResults().get(1);
+        assertThat(failure.getIndex()).isEqualTo(1);
+        assertThat(failure.getType()).isEqualTo(InventoryOperationType.DECREMENT);
+        assertThat(failure.isSuccess()).isFalse();
+        assertThat(failure.getQuantity()).isEqualTo(3);
+        assertThat(failure.getErrorCode()).isEqualTo(ErrorCode.INSUFFICIENT_INVENTORY);
+    }
+}
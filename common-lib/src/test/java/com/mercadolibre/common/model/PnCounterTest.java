@@ -0,0 +1,130 @@
+package com.mercadolibre.common.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class PnCounterTest {
+
+    @Test
+    void valueIsIncrementsMinusDecrements() {
+        PnCounter counter = PnCounter.seeded(10);
+        counter.add("node-a", 5);
+        counter.add("node-a", -3);
+        counter.add("node-b", -4);
+        counter.add("node-b", 0);
+
+        assertThat(counter.value()).isEqualTo(8);
+        assertThat(counter.getIncrements()).containsOnlyKeys(PnCounter.SEED_NODE, "node-a");
+    }
+
+    @Test
+    void mergeIsCommutativeAndIdempotent() {
+        PnCounter a = counter("node-a", 5);
+        a.add("node-b", -2);
+        PnCounter b = counter("node-b", -3);
+        b.add("node-c", 7);
+
+        PnCounter ab = a.copy().merge(b);
+        PnCounter ba = b.copy().merge(a);
+
+        assertThat(ab.value()).isEqualTo(9);
+        assertThat(ba.getIncrements()).isEqualTo(ab.getIncrements());
+        assertThat(ba.getDecrements()).isEqualTo(ab.getDecrements());
+        assertThat(ab.copy().merge(b).merge(a).value()).isEqualTo(ab.value());
+        assertThat(ab.merge(null).value()).isEqualTo(9);
+    }
+
+    @Test
+    void mergeKeepsTheLargerTotalPerNodeSoStaleStateIsIgnored() {
+        PnCounter old = counter("node-a", 5);
+        PnCounter current = counter("node-a", 5);
+        current.add("node-a", 3);
+
+        assertThat(current.merge(old).value()).isEqualTo(8);
+        assertThat(old.merge(current).value()).isEqualTo(8);
+    }
+
+    @Test
+    void compactionFoldsRetiredNodesIntoTheSeedAndKeepsTheValue() {
+        PnCounter counter = PnCounter.seeded(10);
+        counter.add("host-1", 7);
+        counter.add("host-1", -2);
+        counter.add("host-2", -4);
+        counter.add("node-a", 3);
+
+        assertThat(counter.compact(List.of("host-1", "host-2", "host-3"))).isTrue();
+
+        assertThat(counter.value()).isEqualTo(14);
+        assertThat(counter.getIncrements()).containsOnly(entry(PnCounter.SEED_NODE, 17L), entry("node-a", 3L));
+        assertThat(counter.getDecrements()).containsOnly(entry(PnCounter.SEED_NODE, 6L));
+        assertThat(counter.compact(List.of("host-1", PnCounter.SEED_NODE))).isFalse();
+        assertThat(counter.value()).isEqualTo(14);
+    }
+
+    @Test
+    void compactedCounterMergesIntoAScopedAggregateWithoutCountingTwice() {
+        PnCounter row = PnCounter.seeded(10);
+        row.add("host-1", -4);
+        PnCounter central = new PnCounter().merge(row.scoped("store-1"));
+
+        row.compact(List.of("host-1"));
+        row.add("node-a", -1);
+        central.merge(row.scoped("store-1"));
+
+        // The aggregate holds store-1/host-1 from before, and the seed is never scoped
+        assertThat(central.getDecrements()).containsOnly(entry("store-1/host-1", 4L), entry("store-1/node-a", 1L));
+        assertThat(central.value()).isEqualTo(-5);
+    }
+
+    @Test
+    void mergeIsAssociative() {
+        PnCounter a = counter("node-a", 1);
+        PnCounter b = counter("node-b", -2);
+        PnCounter c = counter("node-a", 4);
+
+        PnCounter left = a.copy().merge(b).merge(c);
+        PnCounter right = a.copy().merge(b.copy().merge(c));
+
+        assertThat(left.getIncrements()).isEqualTo(right.getIncrements());
+        assertThat(left.getDecrements()).isEqualTo(right.getDecrements());
+    }
+
+    @Test
+    void scopedCountersOfDifferentStoresDoNotCollide() {
+        // Both stores count their changes on the same node name
+        PnCounter store1 = PnCounter.seeded(100);
+        store1.add("node-a", -3);
+        PnCounter store2 = PnCounter.seeded(50);
+        store2.add("node-a", -5);
+
+        PnCounter central = new PnCounter().merge(store1.scoped("store-1")).merge(store2.scoped("store-2"));
+
+        assertThat(central.value()).isEqualTo(-8);
+        assertThat(central.getDecrements()).containsOnlyKeys("store-1/node-a", "store-2/node-a");
+        assertThat(central.getIncrements()).isEmpty();
+        // Unscoped, the larger of the two totals would win instead of both being counted
+        assertThat(new PnCounter().merge(store1).merge(store2).getDecrements()).containsEntry("node-a", 5L);
+    }
+
+    @Test
+    void copyAndScopedDoNotShareState() {
+        PnCounter counter = counter("node-a", 2);
+        PnCounter copy = counter.copy();
+        PnCounter scoped = counter.scoped("store-1");
+
+        counter.add("node-a", 10);
+
+        assertThat(copy.value()).isEqualTo(2);
+        assertThat(scoped.value()).isEqualTo(2);
+    }
+
+    private static PnCounter counter(String node, long delta) {
+        PnCounter counter = new PnCounter();
+        counter.add(node, delta);
+        return counter;
+    }
+}
@@ -0,0 +1,200 @@
+package com.mercadolibre.inventory.config;
+
+import com.mercadolibre.inventory.enums.DatabaseEngine;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Store listings read while decrements are written, on a SQLite file, with the pool layout before
+ * {@link DataSourceConfig} and with its split pools.
+ * <p>
+ * {@code SINGLE} is the old {@code DataSourceBuilder} pool: one Hikari pool of its default ten
+ * connections, rollback journal. It gets the same busy timeout as the split pools; operations that
+ * still fail, with {@code SQLITE_BUSY} when a reader and a writer lock each other out, are counted
+ * in {@link Failures} instead of aborting the run. {@code SPLIT} is {@code DataSourceConfig} as
+ * configured in application.yml: WAL, one write connection and four read-only ones, with reads in
+ * read-only transactions.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DataSourcePoolBenchmark {
+
+    private static final int STORES = 20;
+    private static final int PRODUCTS = 200;
+    private static final String LIST_STORE_SQL =
+            "SELECT id, storeId, productId, quantity, lastUpdated FROM inventory WHERE storeId = ? ORDER BY productId";
+    private static final String DECREMENT_SQL =
+            "UPDATE inventory SET quantity = quantity - 1, lastUpdated = ? WHERE storeId = ? AND productId = ?";
+
+    public enum Layout { SINGLE, SPLIT }
+
+    @Param({"SINGLE", "SPLIT"})
+    public Layout layout;
+
+    private Path dataDir;
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readTransaction;
+    private TransactionTemplate writeTransaction;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dataDir = Files.createTempDirectory("pool-benchmark");
+        String url = "jdbc:sqlite:" + dataDir.resolve("inventory.db");
+
+        DataSource dataSource;
+        if (layout == Layout.SINGLE) {
+            HikariConfig config = new HikariConfig();
+            config.setJdbcUrl(url);
+            config.setDriverClassName(DatabaseEngine.SQLITE.getDriverClassName());
+            config.addDataSourceProperty("busy_timeout", "5000");
+            HikariDataSource pool = new HikariDataSource(config);
+            pools.add(pool);
+            seed(pool);
+            dataSource = pool;
+        } else {
+            DataSourceConfig config = new DataSourceConfig();
+            ReflectionTestUtils.setField(config, "url", url);
+            ReflectionTestUtils.setField(config, "readPoolSize", 4);
+            ReflectionTestUtils.setField(config, "busyTimeoutMs", 5000);
+            ReflectionTestUtils.setField(config, "connectionTimeoutMs", 10000L);
+            HikariDataSource writePool = config.writeDataSource(DatabaseEngine.SQLITE);
+            pools.add(writePool);
+            // The read pool opens the file read-only, so it has to exist first
+            seed(writePool);
+            HikariDataSource readPool = config.readDataSource(DatabaseEngine.SQLITE);
+            pools.add(readPool);
+            dataSource = config.dataSource(writePool, readPool);
+        }
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readTransaction = new TransactionTemplate(transactionManager);
+        // The old single pool had no read-only transactions, and SQLite cannot switch an open connection
+        readTransaction.setReadOnly(layout == Layout.SPLIT);
+        writeTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pools.forEach(HikariDataSource::close);
+        try (Stream<Path> files = Files.walk(dataDir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(6)
+    public int listStore(Failures failures) {
+        String storeId = store(ThreadLocalRandom.current().nextInt(STORES));
+        try {
+            return readTransaction.execute(status -> jdbcTemplate.query(LIST_STORE_SQL,
+                    (rs, rowNum) -> rs.getInt("quantity"), storeId).size());
+        } catch (DataAccessException e) {
+            failures.readFailures++;
+            return -1;
+        }
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(2)
+    public int decrement(Failures failures) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String storeId = store(random.nextInt(STORES));
+        String productId = product(random.nextInt(PRODUCTS));
+        try {
+            return writeTransaction.execute(status -> jdbcTemplate.update(DECREMENT_SQL,
+                    new Timestamp(System.currentTimeMillis()), storeId, productId));
+        } catch (DataAccessException e) {
+            failures.writeFailures++;
+            return -1;
+        }
+    }
+
+    /**
+     * Operations that failed, typically with {@code SQLITE_BUSY}; reported next to the timings, which
+     * include them.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Failures {
+
+        public long readFailures;
+        public long writeFailures;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            readFailures = 0;
+            writeFailures = 0;
+        }
+    }
+
+    private static void seed(DataSource dataSource) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/sqlite")
+                .javaMigrations(new LegacySchemaMigration())
+                .load()
+                .migrate();
+
+        List<Object[]> rows = new ArrayList<>(STORES * PRODUCTS);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int s = 0; s < STORES; s++) {
+            for (int p = 0; p < PRODUCTS; p++) {
+                rows.add(new Object[]{store(s), product(p), 1_000_000, now});
+            }
+        }
+        new JdbcTemplate(dataSource).batchUpdate(
+                "INSERT INTO inventory (storeId, productId, quantity, lastUpdated) VALUES (?, ?, ?, ?)", rows);
+    }
+
+    private static String store(int index) {
+        return String.format("store-%03d", index + 1);
+    }
+
+    private static String product(int index) {
+        return String.format("SKU-%05d", index);
+    }
+}
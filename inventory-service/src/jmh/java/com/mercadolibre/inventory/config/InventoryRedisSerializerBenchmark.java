@@ -0,0 +1,66 @@
+package com.mercadolibre.inventory.config;
+
+import com.mercadolibre.common.model.PnCounter;
+import com.mercadolibre.inventory.model.Inventory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode cost of one cached {@link Inventory} with the binary codec against the JSON
+ * one, which writes through the {@link GenericJackson2JsonRedisSerializer} of {@link RedisConfig}
+ * that every entry used before. The encoded size of each is printed once per fork.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryRedisSerializerBenchmark {
+
+    @Param({"BINARY", "JSON"})
+    public InventoryRedisSerializer.Codec codec;
+
+    private InventoryRedisSerializer redisSerializer;
+    private Inventory inventory;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        redisSerializer = new InventoryRedisSerializer(codec, new RedisConfig().redisSerializer());
+
+        inventory = new Inventory("store-042", "SKU-000123", 87);
+        inventory.setId(123456L);
+        inventory.setLastUpdated(LocalDateTime.of(2024, 1, 15, 10, 30, 0, 123_456_000));
+        // A row seeded from its old quantity and then changed by one instance
+        PnCounter counter = PnCounter.seeded(100);
+        counter.add("inventory-1", -13);
+        inventory.setCounter(counter);
+        encoded = redisSerializer.serialize(inventory);
+        System.out.println(codec + " entry size: " + encoded.length + " bytes");
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return redisSerializer.serialize(inventory);
+    }
+
+    @Benchmark
+    public Inventory deserialize() {
+        return redisSerializer.deserialize(encoded);
+    }
+}
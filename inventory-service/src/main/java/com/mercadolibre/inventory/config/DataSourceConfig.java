@@ -1,19 +1,98 @@
 package com.mercadolibre.inventory.config;
 
-import org.springframework.boot.jdbc.DataSourceBuilder;
+import com.mercadolibre.inventory.enums.DatabaseEngine;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 
 import javax.sql.DataSource;
 
+/**
+ * Two connection pools on the same database: a write pool and a read-only pool. The primary
+ * {@code dataSource} hands out connections from the write pool, except in read-only transactions,
+ * which get theirs from the read pool, so reads never wait for the connection a write holds.
+ * <p>
+ * SQLite runs in WAL mode, where readers see the last commit while a write is in progress, with one
+ * write connection since SQLite has a single writer. H2 (MVStore) locks rows, so it takes a larger
+ * write pool.
+ */
 @Configuration
 public class DataSourceConfig {
 
+    @Value("${spring.datasource.url:jdbc:sqlite:inventory.db}")
+    private String url;
+
+    // 0 picks the engine's default: 1 for SQLite, 10 for H2
+    @Value("${inventory.persistence.write-pool-size:0}")
+    private int writePoolSize;
+
+    @Value("${inventory.persistence.read-pool-size:4}")
+    private int readPoolSize;
+
+    @Value("${inventory.persistence.busy-timeout-ms:5000}")
+    private int busyTimeoutMs;
+
+    @Value("${inventory.persistence.connection-timeout-ms:10000}")
+    private long connectionTimeoutMs;
+
+    @Value("${inventory.persistence.h2-query-cache-size:64}")
+    private int h2QueryCacheSize;
+
+    @Bean
+    public DatabaseEngine databaseEngine() {
+        return DatabaseEngine.fromUrl(url);
+    }
+
     @Bean
-    public DataSource dataSource() {
-        return DataSourceBuilder.create()
-                .driverClassName("org.sqlite.JDBC")
-                .url("jdbc:sqlite:/app/data/inventory.db")
-                .build();
+    public HikariDataSource writeDataSource(DatabaseEngine databaseEngine) {
+        HikariConfig config = poolConfig(databaseEngine, "inventory-write");
+        config.setMaximumPoolSize(writePoolSize > 0 ? writePoolSize : databaseEngine == DatabaseEngine.SQLITE ? 1 : 10);
+        if (databaseEngine == DatabaseEngine.SQLITE) {
+            // WAL is persistent in the database file; with it, NORMAL sync only risks the last commits on power loss
+            config.addDataSourceProperty("journal_mode", "WAL");
+            config.addDataSourceProperty("synchronous", "NORMAL");
+        }
+        return new HikariDataSource(config);
+    }
+
+    @Bean
+    public HikariDataSource readDataSource(DatabaseEngine databaseEngine) {
+        HikariConfig config = poolConfig(databaseEngine, "inventory-read");
+        config.setMaximumPoolSize(readPoolSize);
+        config.setReadOnly(true);
+        if (databaseEngine == DatabaseEngine.SQLITE) {
+            // Opened read-only (SQLITE_OPEN_READONLY); Connection.setReadOnly cannot be changed on an open SQLite connection
+            config.addDataSourceProperty("open_mode", "1");
+        }
+        return new HikariDataSource(config);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource writeDataSource, HikariDataSource readDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(writeDataSource);
+        // A connection marked read-only before its first statement (read-only transactions) comes from the read pool
+        dataSource.setReadOnlyDataSource(readDataSource);
+        return dataSource;
+    }
+
+    private HikariConfig poolConfig(DatabaseEngine databaseEngine, String poolName) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setJdbcUrl(url);
+        config.setDriverClassName(databaseEngine.getDriverClassName());
+        config.setConnectionTimeout(connectionTimeoutMs);
+        if (databaseEngine == DatabaseEngine.SQLITE) {
+            // Waits for the write lock instead of failing at once with SQLITE_BUSY
+            config.addDataSourceProperty("busy_timeout", String.valueOf(busyTimeoutMs));
+        } else {
+            // Parsed statements kept per session and reused by later prepares of the same SQL
+            config.addDataSourceProperty("QUERY_CACHE_SIZE", String.valueOf(h2QueryCacheSize));
+        }
+        return config;
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,6 @@
 package com.mercadolibre.inventory.config;
 
+import com.mercadolibre.inventory.enums.DatabaseEngine;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
@@ -18,7 +19,7 @@ import java.util.Properties;
 public class DatabaseConfig {
 
     @Bean
-    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource, DatabaseEngine databaseEngine) {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
         em.setDataSource(dataSource);
         em.setPackagesToScan("com.mercadolibre.inventory.model");
@@ -27,17 +28,19 @@ public class DatabaseConfig {
         em.setJpaVendorAdapter(vendorAdapter);
 
         Properties properties = new Properties();
-        properties.setProperty("hibernate.hbm2ddl.auto", "update");
-        properties.setProperty("hibernate.dialect", "org.hibernate.community.dialect.SQLiteDialect");
+        // The schema is owned by the Flyway migrations under db/migration/{vendor}. Hibernate checks it on H2;
+        // SQLite's rowid ids are integer columns, which validation would reject for Long fields
+        properties.setProperty("hibernate.hbm2ddl.auto", databaseEngine == DatabaseEngine.H2 ? "validate" : "none");
+        properties.setProperty("hibernate.dialect", databaseEngine.getHibernateDialect());
         properties.setProperty("hibernate.show_sql", "true");
         properties.setProperty("hibernate.connection.autocommit", "false");
         properties.setProperty("hibernate.jdbc.lob.non_contextual_creation", "true");
         properties.setProperty("hibernate.format_sql", "true");
         properties.setProperty("hibernate.jdbc.time_zone", "UTC");
-
-        // Configurações específicas do SQLite
-        //properties.setProperty("hibernate.connection.provider_disables_autocommit", "true");
-        properties.setProperty("hibernate.connection.isolation", "2"); // READ_COMMITTED
+        // Holds the connection for the whole transaction, so read-only transactions can mark it read-only
+        // before its first statement and get it from the read pool
+        properties.setProperty("hibernate.connection.handling_mode", "DELAYED_ACQUISITION_AND_HOLD");
+        // No isolation override: SQLite only knows SERIALIZABLE, and READ_COMMITTED is already H2's default
 
         em.setJpaProperties(properties);
         return em;
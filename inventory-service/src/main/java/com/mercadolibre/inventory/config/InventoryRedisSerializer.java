@@ -0,0 +1,212 @@
+package com.mercadolibre.inventory.config;
+
+import com.mercadolibre.common.model.PnCounter;
+import com.mercadolibre.inventory.model.Inventory;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Redis value serializer for cached {@link Inventory} entries.
+ * <p>
+ * Writes either the compact binary layout below or the legacy JSON format, and reads both: the
+ * first byte of a binary value is a format version, which can never start a JSON document. This
+ * lets instances switch codecs one at a time while sharing the same Redis keys.
+ * <pre>
+ * byte    version (2)
+ * byte    flags (bit 0: id present, bit 1: counter present)
+ * long    id, only if flagged
+ * int     quantity
+ * long    lastUpdated epoch seconds (UTC)
+ * int     lastUpdated nanos
+ * varint  storeId length, UTF-8 bytes
+ * varint  productId length, UTF-8 bytes
+ * counter, only if flagged:
+ *   varint  number of increment nodes, then per node: varint name length, UTF-8 bytes, varint total
+ *   varint  number of decrement nodes, the same way
+ * </pre>
+ * Version 1 is the same layout without the counter flag and fields. It is still read, as an entry
+ * without a counter; instances that only read version 1 should run the JSON codec while version 2
+ * is rolled out.
+ */
+public class InventoryRedisSerializer implements RedisSerializer<Inventory> {
+
+    public enum Codec { BINARY, JSON }
+
+    private static final byte FORMAT_V1 = 1;
+    private static final byte FORMAT_V2 = 2;
+    private static final byte FLAG_ID = 1;
+    private static final byte FLAG_COUNTER = 2;
+
+    private final Codec codec;
+    private final GenericJackson2JsonRedisSerializer jsonSerializer;
+
+    public InventoryRedisSerializer(Codec codec, GenericJackson2JsonRedisSerializer jsonSerializer) {
+        this.codec = codec;
+        this.jsonSerializer = jsonSerializer;
+    }
+
+    @Override
+    public byte[] serialize(Inventory inventory) throws SerializationException {
+        if (inventory == null) {
+            return null;
+        }
+        if (codec == Codec.JSON) {
+            return jsonSerializer.serialize(inventory);
+        }
+
+        byte[] storeId = inventory.getStoreId().getBytes(StandardCharsets.UTF_8);
+        byte[] productId = inventory.getProductId().getBytes(StandardCharsets.UTF_8);
+        boolean hasId = inventory.getId() != null;
+        PnCounter counter = inventory.getCounter();
+        LocalDateTime lastUpdated = inventory.getLastUpdated();
+        Totals increments = counter != null ? Totals.of(counter.getIncrements()) : null;
+        Totals decrements = counter != null ? Totals.of(counter.getDecrements()) : null;
+
+        int size = 2 + (hasId ? 8 : 0) + 4 + 8 + 4
+                + varIntSize(storeId.length) + storeId.length
+                + varIntSize(productId.length) + productId.length;
+        if (counter != null) {
+            size += increments.size() + decrements.size();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(FORMAT_V2);
+        buffer.put((byte) ((hasId ? FLAG_ID : 0) | (counter != null ? FLAG_COUNTER : 0)));
+        if (hasId) {
+            buffer.putLong(inventory.getId());
+        }
+        buffer.putInt(inventory.getQuantity());
+        buffer.putLong(lastUpdated.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(lastUpdated.getNano());
+        putString(buffer, storeId);
+        putString(buffer, productId);
+        if (counter != null) {
+            increments.put(buffer);
+            decrements.put(buffer);
+        }
+        return buffer.array();
+    }
+
+    @Override
+    public Inventory deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != FORMAT_V1 && bytes[0] != FORMAT_V2) {
+            // Entry written by the JSON codec, which carries no type hint
+            return jsonSerializer.deserialize(bytes, Inventory.class);
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+            byte flags = buffer.get();
+            Long id = (flags & FLAG_ID) != 0 ? buffer.getLong() : null;
+            int quantity = buffer.getInt();
+            long epochSecond = buffer.getLong();
+            int nanos = buffer.getInt();
+
+            Inventory inventory = new Inventory(getString(buffer), getString(buffer), quantity);
+            inventory.setId(id);
+            inventory.setLastUpdated(LocalDateTime.ofEpochSecond(epochSecond, nanos, ZoneOffset.UTC));
+            // Version 1 never sets the flag
+            if ((flags & FLAG_COUNTER) != 0) {
+                PnCounter counter = new PnCounter();
+                counter.setIncrements(getTotals(buffer));
+                counter.setDecrements(getTotals(buffer));
+                inventory.setCounter(counter);
+            }
+            return inventory;
+        } catch (RuntimeException e) {
+            throw new SerializationException("Could not read binary inventory entry", e);
+        }
+    }
+
+    private static Map<String, Long> getTotals(ByteBuffer buffer) {
+        int count = (int) getVarInt(buffer);
+        Map<String, Long> totals = new HashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            totals.put(getString(buffer), getVarInt(buffer));
+        }
+        return totals;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        putVarInt(buffer, value.length);
+        buffer.put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = (int) getVarInt(buffer);
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    // Unsigned base-128 varint; lengths and counter totals are never negative
+    private static void putVarInt(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long getVarInt(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static int varIntSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    // One direction of a counter, encoded names and totals taken in a single pass over the map
+    private record Totals(byte[][] names, long[] totals) {
+
+        private static Totals of(Map<String, Long> map) {
+            byte[][] names = new byte[map.size()][];
+            long[] totals = new long[map.size()];
+            int i = 0;
+            for (Map.Entry<String, Long> entry : map.entrySet()) {
+                names[i] = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                totals[i++] = entry.getValue();
+            }
+            return new Totals(names, totals);
+        }
+
+        private int size() {
+            int size = varIntSize(names.length);
+            for (int i = 0; i < names.length; i++) {
+                size += varIntSize(names[i].length) + names[i].length + varIntSize(totals[i]);
+            }
+            return size;
+        }
+
+        private void put(ByteBuffer buffer) {
+            putVarInt(buffer, names.length);
+            for (int i = 0; i < names.length; i++) {
+                putString(buffer, names[i]);
+                putVarInt(buffer, totals[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.mercadolibre.inventory.config;
+
+import org.flywaydb.core.api.MigrationVersion;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Version 3: brings tables that V1 found already in place up to the columns it declares. V1 creates
+ * its tables with {@code IF NOT EXISTS} so databases created by Hibernate are baselined in place, which
+ * leaves an older table as it was. Columns added since, which are nullable, are added here; any other
+ * difference fails the migration instead of surfacing later as a failing query.
+ * <p>
+ * Written in Java because neither engine can add a column only when it is missing. Picked up by
+ * Flyway as a bean, for both engines.
+ */
+@Component
+public class LegacySchemaMigration implements JavaMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(LegacySchemaMigration.class);
+
+    // Columns of the V1 tables
+    private static final Map<String, List<String>> TABLES = Map.of(
+            "stores", List.of("id", "active", "location", "name", "type"),
+            "inventory", List.of("id", "counter", "lastUpdated", "productId", "quantity", "storeId"),
+            "outbox_event", List.of("id", "createdAt", "messageKey", "payload", "topic"),
+            "source_offset", List.of("sourcePartition", "appliedOffset"),
+            "reorder_point", List.of("id", "productId", "reorderPoint", "storeId"));
+
+    // Columns a table created before them may lack, with the statement that adds them
+    private static final Map<String, String> ADDED_COLUMNS = Map.of(
+            "inventory.counter", "ALTER TABLE inventory ADD COLUMN counter CHARACTER VARYING");
+
+    @Override
+    public MigrationVersion getVersion() {
+        return MigrationVersion.fromVersion("3");
+    }
+
+    @Override
+    public String getDescription() {
+        return "align legacy schema";
+    }
+
+    @Override
+    public Integer getChecksum() {
+        return null;
+    }
+
+    @Override
+    public boolean canExecuteInTransaction() {
+        return true;
+    }
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        List<String> mismatches = new ArrayList<>();
+        for (Map.Entry<String, List<String>> table : TABLES.entrySet()) {
+            Set<String> columns = columnsOf(connection, table.getKey());
+            for (String column : table.getValue()) {
+                if (columns.contains(column)) {
+                    continue;
+                }
+                String addColumn = ADDED_COLUMNS.get(table.getKey() + '.' + column);
+                if (addColumn == null) {
+                    mismatches.add(table.getKey() + '.' + column);
+                    continue;
+                }
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(addColumn);
+                }
+                logger.info("Added missing column {}.{}", table.getKey(), column);
+            }
+        }
+
+        if (!mismatches.isEmpty()) {
+            throw new IllegalStateException("Schema does not match the migrations, missing columns " + mismatches
+                    + "; migrate these tables by hand before starting the service");
+        }
+    }
+
+    // Column names as the database reports them, compared case-insensitively since H2 upper-cases them
+    private static Set<String> columnsOf(Connection connection, String table) throws SQLException {
+        Set<String> columns = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT * FROM " + table + " WHERE 1 = 0")) {
+            ResultSetMetaData metaData = rs.getMetaData();
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                columns.add(metaData.getColumnName(i));
+            }
+        }
+        return columns;
+    }
+}
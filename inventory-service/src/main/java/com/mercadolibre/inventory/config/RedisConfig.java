@@ -4,10 +4,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.mercadolibre.inventory.model.Inventory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -16,16 +18,31 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 public class RedisConfig {
 
     @Bean
-    public RedisTemplate<String, Inventory> redisTemplate(RedisConnectionFactory connectionFactory) {
+    public RedisTemplate<String, Inventory> redisTemplate(RedisConnectionFactory connectionFactory,
+                                                          RedisSerializer<Inventory> inventorySerializer) {
         RedisTemplate<String, Inventory> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
         template.setKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(redisSerializer());
+        template.setValueSerializer(inventorySerializer);
         return template;
     }
 
     @Bean
-    public RedisSerializer<Object> redisSerializer() {
+    public RedisSerializer<Inventory> inventorySerializer(
+            @Value("${inventory.cache.codec:binary}") InventoryRedisSerializer.Codec codec) {
+        // Both codecs read each other's entries, so the codec can be switched one instance at a time
+        return new InventoryRedisSerializer(codec, redisSerializer());
+    }
+
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    @Bean
+    public GenericJackson2JsonRedisSerializer redisSerializer() {
         ObjectMapper objectMapper = new ObjectMapper();
         // Registra o módulo para suportar Java 8 date/time types
         objectMapper.registerModule(new JavaTimeModule());
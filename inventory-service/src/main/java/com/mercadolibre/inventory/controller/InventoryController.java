@@ -1,22 +1,40 @@
 package com.mercadolibre.inventory.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import com.mercadolibre.common.exception.ApiException;
 import com.mercadolibre.common.model.ApiResponse;
+import com.mercadolibre.inventory.model.AvailabilityMatrix;
 import com.mercadolibre.inventory.model.Inventory;
+import com.mercadolibre.common.model.InventoryBatchRequest;
+import com.mercadolibre.common.model.InventoryBatchResponse;
+import com.mercadolibre.inventory.model.InventoryPage;
 import com.mercadolibre.inventory.model.InventoryRequest;
 import com.mercadolibre.inventory.model.InventoryResponse;
+import com.mercadolibre.inventory.model.StockDifference;
 import com.mercadolibre.inventory.service.InventoryService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -28,9 +46,12 @@ public class InventoryController {
 
     private static final Logger logger = LoggerFactory.getLogger(InventoryController.class);
     private final InventoryService inventoryService;
+    // Leaves the response stream to the servlet container
+    private final ObjectWriter streamWriter;
 
-    public InventoryController(InventoryService inventoryService) {
+    public InventoryController(InventoryService inventoryService, ObjectMapper objectMapper) {
         this.inventoryService = inventoryService;
+        this.streamWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     }
 
     @GetMapping("/{storeId}/{productId}")
@@ -129,25 +150,90 @@ public class InventoryController {
         }
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<InventoryBatchResponse>> applyBatch(
+            @Valid @RequestBody InventoryBatchRequest request) {
+
+        logger.info("Applying inventory batch with {} operations, mode: {}",
+                request.getOperations().size(), request.getMode());
+
+        try {
+            InventoryBatchResponse response = inventoryService.applyBatch(request);
+            String message = response.isDuplicate()
+                    ? "Inventory batch already applied"
+                    : response.getFailureCount() == 0
+                    ? "Inventory batch applied successfully"
+                    : "Inventory batch applied with " + response.getFailureCount() + " failed operations";
+            return ResponseEntity.ok(ApiResponse.success(message, response));
+        } catch (Exception e) {
+            logger.error("Error applying inventory batch with {} operations", request.getOperations().size(), e);
+            throw e; // Let the service layer handle specific exceptions
+        }
+    }
+
+    @GetMapping("/source-offsets")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getSourceOffsets() {
+        Map<String, Long> offsets = inventoryService.getAppliedSourceOffsets();
+        return ResponseEntity.ok(ApiResponse.success("Applied source offsets retrieved successfully", offsets));
+    }
+
     @GetMapping("/{storeId}/low-stock")
     public ResponseEntity<ApiResponse<List<InventoryResponse>>> getLowStockItems(
             @PathVariable @NotBlank String storeId,
-            @RequestParam(defaultValue = "10") @Min(1) int threshold) {
-        
-        logger.info("Getting low stock items for store: {}, threshold: {}", storeId, threshold);
+            @RequestParam(required = false) @Min(1) Integer threshold) {
+
+        // Same threshold as the store summary unless one is given
+        int lowStockThreshold = threshold != null ? threshold : inventoryService.getLowStockThreshold();
+        logger.info("Getting low stock items for store: {}, threshold: {}", storeId, lowStockThreshold);
         
         try {
-            List<Inventory> lowStockItems = inventoryService.getLowStockItems(storeId, threshold);
+            List<Inventory> lowStockItems = inventoryService.getLowStockItems(storeId, lowStockThreshold);
             List<InventoryResponse> responses = lowStockItems.stream()
                     .map(InventoryResponse::new)
                     .toList();
             return ResponseEntity.ok(ApiResponse.success("Low stock items retrieved successfully", responses));
         } catch (Exception e) {
-            logger.error("Error getting low stock items for store: {}, threshold: {}", storeId, threshold, e);
+            logger.error("Error getting low stock items for store: {}, threshold: {}", storeId, lowStockThreshold, e);
             throw ApiException.storeNotFound(storeId);
         }
     }
 
+    @GetMapping("/{storeId}/{productId}/reorder-point")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getReorderPoint(
+            @PathVariable @NotBlank String storeId,
+            @PathVariable @NotBlank String productId) {
+
+        int reorderPoint = inventoryService.getReorderPoint(storeId, productId);
+        return ResponseEntity.ok(ApiResponse.success("Reorder point retrieved successfully",
+                Map.of("storeId", storeId, "productId", productId, "reorderPoint", reorderPoint)));
+    }
+
+    @PutMapping("/{storeId}/{productId}/reorder-point")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> setReorderPoint(
+            @PathVariable @NotBlank String storeId,
+            @PathVariable @NotBlank String productId,
+            @RequestParam @Min(0) int reorderPoint) {
+
+        logger.info("Setting reorder point for store: {}, product: {}, reorder point: {}", storeId, productId, reorderPoint);
+
+        inventoryService.setReorderPoint(storeId, productId, reorderPoint);
+        return ResponseEntity.ok(ApiResponse.success("Reorder point set successfully",
+                Map.of("storeId", storeId, "productId", productId, "reorderPoint", reorderPoint)));
+    }
+
+    @GetMapping("/{storeId}/changes")
+    public ResponseEntity<ApiResponse<List<InventoryResponse>>> getChangesSince(
+            @PathVariable @NotBlank String storeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+
+        logger.info("Getting inventory changes for store: {}, since: {}", storeId, since);
+
+        List<InventoryResponse> responses = inventoryService.getChangesSince(storeId, since).stream()
+                .map(InventoryResponse::new)
+                .toList();
+        return ResponseEntity.ok(ApiResponse.success("Inventory changes retrieved successfully", responses));
+    }
+
     @GetMapping("/{storeId}/summary")
     public ResponseEntity<ApiResponse<Map<String, Object>>> getInventorySummary(
             @PathVariable @NotBlank String storeId) {
@@ -163,20 +249,84 @@ public class InventoryController {
         }
     }
 
-    @GetMapping("/{storeId}/products")
-    public ResponseEntity<?> getStoreProducts(@PathVariable String storeId) {
+    /**
+     * Quantity of products summed over every store, served from the in-memory inventory snapshot.
+     * Without {@code productIds}, every product held by some store.
+     */
+    @GetMapping("/analytics/totals")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getTotalsAcrossStores(
+            @RequestParam(required = false) @Size(max = 1000) List<String> productIds) {
 
-        logger.info("Getting inventory list for store: {}", storeId);
-        try {
-            List<Inventory> inventoryList;
+        Map<String, Long> totals = inventoryService.getTotalsAcrossStores(productIds);
+        return ResponseEntity.ok(ApiResponse.success("Inventory totals retrieved successfully", totals));
+    }
 
-            inventoryList = inventoryService.getAvailableProductsByStore(storeId);
+    @GetMapping("/analytics/availability")
+    public ResponseEntity<ApiResponse<AvailabilityMatrix>> getAvailability(
+            @RequestParam @NotEmpty @Size(max = 1000) List<String> productIds,
+            @RequestParam(required = false) @Size(max = 1000) List<String> storeIds) {
 
-            return ResponseEntity.ok(inventoryList);
+        AvailabilityMatrix matrix = inventoryService.getAvailability(productIds, storeIds);
+        return ResponseEntity.ok(ApiResponse.success("Inventory availability retrieved successfully", matrix));
+    }
 
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body("Erro ao buscar produtos da loja: " + e.getMessage());
+    @GetMapping("/analytics/{storeId}/central-diff")
+    public ResponseEntity<ApiResponse<List<StockDifference>>> getCentralDifferences(
+            @PathVariable @NotBlank String storeId) {
+
+        logger.info("Getting differences between store: {} and the central store", storeId);
+
+        List<StockDifference> differences = inventoryService.getCentralDifferences(storeId);
+        return ResponseEntity.ok(ApiResponse.success("Inventory differences retrieved successfully", differences));
+    }
+
+    /**
+     * Streams every row of a store as a JSON array, straight from the result set, so memory use does
+     * not grow with the size of the store.
+     */
+    @GetMapping(value = "/{storeId}/products", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getStoreProducts(@PathVariable String storeId) {
+        logger.info("Streaming inventory list for store: {}", storeId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> streamStoreProducts(storeId, streamWriter.writeValuesAsArray(out)));
+    }
+
+    /**
+     * Same listing as newline-delimited JSON, one row per line, for clients that process rows as they arrive.
+     */
+    @GetMapping(value = "/{storeId}/products", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getStoreProductsNdjson(@PathVariable String storeId) {
+        logger.info("Streaming inventory list for store: {} as NDJSON", storeId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(out -> streamStoreProducts(storeId, streamWriter.withRootValueSeparator("\n").writeValues(out)));
+    }
+
+    @GetMapping("/{storeId}/products/page")
+    public ResponseEntity<ApiResponse<InventoryPage>> getStoreProductsPage(
+            @PathVariable @NotBlank String storeId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "500") @Min(1) @Max(1000) int limit) {
+
+        logger.info("Getting inventory page for store: {}, after: {}, limit: {}", storeId, after, limit);
+
+        InventoryPage page = inventoryService.getStoreProductsPage(storeId, after, limit);
+        return ResponseEntity.ok(ApiResponse.success("Inventory page retrieved successfully", page));
+    }
+
+    private void streamStoreProducts(String storeId, SequenceWriter writer) throws IOException {
+        try (writer) {
+            inventoryService.streamStoreProducts(storeId, view -> {
+                try {
+                    writer.write(view);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // Client went away or the response could not be written; the stream is abandoned
+            logger.warn("Stopped streaming inventory list for store {}: {}", storeId, e.getMessage());
         }
     }
 }
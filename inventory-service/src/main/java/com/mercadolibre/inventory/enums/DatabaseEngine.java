@@ -0,0 +1,31 @@
+package com.mercadolibre.inventory.enums;
+
+/**
+ * Embedded database engines the service runs on, picked from {@code spring.datasource.url}.
+ */
+public enum DatabaseEngine {
+    SQLITE("jdbc:sqlite:", "org.sqlite.JDBC", "org.hibernate.community.dialect.SQLiteDialect"), // one writer at a time
+    H2("jdbc:h2:", "org.h2.Driver", "org.hibernate.dialect.H2Dialect");                          // MVStore, row-level locks
+
+    private final String urlPrefix;
+    private final String driverClassName;
+    private final String hibernateDialect;
+
+    DatabaseEngine(String urlPrefix, String driverClassName, String hibernateDialect) {
+        this.urlPrefix = urlPrefix;
+        this.driverClassName = driverClassName;
+        this.hibernateDialect = hibernateDialect;
+    }
+
+    public String getDriverClassName() { return driverClassName; }
+    public String getHibernateDialect() { return hibernateDialect; }
+
+    public static DatabaseEngine fromUrl(String url) {
+        for (DatabaseEngine engine : values()) {
+            if (url.startsWith(engine.urlPrefix)) {
+                return engine;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported database URL: " + url);
+    }
+}
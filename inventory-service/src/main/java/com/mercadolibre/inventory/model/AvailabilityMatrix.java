@@ -0,0 +1,25 @@
+package com.mercadolibre.inventory.model;
+
+import java.util.List;
+
+/**
+ * Quantities of some products across stores: {@code quantities[i][j]} is what store
+ * {@code storeIds[j]} holds of product {@code productIds[i]}, null if it has no row for it.
+ */
+public class AvailabilityMatrix {
+
+    private final List<String> productIds;
+    private final List<String> storeIds;
+    private final Integer[][] quantities;
+
+    public AvailabilityMatrix(List<String> productIds, List<String> storeIds, Integer[][] quantities) {
+        this.productIds = productIds;
+        this.storeIds = storeIds;
+        this.quantities = quantities;
+    }
+
+    // Getters
+    public List<String> getProductIds() { return productIds; }
+    public List<String> getStoreIds() { return storeIds; }
+    public Integer[][] getQuantities() { return quantities; }
+}
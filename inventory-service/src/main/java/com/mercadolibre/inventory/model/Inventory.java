@@ -1,12 +1,16 @@
 package com.mercadolibre.inventory.model;
 
+import com.mercadolibre.common.model.PnCounter;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 //TODO mover pra common-lib?
 @Entity
 @Table(name = "inventory", uniqueConstraints = {
-        @UniqueConstraint(columnNames = {"storeId", "productId"})
+        @UniqueConstraint(name = "uk_inventory_store_product", columnNames = {"storeId", "productId"})
+}, indexes = {
+        @Index(name = "idx_inventory_store_last_updated", columnList = "storeId, lastUpdated"),
+        @Index(name = "idx_inventory_product_store", columnList = "productId, storeId")
 })
 public class Inventory {
 
@@ -26,6 +30,11 @@ public class Inventory {
     @Column(nullable = false)
     private LocalDateTime lastUpdated;
 
+    // PN-counter whose value is the quantity; null until the row first changes after counters were introduced
+    @Convert(converter = PnCounterConverter.class)
+    @Column(columnDefinition = "TEXT")
+    private PnCounter counter;
+
     // Constructors
     public Inventory() {
         this.lastUpdated = LocalDateTime.now();
@@ -49,4 +58,28 @@ public class Inventory {
     public void setQuantity(int quantity) { this.quantity = quantity; }
     public LocalDateTime getLastUpdated() { return lastUpdated; }
     public void setLastUpdated(LocalDateTime lastUpdated) { this.lastUpdated = lastUpdated; }
+    public PnCounter getCounter() { return counter; }
+    public void setCounter(PnCounter counter) { this.counter = counter; }
+
+    /**
+     * Sets the quantity and records the change in the counter as made by {@code node}.
+     */
+    public void changeQuantity(String node, int newQuantity) {
+        seedCounter().add(node, (long) newQuantity - quantity);
+        this.quantity = newQuantity;
+    }
+
+    /**
+     * Merges another replica's counter into this row and takes the merged value as the quantity.
+     */
+    public void mergeCounter(PnCounter other) {
+        this.quantity = Math.toIntExact(seedCounter().merge(other).value());
+    }
+
+    private PnCounter seedCounter() {
+        if (counter == null) {
+            counter = PnCounter.seeded(quantity);
+        }
+        return counter;
+    }
 }
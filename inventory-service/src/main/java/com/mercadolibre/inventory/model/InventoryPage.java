@@ -0,0 +1,22 @@
+package com.mercadolibre.inventory.model;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is passed as {@code after} to get the
+ * next page and is null on the last one.
+ */
+public class InventoryPage {
+
+    private final List<InventoryView> items;
+    private final String nextCursor;
+
+    public InventoryPage(List<InventoryView> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    // Getters
+    public List<InventoryView> getItems() { return items; }
+    public String getNextCursor() { return nextCursor; }
+}
@@ -0,0 +1,49 @@
+package com.mercadolibre.inventory.model;
+
+/**
+ * Stock totals of one store at a point in time.
+ */
+public class InventorySummary {
+
+    private final String storeId;
+    private final long totalProducts;
+    private final long totalQuantity;
+    private final long lowStockCount;
+    private final long outOfStockCount;
+
+    public InventorySummary(String storeId, long totalProducts, long totalQuantity,
+                            long lowStockCount, long outOfStockCount) {
+        this.storeId = storeId;
+        this.totalProducts = totalProducts;
+        this.totalQuantity = totalQuantity;
+        this.lowStockCount = lowStockCount;
+        this.outOfStockCount = outOfStockCount;
+    }
+
+    public static InventorySummary empty(String storeId) {
+        return new InventorySummary(storeId, 0, 0, 0, 0);
+    }
+
+    // Getters
+    public String getStoreId() { return storeId; }
+    public long getTotalProducts() { return totalProducts; }
+    public long getTotalQuantity() { return totalQuantity; }
+    public long getLowStockCount() { return lowStockCount; }
+    public long getOutOfStockCount() { return outOfStockCount; }
+
+    public boolean sameTotals(InventorySummary other) {
+        return totalProducts == other.totalProducts && totalQuantity == other.totalQuantity
+                && lowStockCount == other.lowStockCount && outOfStockCount == other.outOfStockCount;
+    }
+
+    @Override
+    public String toString() {
+        return "InventorySummary{" +
+                "storeId='" + storeId + '\'' +
+                ", totalProducts=" + totalProducts +
+                ", totalQuantity=" + totalQuantity +
+                ", lowStockCount=" + lowStockCount +
+                ", outOfStockCount=" + outOfStockCount +
+                '}';
+    }
+}
@@ -0,0 +1,31 @@
+package com.mercadolibre.inventory.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * Read-only inventory row built straight from a JDBC result set, for listings that must not load
+ * managed entities.
+ */
+public class InventoryView {
+
+    private final Long id;
+    private final String storeId;
+    private final String productId;
+    private final int quantity;
+    private final LocalDateTime lastUpdated;
+
+    public InventoryView(Long id, String storeId, String productId, int quantity, LocalDateTime lastUpdated) {
+        this.id = id;
+        this.storeId = storeId;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.lastUpdated = lastUpdated;
+    }
+
+    // Getters
+    public Long getId() { return id; }
+    public String getStoreId() { return storeId; }
+    public String getProductId() { return productId; }
+    public int getQuantity() { return quantity; }
+    public LocalDateTime getLastUpdated() { return lastUpdated; }
+}
@@ -0,0 +1,44 @@
+package com.mercadolibre.inventory.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mercadolibre.common.model.PnCounter;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores a {@link PnCounter} as JSON text.
+ */
+@Converter
+public class PnCounterConverter implements AttributeConverter<PnCounter, String> {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Override
+    public String convertToDatabaseColumn(PnCounter counter) {
+        return toJson(counter);
+    }
+
+    @Override
+    public PnCounter convertToEntityAttribute(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return MAPPER.readValue(json, PnCounter.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not read inventory counter", e);
+        }
+    }
+
+    public static String toJson(PnCounter counter) {
+        if (counter == null) {
+            return null;
+        }
+        try {
+            return MAPPER.writeValueAsString(counter);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Could not write inventory counter", e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.mercadolibre.inventory.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Quantity at or below which a product of a store is low on stock and a {@code LOW_STOCK_ALERT} is
+ * raised. Products without one use {@code inventory.low-stock.reorder-point}.
+ */
+@Entity
+@Table(name = "reorder_point", indexes = {
+        @Index(name = "idx_reorder_point_store_product", columnList = "storeId, productId", unique = true)
+})
+public class ReorderPoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String storeId;
+
+    @Column(nullable = false)
+    private String productId;
+
+    @Column(nullable = false)
+    private int reorderPoint;
+
+    // Constructors
+    public ReorderPoint() {}
+
+    public ReorderPoint(String storeId, String productId, int reorderPoint) {
+        this.storeId = storeId;
+        this.productId = productId;
+        this.reorderPoint = reorderPoint;
+    }
+
+    // Getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getStoreId() { return storeId; }
+    public void setStoreId(String storeId) { this.storeId = storeId; }
+    public String getProductId() { return productId; }
+    public void setProductId(String productId) { this.productId = productId; }
+    public int getReorderPoint() { return reorderPoint; }
+    public void setReorderPoint(int reorderPoint) { this.reorderPoint = reorderPoint; }
+}
@@ -0,0 +1,33 @@
+package com.mercadolibre.inventory.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Highest Kafka offset of a source partition whose changes have been applied by a batch, used to
+ * recognise a batch that is delivered again.
+ */
+@Entity
+@Table(name = "source_offset")
+public class SourceOffset {
+
+    // topic-partition, e.g. inventory-events-0
+    @Id
+    private String sourcePartition;
+
+    @Column(nullable = false)
+    private long appliedOffset;
+
+    // Constructors
+    public SourceOffset() {}
+
+    public SourceOffset(String sourcePartition, long appliedOffset) {
+        this.sourcePartition = sourcePartition;
+        this.appliedOffset = appliedOffset;
+    }
+
+    // Getters and setters
+    public String getSourcePartition() { return sourcePartition; }
+    public void setSourcePartition(String sourcePartition) { this.sourcePartition = sourcePartition; }
+    public long getAppliedOffset() { return appliedOffset; }
+    public void setAppliedOffset(long appliedOffset) { this.appliedOffset = appliedOffset; }
+}
@@ -0,0 +1,26 @@
+package com.mercadolibre.inventory.model;
+
+/**
+ * A product whose quantity in a store differs from the central store's. A quantity is null when that
+ * store has no row for the product; {@code difference} counts a missing row as zero.
+ */
+public class StockDifference {
+
+    private final String productId;
+    private final Integer storeQuantity;
+    private final Integer centralQuantity;
+    private final int difference;
+
+    public StockDifference(String productId, Integer storeQuantity, Integer centralQuantity) {
+        this.productId = productId;
+        this.storeQuantity = storeQuantity;
+        this.centralQuantity = centralQuantity;
+        this.difference = (storeQuantity != null ? storeQuantity : 0) - (centralQuantity != null ? centralQuantity : 0);
+    }
+
+    // Getters
+    public String getProductId() { return productId; }
+    public Integer getStoreQuantity() { return storeQuantity; }
+    public Integer getCentralQuantity() { return centralQuantity; }
+    public int getDifference() { return difference; }
+}
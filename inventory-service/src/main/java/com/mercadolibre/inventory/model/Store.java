@@ -3,11 +3,14 @@ package com.mercadolibre.inventory.model;
 import com.mercadolibre.inventory.enums.StoreType;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 
 //TODO mover pra common-lib?
 @Entity
-@Table(name = "stores")
+@Table(name = "stores", indexes = {
+        @Index(name = "idx_stores_active", columnList = "active, id")
+})
 public class Store {
 
     @Id
@@ -0,0 +1,139 @@
+package com.mercadolibre.inventory.repository;
+
+import com.mercadolibre.inventory.enums.DatabaseEngine;
+import com.mercadolibre.inventory.model.Inventory;
+import com.mercadolibre.inventory.model.InventorySummary;
+import com.mercadolibre.inventory.model.InventoryView;
+import com.mercadolibre.inventory.model.PnCounterConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.function.Consumer;
+
+/**
+ * Plain JDBC access to the {@code inventory} table for paths where Hibernate's per-entity
+ * round trips are too expensive.
+ */
+@Repository
+public class InventoryJdbcRepository {
+
+    private static final String SQLITE_UPSERT_SQL =
+            "INSERT INTO inventory (storeId, productId, quantity, lastUpdated, counter) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (storeId, productId) DO UPDATE SET " +
+            "quantity = excluded.quantity, lastUpdated = excluded.lastUpdated, counter = excluded.counter";
+    private static final String H2_UPSERT_SQL =
+            "MERGE INTO inventory (storeId, productId, quantity, lastUpdated, counter) KEY (storeId, productId) " +
+            "VALUES (?, ?, ?, ?, ?)";
+    static final String SELECT_BY_STORE_SQL =
+            "SELECT id, storeId, productId, quantity, lastUpdated FROM inventory WHERE storeId = ? ORDER BY productId";
+    static final String SELECT_PAGE_SQL =
+            "SELECT id, storeId, productId, quantity, lastUpdated FROM inventory " +
+            "WHERE storeId = ? AND productId > ? ORDER BY productId LIMIT ?";
+    private static final String SELECT_STOCK_LEVELS_SQL =
+            "SELECT id, storeId, productId, quantity, lastUpdated FROM inventory";
+    private static final String SUMMARY_BY_STORE_SQL =
+            "SELECT storeId, COUNT(*) AS totalProducts, SUM(quantity) AS totalQuantity, " +
+            "SUM(CASE WHEN quantity <= ? THEN 1 ELSE 0 END) AS lowStockCount, " +
+            "SUM(CASE WHEN quantity <= ? THEN 1 ELSE 0 END) AS outOfStockCount " +
+            "FROM inventory GROUP BY storeId";
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String upsertSql;
+
+    public InventoryJdbcRepository(JdbcTemplate jdbcTemplate, DatabaseEngine databaseEngine) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.upsertSql = databaseEngine == DatabaseEngine.H2 ? H2_UPSERT_SQL : SQLITE_UPSERT_SQL;
+    }
+
+    // Checked by QueryPlanTest, which needs the engine's statement
+    String upsertSql() {
+        return upsertSql;
+    }
+
+    /**
+     * Writes absolute quantities in one JDBC batch. Rows are upserted, so re-running the same batch
+     * after a failure is safe.
+     */
+    public void batchUpsert(List<Inventory> rows) {
+        // Same time zone Hibernate uses for timestamps (hibernate.jdbc.time_zone)
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        jdbcTemplate.batchUpdate(upsertSql, rows, rows.size(), (ps, inventory) -> {
+            ps.setString(1, inventory.getStoreId());
+            ps.setString(2, inventory.getProductId());
+            ps.setInt(3, inventory.getQuantity());
+            ps.setTimestamp(4, Timestamp.valueOf(inventory.getLastUpdated()), utc);
+            ps.setString(5, PnCounterConverter.toJson(inventory.getCounter()));
+        });
+    }
+
+    /**
+     * Hands every row of a store to {@code action} while the result set is being read, ordered by
+     * productId, so the caller never holds more than one row.
+     */
+    public void streamByStoreId(String storeId, Consumer<InventoryView> action) {
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_BY_STORE_SQL);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            ps.setString(1, storeId);
+            return ps;
+        }, (RowCallbackHandler) rs -> action.accept(toView(rs, utc)));
+    }
+
+    /**
+     * Keyset page of a store's rows: up to {@code limit} rows with a productId after {@code afterProductId}.
+     */
+    public List<InventoryView> findPageByStoreId(String storeId, String afterProductId, int limit) {
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        return jdbcTemplate.query(SELECT_PAGE_SQL, (rs, rowNum) -> toView(rs, utc),
+                storeId, afterProductId == null ? "" : afterProductId, limit);
+    }
+
+    /**
+     * Hands every row of the table to {@code action} while the result set is being read.
+     */
+    public void streamAll(Consumer<InventoryView> action) {
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_STOCK_LEVELS_SQL);
+            ps.setFetchSize(STREAM_FETCH_SIZE);
+            return ps;
+        }, (RowCallbackHandler) rs -> action.accept(toView(rs, utc)));
+    }
+
+    /**
+     * Totals of every store that has inventory rows, computed by the database in one pass.
+     */
+    public Map<String, InventorySummary> summarizeByStore(int lowStockThreshold, int outOfStockThreshold) {
+        Map<String, InventorySummary> summaries = new HashMap<>();
+        jdbcTemplate.query(SUMMARY_BY_STORE_SQL, (RowCallbackHandler) rs -> {
+            String storeId = rs.getString("storeId");
+            summaries.put(storeId, new InventorySummary(storeId,
+                    rs.getLong("totalProducts"),
+                    rs.getLong("totalQuantity"),
+                    rs.getLong("lowStockCount"),
+                    rs.getLong("outOfStockCount")));
+        }, lowStockThreshold, outOfStockThreshold);
+        return summaries;
+    }
+
+    private static InventoryView toView(ResultSet rs, Calendar utc) throws SQLException {
+        return new InventoryView(
+                rs.getLong("id"),
+                rs.getString("storeId"),
+                rs.getString("productId"),
+                rs.getInt("quantity"),
+                rs.getTimestamp("lastUpdated", utc).toLocalDateTime());
+    }
+}
@@ -9,6 +9,8 @@ import org.springframework.data.repository.query.Param;
 import jakarta.persistence.LockModeType;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -24,7 +26,9 @@ public interface InventoryRepository extends JpaRepository<Inventory, Long> {
 
     List<Inventory> findByProductId(String productId);
 
+    List<Inventory> findByProductIdAndStoreIdIn(String productId, Collection<String> storeIds);
+
     List<Inventory> findByStoreId(String storeId);
 
-    List<Inventory> findByStoreIdAndQuantityLessThanEqual(String storeId, int threshold);
+    List<Inventory> findByStoreIdAndLastUpdatedAfterOrderByLastUpdatedAsc(String storeId, LocalDateTime since);
 }
\ No newline at end of file
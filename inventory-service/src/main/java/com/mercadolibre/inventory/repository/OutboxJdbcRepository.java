@@ -0,0 +1,59 @@
+package com.mercadolibre.inventory.repository;
+
+import com.mercadolibre.inventory.model.OutboxEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * JDBC access to the {@code outbox_event} table. Rows are only inserted and deleted, never updated.
+ */
+@Repository
+public class OutboxJdbcRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO outbox_event (topic, messageKey, payload, createdAt) VALUES (?, ?, ?, ?)";
+    private static final String SELECT_OLDEST_SQL =
+            "SELECT id, topic, messageKey, payload FROM outbox_event ORDER BY id LIMIT ?";
+    private static final String DELETE_UP_TO_SQL = "DELETE FROM outbox_event WHERE id <= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OutboxJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insert(OutboxEvent event) {
+        batchInsert(List.of(event));
+    }
+
+    public void batchInsert(List<OutboxEvent> events) {
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        jdbcTemplate.batchUpdate(INSERT_SQL, events, events.size(), (ps, event) -> {
+            ps.setString(1, event.getTopic());
+            ps.setString(2, event.getMessageKey());
+            ps.setString(3, event.getPayload());
+            ps.setTimestamp(4, Timestamp.valueOf(event.getCreatedAt()), utc);
+        });
+    }
+
+    public List<OutboxEvent> findOldest(int limit) {
+        return jdbcTemplate.query(SELECT_OLDEST_SQL, (rs, rowNum) -> {
+            OutboxEvent event = new OutboxEvent(rs.getString("topic"), rs.getString("messageKey"),
+                    rs.getString("payload"));
+            event.setId(rs.getLong("id"));
+            return event;
+        }, limit);
+    }
+
+    /**
+     * Removes every event up to and including {@code id}, which is how the relay records its progress.
+     */
+    public int deleteUpTo(long id) {
+        return jdbcTemplate.update(DELETE_UP_TO_SQL, id);
+    }
+}
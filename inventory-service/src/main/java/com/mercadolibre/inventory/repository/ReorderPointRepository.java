@@ -0,0 +1,13 @@
+package com.mercadolibre.inventory.repository;
+
+import com.mercadolibre.inventory.model.ReorderPoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ReorderPointRepository extends JpaRepository<ReorderPoint, Long> {
+
+    Optional<ReorderPoint> findByStoreIdAndProductId(String storeId, String productId);
+}
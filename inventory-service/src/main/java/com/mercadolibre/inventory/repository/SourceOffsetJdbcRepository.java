@@ -0,0 +1,35 @@
+package com.mercadolibre.inventory.repository;
+
+import com.mercadolibre.inventory.enums.DatabaseEngine;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * JDBC writes to the {@code source_offset} table. Offsets only move forward, even if an older batch
+ * commits last.
+ */
+@Repository
+public class SourceOffsetJdbcRepository {
+
+    private static final String SQLITE_ADVANCE_SQL =
+            "INSERT INTO source_offset (sourcePartition, appliedOffset) VALUES (?, ?) " +
+            "ON CONFLICT (sourcePartition) DO UPDATE SET appliedOffset = MAX(appliedOffset, excluded.appliedOffset)";
+    private static final String H2_ADVANCE_SQL =
+            "MERGE INTO source_offset t " +
+            "USING (VALUES (CAST(? AS VARCHAR(255)), CAST(? AS BIGINT))) s (sourcePartition, appliedOffset) " +
+            "ON t.sourcePartition = s.sourcePartition " +
+            "WHEN MATCHED THEN UPDATE SET t.appliedOffset = GREATEST(t.appliedOffset, s.appliedOffset) " +
+            "WHEN NOT MATCHED THEN INSERT (sourcePartition, appliedOffset) VALUES (s.sourcePartition, s.appliedOffset)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String advanceSql;
+
+    public SourceOffsetJdbcRepository(JdbcTemplate jdbcTemplate, DatabaseEngine databaseEngine) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.advanceSql = databaseEngine == DatabaseEngine.H2 ? H2_ADVANCE_SQL : SQLITE_ADVANCE_SQL;
+    }
+
+    public void advance(String sourcePartition, long appliedOffset) {
+        jdbcTemplate.update(advanceSql, sourcePartition, appliedOffset);
+    }
+}
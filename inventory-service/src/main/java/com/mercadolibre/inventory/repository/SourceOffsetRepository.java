@@ -0,0 +1,10 @@
+package com.mercadolibre.inventory.repository;
+
+import com.mercadolibre.inventory.model.SourceOffset;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+// Offsets are written through SourceOffsetJdbcRepository
+@Repository
+public interface SourceOffsetRepository extends JpaRepository<SourceOffset, String> {
+}
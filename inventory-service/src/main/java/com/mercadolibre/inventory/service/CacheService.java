@@ -1,30 +1,273 @@
 package com.mercadolibre.inventory.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import com.mercadolibre.inventory.model.Inventory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Two-tier inventory cache: a bounded Caffeine near-cache per instance in front of Redis.
+ * <p>
+ * Every write goes to both tiers and is announced on a Redis pub/sub channel so the other
+ * instances drop their near-cache copy. The near-cache TTL bounds staleness if a message is lost.
+ * Bulk reads and writes go to Redis as one MGET, MSET or DEL, or one pipeline of SET NX.
+ */
 @Service
-public class CacheService {
+public class CacheService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheService.class);
+    private static final String INVALIDATION_CHANNEL = "inventory-cache-invalidation";
+    private static final String KEY_PREFIX = "inventory:";
+    private static final String KEY_SEPARATOR = "\n";
 
     private final RedisTemplate<String, Inventory> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Cache<String, Inventory> nearCache;
+    private final Counter invalidationsReceived;
+    // Lets an instance ignore its own invalidation messages
+    private final String instanceId = UUID.randomUUID().toString();
 
-    public CacheService(RedisTemplate<String, Inventory> redisTemplate) {
+    public CacheService(RedisTemplate<String, Inventory> redisTemplate,
+                        StringRedisTemplate stringRedisTemplate,
+                        RedisMessageListenerContainer listenerContainer,
+                        MeterRegistry meterRegistry,
+                        @Value("${inventory.cache.near.max-size:10000}") long nearCacheMaxSize,
+                        @Value("${inventory.cache.near.ttl-ms:30000}") long nearCacheTtlMs) {
         this.redisTemplate = redisTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.nearCache = Caffeine.newBuilder()
+                .maximumSize(nearCacheMaxSize)
+                .expireAfterWrite(Duration.ofMillis(nearCacheTtlMs))
+                .recordStats()
+                .build();
+        this.invalidationsReceived = Counter.builder("inventory.near.cache.invalidations")
+                .description("Near-cache entries invalidated by writes on other instances")
+                .register(meterRegistry);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, nearCache, "inventory-near-cache");
+        listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
     }
 
     public void updateInventoryCache(String storeId, String productId, Inventory inventory) {
-        String key = String.format("inventory:%s:%s", storeId, productId);
+        String key = key(storeId, productId);
+        nearCache.put(key, inventory);
         redisTemplate.opsForValue().set(key, inventory);
+        publishInvalidation(key);
+        evictOnRollback(List.of(inventory));
+    }
+
+    /**
+     * Populates both tiers after a read miss. Redis is only written if no other writer got there
+     * first, so a slow read cannot overwrite a newer value.
+     */
+    public void cacheInventory(String storeId, String productId, Inventory inventory) {
+        String key = key(storeId, productId);
+        if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, inventory))) {
+            nearCache.put(key, inventory);
+        }
     }
 
     public Inventory getInventoryFromCache(String storeId, String productId) {
-        String key = String.format("inventory:%s:%s", storeId, productId);
-        return redisTemplate.opsForValue().get(key);
+        String key = key(storeId, productId);
+        Inventory inventory = nearCache.getIfPresent(key);
+        if (inventory != null) {
+            return inventory;
+        }
+
+        inventory = redisTemplate.opsForValue().get(key);
+        if (inventory != null) {
+            nearCache.put(key, inventory);
+        }
+        return inventory;
     }
 
     public void evictInventoryCache(String storeId, String productId) {
-        String key = String.format("inventory:%s:%s", storeId, productId);
+        String key = key(storeId, productId);
+        nearCache.invalidate(key);
         redisTemplate.delete(key);
+        publishInvalidation(key);
+    }
+
+    /**
+     * Writes several entries with one MSET and announces them in a single invalidation message.
+     */
+    public void updateInventoryCache(Collection<Inventory> inventories) {
+        if (inventories.isEmpty()) {
+            return;
+        }
+
+        Map<String, Inventory> entries = new HashMap<>(inventories.size() * 2);
+        for (Inventory inventory : inventories) {
+            entries.put(key(inventory.getStoreId(), inventory.getProductId()), inventory);
+        }
+        nearCache.putAll(entries);
+        redisTemplate.opsForValue().multiSet(entries);
+        publishInvalidation(String.join(KEY_SEPARATOR, entries.keySet()));
+        evictOnRollback(inventories);
+    }
+
+    /**
+     * Bulk counterpart of {@link #cacheInventory}: pipelines one SET NX per entry, so rows read after
+     * a miss are cached without overwriting values written concurrently.
+     */
+    public void warmInventoryCache(Collection<Inventory> inventories) {
+        if (inventories.isEmpty()) {
+            return;
+        }
+
+        List<Inventory> values = new ArrayList<>(inventories);
+        List<Object> stored = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Object execute(RedisOperations operations) {
+                ValueOperations<String, Inventory> valueOperations = operations.opsForValue();
+                for (Inventory inventory : values) {
+                    valueOperations.setIfAbsent(key(inventory.getStoreId(), inventory.getProductId()), inventory);
+                }
+                return null;
+            }
+        });
+
+        for (int i = 0; i < values.size(); i++) {
+            if (Boolean.TRUE.equals(stored.get(i))) {
+                Inventory inventory = values.get(i);
+                nearCache.put(key(inventory.getStoreId(), inventory.getProductId()), inventory);
+            }
+        }
+    }
+
+    /**
+     * Looks up one product in several stores, serving what it can from the near-cache and fetching
+     * the rest with a single MGET. Stores missing from both tiers are absent from the result.
+     */
+    public Map<String, Inventory> getInventoriesFromCache(Collection<String> storeIds, String productId) {
+        Map<String, Inventory> found = new HashMap<>(storeIds.size() * 2);
+        List<String> missingKeys = new ArrayList<>();
+        List<String> missingStoreIds = new ArrayList<>();
+
+        for (String storeId : storeIds) {
+            String key = key(storeId, productId);
+            Inventory inventory = nearCache.getIfPresent(key);
+            if (inventory != null) {
+                found.put(storeId, inventory);
+            } else {
+                missingKeys.add(key);
+                missingStoreIds.add(storeId);
+            }
+        }
+
+        if (!missingKeys.isEmpty()) {
+            List<Inventory> values = redisTemplate.opsForValue().multiGet(missingKeys);
+            for (int i = 0; values != null && i < values.size(); i++) {
+                Inventory inventory = values.get(i);
+                if (inventory != null) {
+                    nearCache.put(missingKeys.get(i), inventory);
+                    found.put(missingStoreIds.get(i), inventory);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Drops several entries from both tiers with one multi-key DEL and a single invalidation message.
+     */
+    public void evictInventoryCache(Collection<Inventory> inventories) {
+        if (inventories.isEmpty()) {
+            return;
+        }
+
+        List<String> keys = new ArrayList<>(inventories.size());
+        for (Inventory inventory : inventories) {
+            keys.add(key(inventory.getStoreId(), inventory.getProductId()));
+        }
+        nearCache.invalidateAll(keys);
+        redisTemplate.delete(keys);
+        publishInvalidation(String.join(KEY_SEPARATOR, keys));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf('|');
+        if (separator < 0 || (separator == instanceId.length() && body.startsWith(instanceId))) {
+            return;
+        }
+
+        int start = separator + 1;
+        while (start <= body.length()) {
+            int end = body.indexOf(KEY_SEPARATOR, start);
+            if (end < 0) {
+                end = body.length();
+            }
+            nearCache.invalidate(body.substring(start, end));
+            invalidationsReceived.increment();
+            start = end + 1;
+        }
+    }
+
+    // Entries written inside a transaction are dropped again if it rolls back, so no tier keeps a value
+    // that was never committed
+    private void evictOnRollback(Collection<Inventory> inventories) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        List<Inventory> written = List.copyOf(inventories);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    return;
+                }
+                try {
+                    evictInventoryCache(written);
+                } catch (RuntimeException e) {
+                    // The near-cache TTL still bounds how long the rolled back values are served
+                    logger.warn("Failed to evict {} cache entries of a rolled back transaction: {}",
+                            written.size(), e.getMessage());
+                }
+            }
+        });
+    }
+
+    private void publishInvalidation(String keys) {
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, instanceId + '|' + keys);
+        } catch (RuntimeException e) {
+            // The near-cache TTL still bounds how long other instances serve the old value
+            logger.warn("Failed to publish cache invalidation for keys {}: {}", keys, e.getMessage());
+        }
+    }
+
+    private static String key(String storeId, String productId) {
+        // Compiles to a single pre-sized concatenation, unlike String.format
+        return KEY_PREFIX + storeId + ':' + productId;
     }
 }
@@ -0,0 +1,54 @@
+package com.mercadolibre.inventory.service;
+
+import com.mercadolibre.common.model.PnCounter;
+import com.mercadolibre.inventory.model.Inventory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Node under which this instance records changes in the inventory counters. The id is configured
+ * rather than taken from the host name: every node id a counter has seen stays in its JSON, so a
+ * fresh id per container would grow every row on each redeploy.
+ * <p>
+ * Nodes listed as retired, ids of instances that will never write again, are folded into the
+ * counter's seed whenever this instance changes a row, which keeps their totals in the value but
+ * drops their entries. Row counters are only overwritten, never merged with another copy of the
+ * same row, so folding cannot count a retired node twice.
+ */
+@Component
+public class CounterNode {
+
+    private final String id;
+    private final Set<String> retiredNodes;
+
+    public CounterNode(@Value("${inventory.crdt.node-id:inventory-service}") String id,
+                       @Value("${inventory.crdt.retired-nodes:}") Set<String> retiredNodes) {
+        if (retiredNodes.contains(id)) {
+            throw new IllegalStateException("Counter node " + id + " is listed as retired");
+        }
+        this.id = id;
+        this.retiredNodes = Set.copyOf(retiredNodes);
+    }
+
+    public String id() {
+        return id;
+    }
+
+    /**
+     * Sets the quantity of {@code inventory} as changed by this node.
+     */
+    public void changeQuantity(Inventory inventory, int newQuantity) {
+        inventory.changeQuantity(id, newQuantity);
+        inventory.getCounter().compact(retiredNodes);
+    }
+
+    /**
+     * Records {@code delta} in {@code counter} as changed by this node.
+     */
+    public void add(PnCounter counter, long delta) {
+        counter.add(id, delta);
+        counter.compact(retiredNodes);
+    }
+}
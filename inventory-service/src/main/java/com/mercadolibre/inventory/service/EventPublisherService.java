@@ -1,26 +1,76 @@
 package com.mercadolibre.inventory.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mercadolibre.common.model.InventoryDelta;
 import com.mercadolibre.common.model.InventoryEvent;
-import org.springframework.kafka.core.KafkaTemplate;
+import com.mercadolibre.common.model.PnCounter;
+import com.mercadolibre.inventory.model.OutboxEvent;
+import com.mercadolibre.inventory.repository.OutboxJdbcRepository;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Publishes inventory events through the transactional outbox: events are stored in the
+ * {@code outbox_event} table as part of the caller's transaction and sent to Kafka by
+ * {@link OutboxRelay}. An event is therefore only delivered if the change it describes commits.
+ * <p>
+ * With the stock ledger enabled the inventory rows are persisted by {@link InventoryWriteBehind},
+ * so events are handed to it as well and committed in the same batch as those rows.
+ */
 @Service
 public class EventPublisherService {
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OutboxJdbcRepository outboxJdbcRepository;
+    private final InventoryWriteBehind writeBehind;
+    private final StockLedger stockLedger;
+    private final ObjectMapper objectMapper;
 
-    public EventPublisherService(KafkaTemplate<String, Object> kafkaTemplate) {
-        this.kafkaTemplate = kafkaTemplate;
+    public EventPublisherService(OutboxJdbcRepository outboxJdbcRepository,
+                                 InventoryWriteBehind writeBehind,
+                                 StockLedger stockLedger,
+                                 ObjectMapper objectMapper) {
+        this.outboxJdbcRepository = outboxJdbcRepository;
+        this.writeBehind = writeBehind;
+        this.stockLedger = stockLedger;
+        this.objectMapper = objectMapper;
     }
 
-    public void publishInventoryUpdate(String storeId, String productId, int quantity) {
+    public void publishInventoryUpdate(String storeId, String productId, int quantity, PnCounter counter) {
         InventoryEvent event = new InventoryEvent(
                 storeId,
                 productId,
                 quantity,
                 "UPDATE"
         );
-        kafkaTemplate.send("inventory-events", event);
+        event.setCounter(counter);
+        store("inventory-events", storeId + ':' + productId, event);
+    }
+
+    /**
+     * Publishes the net change of each key of a batch as its own UPDATE event, keyed like a single
+     * change, so every change of a SKU goes to the same partition in commit order.
+     */
+    public void publishInventoryBatch(List<InventoryDelta> deltas) {
+        List<OutboxEvent> outboxEvents = new ArrayList<>(deltas.size());
+        for (InventoryDelta delta : deltas) {
+            InventoryEvent event = new InventoryEvent(
+                    delta.getStoreId(),
+                    delta.getProductId(),
+                    delta.getQuantity(),
+                    "UPDATE"
+            );
+            event.setCounter(delta.getCounter());
+            outboxEvents.add(toOutboxEvent("inventory-events", delta.getStoreId() + ':' + delta.getProductId(), event));
+        }
+
+        if (stockLedger.isEnabled()) {
+            outboxEvents.forEach(writeBehind::enqueueEvent);
+        } else {
+            outboxJdbcRepository.batchInsert(outboxEvents);
+        }
     }
 
     public void publishLowStockAlert(String storeId, String productId, int currentQuantity) {
@@ -30,7 +80,24 @@ public class EventPublisherService {
                 currentQuantity,
                 "LOW_STOCK_ALERT"
         );
-        kafkaTemplate.send("inventory-alerts", event);
+        store("inventory-alerts", storeId + ':' + productId, event);
+    }
+
+    private void store(String topic, String key, InventoryEvent event) {
+        OutboxEvent outboxEvent = toOutboxEvent(topic, key, event);
+        if (stockLedger.isEnabled()) {
+            writeBehind.enqueueEvent(outboxEvent);
+        } else {
+            outboxJdbcRepository.insert(outboxEvent);
+        }
+    }
+
+    private OutboxEvent toOutboxEvent(String topic, String key, InventoryEvent event) {
+        try {
+            return new OutboxEvent(topic, key, objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize event " + event.getEventId(), e);
+        }
     }
 
     // TODO: mover
@@ -0,0 +1,63 @@
+package com.mercadolibre.inventory.service;
+
+import com.mercadolibre.common.model.IdDictionary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Store and product id dictionaries of this instance. In-memory structures holding a row per
+ * (store, product) key it by {@link #key} and keep the canonical id strings, instead of a fresh
+ * {@code storeId + ':' + productId} string per entry.
+ * <p>
+ * Only those structures use the codes. Redis keys, Kafka record keys and events, and database rows
+ * keep the string ids, since other instances, sync-service and later runs read them without this
+ * instance's codes.
+ */
+@Component
+public class InventoryIds {
+
+    private final IdDictionary stores = new IdDictionary();
+    private final IdDictionary products = new IdDictionary();
+
+    public InventoryIds(MeterRegistry meterRegistry) {
+        Gauge.builder("inventory.ids.size", stores, IdDictionary::size)
+                .description("Distinct ids encoded by this instance")
+                .tag("kind", "store")
+                .register(meterRegistry);
+        Gauge.builder("inventory.ids.size", products, IdDictionary::size)
+                .description("Distinct ids encoded by this instance")
+                .tag("kind", "product")
+                .register(meterRegistry);
+    }
+
+    public long key(String storeId, String productId) {
+        return IdDictionary.pair(stores.encode(storeId), products.encode(productId));
+    }
+
+    /**
+     * Key of a pair whose ids were both encoded before, or -1. Lookups use it so that requests for
+     * unknown ids do not grow the dictionaries.
+     */
+    public long existingKey(String storeId, String productId) {
+        int store = stores.codeOf(storeId);
+        int product = products.codeOf(productId);
+        return store < 0 || product < 0 ? -1 : IdDictionary.pair(store, product);
+    }
+
+    public IdDictionary stores() {
+        return stores;
+    }
+
+    public IdDictionary products() {
+        return products;
+    }
+
+    public String store(String storeId) {
+        return stores.intern(storeId);
+    }
+
+    public String product(String productId) {
+        return products.intern(productId);
+    }
+}
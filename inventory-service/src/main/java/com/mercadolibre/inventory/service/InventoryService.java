@@ -1,79 +1,183 @@
 package com.mercadolibre.inventory.service;
 
 import com.mercadolibre.common.exception.ApiException;
+import com.mercadolibre.common.model.InventoryDelta;
+import com.mercadolibre.common.model.PnCounter;
+import com.mercadolibre.common.enums.BatchMode;
+import com.mercadolibre.common.enums.InventoryOperationType;
+import com.mercadolibre.inventory.model.AvailabilityMatrix;
 import com.mercadolibre.inventory.model.Inventory;
+import com.mercadolibre.common.model.InventoryBatchRequest;
+import com.mercadolibre.common.model.InventoryBatchResponse;
+import com.mercadolibre.common.model.InventoryOperation;
+import com.mercadolibre.common.model.InventoryOperationResult;
+import com.mercadolibre.inventory.model.InventoryPage;
+import com.mercadolibre.inventory.model.InventorySummary;
+import com.mercadolibre.inventory.model.InventoryView;
+import com.mercadolibre.inventory.model.ReorderPoint;
+import com.mercadolibre.inventory.model.StockDifference;
 import com.mercadolibre.inventory.model.Store;
+import com.mercadolibre.inventory.repository.InventoryJdbcRepository;
 import com.mercadolibre.inventory.repository.InventoryRepository;
+import com.mercadolibre.inventory.repository.ReorderPointRepository;
 import com.mercadolibre.inventory.repository.StoreRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 public class InventoryService {
 
     private static final Logger logger = LoggerFactory.getLogger(InventoryService.class);
     private final InventoryRepository inventoryRepository;
+    private final InventoryJdbcRepository inventoryJdbcRepository;
     private final StoreRepository storeRepository;
     private final CacheService cacheService;
     private final EventPublisherService eventPublisherService;
+    private final StockLedger stockLedger;
+    private final SourceOffsetTracker sourceOffsetTracker;
+    private final InventorySummaryIndex summaryIndex;
+    private final LowStockIndex lowStockIndex;
+    private final InventorySnapshot snapshot;
+    private final ReorderPointRepository reorderPointRepository;
+    private final CounterNode counterNode;
+    private final String centralStoreId;
 
     public InventoryService(InventoryRepository inventoryRepository,
+                            InventoryJdbcRepository inventoryJdbcRepository,
                             StoreRepository storeRepository,
                             CacheService cacheService,
-                            EventPublisherService eventPublisherService) {
+                            EventPublisherService eventPublisherService,
+                            StockLedger stockLedger,
+                            SourceOffsetTracker sourceOffsetTracker,
+                            InventorySummaryIndex summaryIndex,
+                            LowStockIndex lowStockIndex,
+                            InventorySnapshot snapshot,
+                            ReorderPointRepository reorderPointRepository,
+                            CounterNode counterNode,
+                            @Value("${inventory.snapshot.central-store-id:store-000}") String centralStoreId) {
         this.inventoryRepository = inventoryRepository;
+        this.inventoryJdbcRepository = inventoryJdbcRepository;
         this.storeRepository = storeRepository;
         this.cacheService = cacheService;
         this.eventPublisherService = eventPublisherService;
+        this.stockLedger = stockLedger;
+        this.sourceOffsetTracker = sourceOffsetTracker;
+        this.summaryIndex = summaryIndex;
+        this.lowStockIndex = lowStockIndex;
+        this.snapshot = snapshot;
+        this.reorderPointRepository = reorderPointRepository;
+        this.counterNode = counterNode;
+        this.centralStoreId = centralStoreId;
     }
 
-    @Cacheable(value = "inventory", key = "{#storeId, #productId}")
+    @Transactional(readOnly = true)
     public Inventory getInventory(String storeId, String productId) {
+        if (stockLedger.isEnabled()) {
+            Optional<Inventory> ledgerInventory = stockLedger.peek(storeId, productId);
+            if (ledgerInventory.isPresent()) {
+                return ledgerInventory.get();
+            }
+        }
+
+        Inventory cachedInventory = cacheService.getInventoryFromCache(storeId, productId);
+        if (cachedInventory != null) {
+            return cachedInventory;
+        }
+
         logger.info("Fetching inventory from database for store: {}, product: {}", storeId, productId);
-        return inventoryRepository.findByStoreIdAndProductId(storeId, productId)
+        Inventory inventory = inventoryRepository.findByStoreIdAndProductId(storeId, productId)
                 .orElseThrow(() -> ApiException.inventoryNotFound(storeId, productId));
+        cacheService.cacheInventory(storeId, productId, inventory);
+        return inventory;
     }
 
+    /**
+     * Rows of a product in every store holding it. The stores come from the in-memory snapshot, so
+     * rows another instance created are listed once the snapshot is rebuilt. The snapshot holds
+     * quantities only, and each row is returned with its id and {@code lastUpdated}, so each row is
+     * read from the ledger when it holds the key, then from the cache in one multi-get, and only the
+     * rest from the database, which are cached for the next read.
+     */
+    @Transactional(readOnly = true)
     public List<Inventory> getInventoryAcrossStores(String productId) {
-        return inventoryRepository.findByProductId(productId);
+        List<String> storeIds = snapshot.storesHolding(productId);
+        Map<String, Inventory> found = new HashMap<>(storeIds.size() * 2);
+        if (stockLedger.isEnabled()) {
+            for (String storeId : storeIds) {
+                stockLedger.peek(storeId, productId).ifPresent(inventory -> found.put(storeId, inventory));
+            }
+        }
+
+        List<String> unresolved = storeIds.stream().filter(storeId -> !found.containsKey(storeId)).toList();
+        if (!unresolved.isEmpty()) {
+            found.putAll(cacheService.getInventoriesFromCache(unresolved, productId));
+        }
+
+        List<String> missing = unresolved.stream().filter(storeId -> !found.containsKey(storeId)).toList();
+        if (!missing.isEmpty()) {
+            logger.info("Fetching inventory from database for product: {} in {} stores", productId, missing.size());
+            List<Inventory> stored = inventoryRepository.findByProductIdAndStoreIdIn(productId, missing);
+            cacheService.warmInventoryCache(stored);
+            stored.forEach(inventory -> found.put(inventory.getStoreId(), inventory));
+        }
+
+        List<Inventory> inventories = new ArrayList<>(found.size());
+        for (String storeId : storeIds) {
+            Inventory inventory = found.get(storeId);
+            if (inventory != null) {
+                inventories.add(inventory);
+            }
+        }
+        return inventories;
     }
 
     @Transactional
-    @CacheEvict(value = "inventory", key = "{#storeId, #productId}")
     public Inventory decrementInventory(String storeId, String productId, int quantity, boolean publishEvent) {
         logger.info("Decrementing inventory for store: {}, product: {}, quantity: {}", storeId, productId, quantity);
-        
-        Inventory inventory = inventoryRepository.findByStoreIdAndProductIdWithLock(storeId, productId)
-                .orElseThrow(() -> ApiException.inventoryNotFound(storeId, productId));
 
-        if (inventory.getQuantity() < quantity) {
-            throw ApiException.insufficientInventory(storeId, productId, quantity, inventory.getQuantity());
-        }
+        Inventory updatedInventory;
+        if (stockLedger.isEnabled()) {
+            updatedInventory = stockLedger.decrement(storeId, productId, quantity).inventory();
+        } else {
+            Inventory inventory = inventoryRepository.findByStoreIdAndProductIdWithLock(storeId, productId)
+                    .orElseThrow(() -> ApiException.inventoryNotFound(storeId, productId));
 
-        inventory.setQuantity(inventory.getQuantity() - quantity);
-        inventory.setLastUpdated(LocalDateTime.now());
-        Inventory updatedInventory = inventoryRepository.save(inventory);
+            if (inventory.getQuantity() < quantity) {
+                throw ApiException.insufficientInventory(storeId, productId, quantity, inventory.getQuantity());
+            }
 
-        // Update cache manually
-        cacheService.updateInventoryCache(storeId, productId, updatedInventory);
+            counterNode.changeQuantity(inventory, inventory.getQuantity() - quantity);
+            inventory.setLastUpdated(LocalDateTime.now());
+            updatedInventory = inventoryRepository.save(inventory);
+        }
 
         // Publish event for synchronization
         //eventPublisherService.publishInventoryUpdate(storeId, productId, updatedInventory.getQuantity());
         if(publishEvent){
-            eventPublisherService.publishInventoryUpdate(storeId, productId, -quantity);
+            publishUpdate(updatedInventory, -quantity);
         }
 
+        recordStockChange(updatedInventory, updatedInventory.getQuantity() + quantity);
+
+        // Update cache manually
+        updateCache(updatedInventory);
+
         logger.info("Successfully decremented inventory for store: {}, product: {}, new quantity: {}", 
                 storeId, productId, updatedInventory.getQuantity());
         
@@ -81,91 +185,431 @@ public class InventoryService {
     }
 
     @Transactional
-    @CacheEvict(value = "inventory", key = "{#storeId, #productId}")
     public Inventory incrementInventory(String storeId, String productId, int quantity, boolean publishEvent) {
-        Inventory inventory = inventoryRepository.findByStoreIdAndProductIdWithLock(storeId, productId)
-                .orElseGet(() -> {
-                    Inventory newInventory = new Inventory();
-                    newInventory.setStoreId(storeId);
-                    newInventory.setProductId(productId);
-                    newInventory.setQuantity(0);
-                    return newInventory;
-                });
-
-        inventory.setQuantity(inventory.getQuantity() + quantity);
-        inventory.setLastUpdated(LocalDateTime.now());
-        Inventory updatedInventory = inventoryRepository.save(inventory);
-
-        cacheService.updateInventoryCache(storeId, productId, updatedInventory);
+        Integer previousQuantity;
+        Inventory updatedInventory;
+        if (stockLedger.isEnabled()) {
+            StockLedger.LedgerUpdate update = stockLedger.increment(storeId, productId, quantity);
+            previousQuantity = update.created() ? null : update.previousQuantity();
+            updatedInventory = update.inventory();
+        } else {
+            Inventory inventory = inventoryRepository.findByStoreIdAndProductIdWithLock(storeId, productId)
+                    .orElseGet(() -> {
+                        Inventory newInventory = new Inventory();
+                        newInventory.setStoreId(storeId);
+                        newInventory.setProductId(productId);
+                        newInventory.setQuantity(0);
+                        return newInventory;
+                    });
+
+            previousQuantity = inventory.getId() != null ? inventory.getQuantity() : null;
+            counterNode.changeQuantity(inventory, inventory.getQuantity() + quantity);
+            inventory.setLastUpdated(LocalDateTime.now());
+            updatedInventory = inventoryRepository.save(inventory);
+        }
+
         if(publishEvent) {
-            eventPublisherService.publishInventoryUpdate(storeId, productId, quantity);
+            publishUpdate(updatedInventory, quantity);
         }
+        recordStockChange(updatedInventory, previousQuantity);
+        updateCache(updatedInventory);
 
         return updatedInventory;
     }
 
     @Transactional
-    @CacheEvict(value = "inventory", key = "{#storeId, #productId}")
     public Inventory setInventory(String storeId, String productId, int quantity, boolean publishEvent) {
 
-        Optional<Inventory> existingInventoryOpt = inventoryRepository.findByStoreIdAndProductIdWithLock(storeId, productId);
-
         int oldQuantity = 0;
-        Inventory inventory;
-
-        if (existingInventoryOpt.isPresent()) {
-            inventory = existingInventoryOpt.get();
-            oldQuantity = inventory.getQuantity();
+        boolean created;
+        Inventory updatedInventory;
+
+        if (stockLedger.isEnabled()) {
+            StockLedger.LedgerUpdate update = stockLedger.set(storeId, productId, quantity);
+            oldQuantity = update.previousQuantity();
+            created = update.created();
+            updatedInventory = update.inventory();
         } else {
-            inventory = new Inventory();
-            inventory.setStoreId(storeId);
-            inventory.setProductId(productId);
+            Optional<Inventory> existingInventoryOpt = inventoryRepository.findByStoreIdAndProductIdWithLock(storeId, productId);
+            Inventory inventory;
+
+            if (existingInventoryOpt.isPresent()) {
+                inventory = existingInventoryOpt.get();
+                oldQuantity = inventory.getQuantity();
+            } else {
+                inventory = new Inventory();
+                inventory.setStoreId(storeId);
+                inventory.setProductId(productId);
+            }
+            created = existingInventoryOpt.isEmpty();
+
+            counterNode.changeQuantity(inventory, quantity);
+            inventory.setLastUpdated(LocalDateTime.now());
+            updatedInventory = inventoryRepository.save(inventory);
         }
 
-        inventory.setQuantity(quantity);
-        inventory.setLastUpdated(LocalDateTime.now());
-        Inventory updatedInventory = inventoryRepository.save(inventory);
-
-        cacheService.updateInventoryCache(storeId, productId, updatedInventory);
-
         int quantityDifference = quantity - oldQuantity;
         if(publishEvent){
-            eventPublisherService.publishInventoryUpdate(storeId, productId, quantityDifference);
+            publishUpdate(updatedInventory, quantityDifference);
         }
 
+        recordStockChange(updatedInventory, created ? null : oldQuantity);
+        updateCache(updatedInventory);
+
         return updatedInventory;
     }
 
-    public List<Inventory> getAvailableProductsByStore(String storeId) {
-        return inventoryRepository.findByStoreId(storeId);
+    /**
+     * Applies a list of stock movements in one transaction. Each key is written to the cache once and
+     * the net change per key is published as a single grouped event.
+     * <p>
+     * When the request carries Kafka source offsets they are stored with the changes, and a batch whose
+     * offsets were all applied before is acknowledged without being applied again.
+     */
+    @Transactional
+    public InventoryBatchResponse applyBatch(InventoryBatchRequest request) {
+        List<InventoryOperation> operations = request.getOperations();
+        boolean atomic = request.getMode() == BatchMode.ATOMIC;
+        logger.info("Applying batch of {} operations, mode: {}", operations.size(), request.getMode());
+
+        Map<String, Long> sourceOffsets = request.getSourceOffsets();
+        boolean tracked = sourceOffsets != null && !sourceOffsets.isEmpty();
+        if (tracked && sourceOffsetTracker.isApplied(sourceOffsets)) {
+            logger.info("Batch for source offsets {} was already applied, skipping", sourceOffsets);
+            return InventoryBatchResponse.duplicate(request.getMode());
+        }
+
+        if (atomic && operations.stream().anyMatch(operation -> operation.getType() == InventoryOperationType.MERGE)) {
+            // A merged counter cannot be taken back out of the ledger if the batch rolls back
+            throw ApiException.validationError("MERGE operations are only accepted in BEST_EFFORT batches");
+        }
+
+        List<InventoryOperationResult> results = new ArrayList<>(operations.size());
+        Map<String, Inventory> touched = new LinkedHashMap<>();
+        Map<String, Integer> netChanges = new LinkedHashMap<>();
+        // Quantity of each key before the batch, null for products the batch creates
+        Map<String, Integer> initialQuantities = new HashMap<>();
+        // Keys read for a MERGE, which takes no row lock
+        Set<String> unlocked = new HashSet<>();
+        List<InventoryDelta> ledgerUndo = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < operations.size(); i++) {
+                InventoryOperation operation = operations.get(i);
+                String key = operation.getStoreId() + ':' + operation.getProductId();
+
+                try {
+                    int previousQuantity;
+                    Inventory updatedInventory;
+                    if (stockLedger.isEnabled()) {
+                        StockLedger.LedgerUpdate update = applyToLedger(operation);
+                        previousQuantity = update.previousQuantity();
+                        updatedInventory = update.inventory();
+                        ledgerUndo.add(new InventoryDelta(operation.getStoreId(), operation.getProductId(),
+                                previousQuantity - updatedInventory.getQuantity()));
+                        if (!initialQuantities.containsKey(key)) {
+                            initialQuantities.put(key, update.created() ? null : previousQuantity);
+                        }
+                    } else {
+                        updatedInventory = touched.get(key);
+                        if (updatedInventory == null) {
+                            updatedInventory = loadForBatch(operation);
+                            initialQuantities.put(key, updatedInventory.getId() != null ? updatedInventory.getQuantity() : null);
+                            if (operation.getType() == InventoryOperationType.MERGE) {
+                                unlocked.add(key);
+                            }
+                        } else if (operation.getType() != InventoryOperationType.MERGE && unlocked.remove(key)
+                                && updatedInventory.getId() != null) {
+                            // Takes the row lock a merge skipped; the managed row keeps the merged state
+                            inventoryRepository.findByStoreIdAndProductIdWithLock(operation.getStoreId(), operation.getProductId());
+                        }
+                        previousQuantity = updatedInventory.getQuantity();
+                        if (operation.getType() == InventoryOperationType.MERGE) {
+                            updatedInventory.mergeCounter(requireCounter(operation));
+                        } else {
+                            counterNode.changeQuantity(updatedInventory, nextQuantity(operation, previousQuantity));
+                        }
+                        updatedInventory.setLastUpdated(LocalDateTime.now());
+                    }
+
+                    touched.put(key, updatedInventory);
+                    netChanges.merge(key, updatedInventory.getQuantity() - previousQuantity, Integer::sum);
+                    results.add(InventoryOperationResult.success(i, operation, updatedInventory.getQuantity()));
+                } catch (ApiException e) {
+                    if (atomic) {
+                        throw e;
+                    }
+                    // Lets callers such as the sync service see what the product holds after an insufficient stock error
+                    Object available = e.getDetails() != null ? e.getDetails().get("available") : null;
+                    results.add(InventoryOperationResult.failure(i, operation, e.getErrorCode(), e.getMessage(),
+                            available instanceof Integer quantity ? quantity : null));
+                }
+            }
+
+            // Queued with the ledger changes, so they never reach the database without their events
+            if (request.isPublishEvent()) {
+                publishBatch(touched, netChanges);
+            }
+        } catch (RuntimeException e) {
+            // The database part is rolled back with the transaction, the ledger has to be undone by hand
+            for (int i = ledgerUndo.size() - 1; i >= 0; i--) {
+                InventoryDelta undo = ledgerUndo.get(i);
+                stockLedger.adjust(undo.getStoreId(), undo.getProductId(), undo.getQuantity());
+            }
+            throw e;
+        }
+
+        if (!stockLedger.isEnabled()) {
+            inventoryRepository.saveAll(touched.values());
+        }
+        if (tracked) {
+            sourceOffsetTracker.record(sourceOffsets);
+        }
+
+        touched.forEach((key, inventory) -> recordStockChange(inventory, initialQuantities.get(key)));
+        updateCache(touched.values());
+
+        InventoryBatchResponse response = new InventoryBatchResponse(request.getMode(), results);
+        logger.info("Batch applied: {} succeeded, {} failed", response.getSuccessCount(), response.getFailureCount());
+        return response;
+    }
+
+    // Publishes the net change of each key the batch moved
+    private void publishBatch(Map<String, Inventory> touched, Map<String, Integer> netChanges) {
+        List<InventoryDelta> deltas = new ArrayList<>(netChanges.size());
+        touched.forEach((key, inventory) -> {
+            int change = netChanges.get(key);
+            if (change != 0) {
+                InventoryDelta delta = new InventoryDelta(inventory.getStoreId(), inventory.getProductId(), change);
+                delta.setCounter(inventory.getCounter());
+                deltas.add(delta);
+            }
+        });
+        if (!deltas.isEmpty()) {
+            eventPublisherService.publishInventoryBatch(deltas);
+        }
+    }
+
+    /**
+     * Queues the UPDATE event of a single change. With the ledger the change is already queued for the
+     * database, so it is taken back out of the ledger when its event cannot be queued with it.
+     */
+    private void publishUpdate(Inventory updatedInventory, int change) {
+        String storeId = updatedInventory.getStoreId();
+        String productId = updatedInventory.getProductId();
+        try {
+            eventPublisherService.publishInventoryUpdate(storeId, productId, change, updatedInventory.getCounter());
+        } catch (RuntimeException e) {
+            if (stockLedger.isEnabled()) {
+                stockLedger.adjust(storeId, productId, -change);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Writes a change to the cache once its event is queued. Without the ledger a cache failure rolls the
+     * change and its event back with the transaction. With the ledger both are already queued for the
+     * database, so the failure is only logged: reads go to the ledger first, and the next change of the
+     * key writes the cache again.
+     */
+    private void updateCache(Inventory updatedInventory) {
+        String storeId = updatedInventory.getStoreId();
+        String productId = updatedInventory.getProductId();
+        try {
+            cacheService.updateInventoryCache(storeId, productId, updatedInventory);
+        } catch (RuntimeException e) {
+            if (!stockLedger.isEnabled()) {
+                throw e;
+            }
+            logger.warn("Failed to cache inventory for store: {}, product: {}, the ledger keeps the change: {}",
+                    storeId, productId, e.getMessage());
+        }
+    }
+
+    // As updateCache(Inventory), for the rows of a batch in one MSET
+    private void updateCache(Collection<Inventory> updatedInventories) {
+        try {
+            cacheService.updateInventoryCache(updatedInventories);
+        } catch (RuntimeException e) {
+            if (!stockLedger.isEnabled()) {
+                throw e;
+            }
+            logger.warn("Failed to cache {} inventories of a batch, the ledger keeps the changes: {}",
+                    updatedInventories.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Moves the in-memory summary and low-stock indexes with a change and raises a low-stock alert when
+     * the change calls for one. {@code previousQuantity} is null for a product the change created.
+     */
+    private void recordStockChange(Inventory updatedInventory, Integer previousQuantity) {
+        String storeId = updatedInventory.getStoreId();
+        String productId = updatedInventory.getProductId();
+        int quantity = updatedInventory.getQuantity();
+
+        summaryIndex.recordChange(storeId, previousQuantity, quantity);
+        snapshot.recordChange(storeId, productId, quantity);
+        if (lowStockIndex.recordChange(storeId, productId, quantity, updatedInventory.getLastUpdated())) {
+            logger.info("Inventory of store: {}, product: {} reached its reorder point, quantity: {}",
+                    storeId, productId, quantity);
+            eventPublisherService.publishLowStockAlert(storeId, productId, quantity);
+        }
+    }
+
+    public Map<String, Long> getAppliedSourceOffsets() {
+        return sourceOffsetTracker.getAppliedOffsets();
+    }
+
+    private StockLedger.LedgerUpdate applyToLedger(InventoryOperation operation) {
+        String storeId = operation.getStoreId();
+        String productId = operation.getProductId();
+        int quantity = operation.getQuantity();
+
+        return switch (operation.getType()) {
+            case INCREMENT -> stockLedger.increment(storeId, productId, requirePositive(operation));
+            case DECREMENT -> stockLedger.decrement(storeId, productId, requirePositive(operation));
+            case SET -> stockLedger.set(storeId, productId, quantity);
+            case MERGE -> stockLedger.merge(storeId, productId, requireCounter(operation));
+        };
+    }
+
+    /**
+     * Reads the row an operation applies to, under a row lock except for MERGE. Merges commute and are
+     * idempotent, and every counter carries its store's whole history, so a merge lost to a concurrent
+     * write is made good by the next merge of the product and needs no lock.
+     */
+    private Inventory loadForBatch(InventoryOperation operation) {
+        String storeId = operation.getStoreId();
+        String productId = operation.getProductId();
+
+        Optional<Inventory> existing = operation.getType() == InventoryOperationType.MERGE
+                ? inventoryRepository.findByStoreIdAndProductId(storeId, productId)
+                : inventoryRepository.findByStoreIdAndProductIdWithLock(storeId, productId);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        if (operation.getType() == InventoryOperationType.DECREMENT) {
+            throw ApiException.inventoryNotFound(storeId, productId);
+        }
+        return new Inventory(storeId, productId, 0);
+    }
+
+    private static int nextQuantity(InventoryOperation operation, int currentQuantity) {
+        return switch (operation.getType()) {
+            case INCREMENT -> currentQuantity + requirePositive(operation);
+            case DECREMENT -> {
+                int quantity = requirePositive(operation);
+                if (currentQuantity < quantity) {
+                    throw ApiException.insufficientInventory(operation.getStoreId(), operation.getProductId(),
+                            quantity, currentQuantity);
+                }
+                yield currentQuantity - quantity;
+            }
+            case SET -> operation.getQuantity();
+            case MERGE -> throw new IllegalStateException("MERGE operations do not set a quantity");
+        };
+    }
+
+    private static PnCounter requireCounter(InventoryOperation operation) {
+        if (operation.getCounter() == null) {
+            throw ApiException.validationError("A counter is required for MERGE operations");
+        }
+        return operation.getCounter();
+    }
+
+    private static int requirePositive(InventoryOperation operation) {
+        if (operation.getQuantity() <= 0) {
+            throw ApiException.validationError("Quantity must be positive for " + operation.getType() + " operations");
+        }
+        return operation.getQuantity();
+    }
+
+    @Transactional(readOnly = true)
+    public void streamStoreProducts(String storeId, Consumer<InventoryView> action) {
+        inventoryJdbcRepository.streamByStoreId(storeId, action);
+    }
+
+    @Transactional(readOnly = true)
+    public InventoryPage getStoreProductsPage(String storeId, String afterProductId, int limit) {
+        List<InventoryView> items = inventoryJdbcRepository.findPageByStoreId(storeId, afterProductId, limit);
+        String nextCursor = items.size() == limit ? items.get(items.size() - 1).getProductId() : null;
+        return new InventoryPage(items, nextCursor);
+    }
+
+    /**
+     * Rows of a store changed after {@code since}, oldest first; all rows when {@code since} is null.
+     */
+    @Transactional(readOnly = true)
+    public List<Inventory> getChangesSince(String storeId, LocalDateTime since) {
+        if (since == null) {
+            return inventoryRepository.findByStoreId(storeId);
+        }
+        return inventoryRepository.findByStoreIdAndLastUpdatedAfterOrderByLastUpdatedAsc(storeId, since);
     }
 
     public List<Inventory> getLowStockItems(String storeId, int threshold) {
-        return inventoryRepository.findByStoreIdAndQuantityLessThanEqual(storeId, threshold);
+        return lowStockIndex.findLowStock(storeId, threshold);
     }
 
-    public Map<String, Object> getInventorySummary(String storeId) {
-        logger.info("Getting inventory summary for store: {}", storeId);
+    @Transactional
+    public int setReorderPoint(String storeId, String productId, int reorderPoint) {
+        ReorderPoint stored = reorderPointRepository.findByStoreIdAndProductId(storeId, productId)
+                .orElseGet(() -> new ReorderPoint(storeId, productId, reorderPoint));
+        stored.setReorderPoint(reorderPoint);
+        reorderPointRepository.save(stored);
+
+        lowStockIndex.setReorderPoint(storeId, productId, reorderPoint);
+        return reorderPoint;
+    }
 
+    public int getReorderPoint(String storeId, String productId) {
+        return lowStockIndex.getReorderPoint(storeId, productId);
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Object> getInventorySummary(String storeId) {
         // Verify store exists
         if (!storeRepository.existsById(storeId)) {
             throw ApiException.storeNotFound(storeId);
         }
 
-        List<Inventory> inventories = inventoryRepository.findByStoreId(storeId);
+        InventorySummary inventorySummary = summaryIndex.get(storeId);
 
         Map<String, Object> summary = new HashMap<>();
         summary.put("storeId", storeId);
-        summary.put("totalProducts", inventories.size());
-        summary.put("totalQuantity", inventories.stream().mapToInt(Inventory::getQuantity).sum());
-        summary.put("lowStockCount", inventories.stream().mapToInt(i -> i.getQuantity() <= 10 ? 1 : 0).sum());
-        summary.put("outOfStockCount", inventories.stream().mapToInt(i -> i.getQuantity() == 0 ? 1 : 0).sum());
+        summary.put("totalProducts", inventorySummary.getTotalProducts());
+        summary.put("totalQuantity", inventorySummary.getTotalQuantity());
+        summary.put("lowStockCount", inventorySummary.getLowStockCount());
+        summary.put("outOfStockCount", inventorySummary.getOutOfStockCount());
         summary.put("lastUpdated", LocalDateTime.now());
+        return summary;
+    }
 
-        logger.info("Generated inventory summary for store: {} - {} products, {} total quantity",
-                storeId, inventories.size(), summary.get("totalQuantity"));
+    public int getLowStockThreshold() {
+        return summaryIndex.getLowStockThreshold();
+    }
 
-        return summary;
+    public Map<String, Long> getTotalsAcrossStores(List<String> productIds) {
+        return snapshot.totalsByProduct(productIds);
+    }
+
+    public AvailabilityMatrix getAvailability(List<String> productIds, List<String> storeIds) {
+        return snapshot.availability(productIds, storeIds);
+    }
+
+    /**
+     * Products whose quantity in a store differs from the central store's, from the in-memory snapshot.
+     */
+    @Transactional(readOnly = true)
+    public List<StockDifference> getCentralDifferences(String storeId) {
+        for (String id : List.of(storeId, centralStoreId)) {
+            if (!storeRepository.existsById(id)) {
+                throw ApiException.storeNotFound(id);
+            }
+        }
+        return snapshot.differences(storeId, centralStoreId);
     }
 
     //TODO analisar -> separar store para outro service?
@@ -181,6 +625,7 @@ public class InventoryService {
         return storeRepository.findActiveStoreIds();
     }
 
+    @Transactional(readOnly = true)
     public Store getStore(String storeId) {
         return storeRepository.findById(storeId)
                 .orElseThrow(() -> new RuntimeException("Store not found"));
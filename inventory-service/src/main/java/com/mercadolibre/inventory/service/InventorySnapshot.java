@@ -0,0 +1,347 @@
+package com.mercadolibre.inventory.service;
+
+import com.mercadolibre.common.model.IdDictionary;
+import com.mercadolibre.inventory.model.AvailabilityMatrix;
+import com.mercadolibre.inventory.model.StockDifference;
+import com.mercadolibre.inventory.repository.InventoryJdbcRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Columnar copy of the whole inventory for cross-store analytics. Each store is one column: an
+ * {@code int[]} of quantities indexed by the product codes of {@link InventoryIds}, plus a bitset of
+ * the products the store has a row for. Totals and central-vs-store differences are plain loops over
+ * those arrays, and a (store, product) pair costs about four bytes instead of a boxed row.
+ * <p>
+ * Loaded on startup and moved by every committed change, like {@link InventorySummaryIndex}. It is
+ * also rebuilt from the table every {@code rebuild-interval-ms}, to pick up rows written by other
+ * instances sharing the database file. Changes committed while a rebuild reads the table are replayed
+ * on top of it, and stores with ledger changes still in the write-behind queue keep their column.
+ * The table is read in a read-only transaction, so it streams from the read pool and does not hold
+ * the write connection.
+ * Readers take no lock, so a query may see a change in one store before one in another.
+ */
+@Component
+@DependsOn("entityManagerFactory") // the schema has to exist before the snapshot is loaded
+public class InventorySnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventorySnapshot.class);
+    private static final int MIN_CAPACITY = 1024;
+    private static final Column EMPTY = new Column(0);
+
+    private final InventoryJdbcRepository inventoryJdbcRepository;
+    private final InventoryWriteBehind writeBehind;
+    private final TransactionTemplate readOnlyTransaction;
+    private final IdDictionary stores;
+    private final IdDictionary products;
+
+    // Columns by store code, null for stores without rows. Written under the snapshot's monitor; the
+    // volatile write that ends each change publishes it to readers
+    private volatile Column[] columns = new Column[0];
+    // Changes applied while a rebuild reads the table, null when none runs; guarded by this
+    private List<Change> replay;
+
+    public InventorySnapshot(InventoryJdbcRepository inventoryJdbcRepository,
+                             InventoryWriteBehind writeBehind,
+                             PlatformTransactionManager transactionManager,
+                             InventoryIds ids) {
+        this.inventoryJdbcRepository = inventoryJdbcRepository;
+        this.writeBehind = writeBehind;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.stores = ids.stores();
+        this.products = ids.products();
+    }
+
+    @PostConstruct
+    void load() {
+        Column[] loaded = read();
+        synchronized (this) {
+            columns = loaded;
+        }
+        logger.info("Loaded inventory snapshot of {} products in {} stores", products.size(), stores.size());
+    }
+
+    /**
+     * Sets a product's quantity in a store. Inside a transaction the change is applied after commit.
+     */
+    public void recordChange(String storeId, String productId, int quantity) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(storeId, productId, quantity);
+                }
+            });
+        } else {
+            apply(storeId, productId, quantity);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.snapshot.rebuild-interval-ms:300000}",
+            initialDelayString = "${inventory.snapshot.rebuild-interval-ms:300000}")
+    public void rebuild() {
+        synchronized (this) {
+            replay = new ArrayList<>();
+        }
+        try {
+            Column[] rebuilt = read();
+            // Read after the table, so a store flushed in between is at worst kept for one more run
+            Set<String> unflushed = writeBehind.pendingStoreIds();
+            synchronized (this) {
+                Column[] current = columns;
+                for (String storeId : unflushed) {
+                    int store = stores.codeOf(storeId);
+                    if (store >= 0 && store < current.length && current[store] != null) {
+                        rebuilt = withColumn(rebuilt, store, current[store]);
+                    }
+                }
+                for (Change change : replay) {
+                    rebuilt = set(rebuilt, change.store(), change.product(), change.quantity());
+                }
+                columns = rebuilt;
+            }
+            logger.debug("Rebuilt inventory snapshot, kept {} stores with unflushed changes", unflushed.size());
+        } finally {
+            synchronized (this) {
+                replay = null;
+            }
+        }
+    }
+
+    /**
+     * Quantity of each product summed over every store, for the given products or, when
+     * {@code productIds} is null, for every product some store has a row for.
+     */
+    public Map<String, Long> totalsByProduct(List<String> productIds) {
+        Column[] current = columns;
+        Map<String, Long> totals = new LinkedHashMap<>();
+        if (productIds != null) {
+            for (String productId : productIds) {
+                int product = products.codeOf(productId);
+                long total = 0;
+                for (Column column : current) {
+                    if (column != null && column.has(product)) {
+                        total += column.quantities[product];
+                    }
+                }
+                totals.put(productId, total);
+            }
+            return totals;
+        }
+
+        int productCount = products.size();
+        long[] sums = new long[productCount];
+        long[] held = new long[words(productCount)];
+        for (Column column : current) {
+            if (column == null) {
+                continue;
+            }
+            // Products without a row hold zero, so every slot is added without a branch
+            int[] quantities = column.quantities;
+            int length = Math.min(quantities.length, productCount);
+            for (int product = 0; product < length; product++) {
+                sums[product] += quantities[product];
+            }
+            long[] present = column.present;
+            int words = Math.min(present.length, held.length);
+            for (int word = 0; word < words; word++) {
+                held[word] |= present[word];
+            }
+        }
+        for (int product = 0; product < productCount; product++) {
+            if ((held[product >>> 6] & 1L << product) != 0) {
+                totals.put(products.decode(product), sums[product]);
+            }
+        }
+        return totals;
+    }
+
+    /**
+     * Stores that have a row for {@code productId}, ordered by storeId.
+     */
+    public List<String> storesHolding(String productId) {
+        int product = products.codeOf(productId);
+        List<String> storeIds = new ArrayList<>();
+        if (product < 0) {
+            return storeIds;
+        }
+
+        Column[] current = columns;
+        for (int store = 0; store < current.length; store++) {
+            if (current[store] != null && current[store].has(product)) {
+                storeIds.add(stores.decode(store));
+            }
+        }
+        storeIds.sort(Comparator.naturalOrder());
+        return storeIds;
+    }
+
+    /**
+     * Quantities of {@code productIds} in {@code storeIds} or, when that is null, in every store
+     * holding any inventory, ordered by storeId.
+     */
+    public AvailabilityMatrix availability(List<String> productIds, List<String> storeIds) {
+        Column[] current = columns;
+        List<String> matrixStores = storeIds;
+        if (matrixStores == null) {
+            matrixStores = new ArrayList<>();
+            for (int store = 0; store < current.length; store++) {
+                if (current[store] != null) {
+                    matrixStores.add(stores.decode(store));
+                }
+            }
+            matrixStores.sort(Comparator.naturalOrder());
+        }
+
+        Column[] storeColumns = new Column[matrixStores.size()];
+        for (int j = 0; j < storeColumns.length; j++) {
+            storeColumns[j] = column(current, stores.codeOf(matrixStores.get(j)));
+        }
+        Integer[][] quantities = new Integer[productIds.size()][storeColumns.length];
+        for (int i = 0; i < quantities.length; i++) {
+            int product = products.codeOf(productIds.get(i));
+            for (int j = 0; j < storeColumns.length; j++) {
+                if (storeColumns[j].has(product)) {
+                    quantities[i][j] = storeColumns[j].quantities[product];
+                }
+            }
+        }
+        return new AvailabilityMatrix(productIds, matrixStores, quantities);
+    }
+
+    /**
+     * Products whose quantity in {@code storeId} differs from {@code centralStoreId}'s, including those
+     * only one of them has a row for, ordered by productId.
+     */
+    public List<StockDifference> differences(String storeId, String centralStoreId) {
+        Column[] current = columns;
+        Column store = column(current, stores.codeOf(storeId));
+        Column central = column(current, stores.codeOf(centralStoreId));
+        int[] storeQuantities = store.quantities;
+        int[] centralQuantities = central.quantities;
+
+        int common = Math.min(storeQuantities.length, centralQuantities.length);
+        int[] delta = new int[Math.max(storeQuantities.length, centralQuantities.length)];
+        for (int product = 0; product < common; product++) {
+            delta[product] = storeQuantities[product] - centralQuantities[product];
+        }
+        for (int product = common; product < storeQuantities.length; product++) {
+            delta[product] = storeQuantities[product];
+        }
+        for (int product = common; product < centralQuantities.length; product++) {
+            delta[product] = -centralQuantities[product];
+        }
+
+        // Only products either store has a row for can differ
+        List<StockDifference> differences = new ArrayList<>();
+        int words = words(delta.length);
+        for (int word = 0; word < words; word++) {
+            long inStore = word < store.present.length ? store.present[word] : 0;
+            long inCentral = word < central.present.length ? central.present[word] : 0;
+            long candidates = inStore | inCentral;
+            while (candidates != 0) {
+                int bit = Long.numberOfTrailingZeros(candidates);
+                candidates &= candidates - 1;
+                int product = (word << 6) + bit;
+                boolean stored = (inStore >>> bit & 1) != 0;
+                boolean centrallyStored = (inCentral >>> bit & 1) != 0;
+                if (stored != centrallyStored || delta[product] != 0) {
+                    differences.add(new StockDifference(products.decode(product),
+                            stored ? storeQuantities[product] : null,
+                            centrallyStored ? centralQuantities[product] : null));
+                }
+            }
+        }
+        differences.sort(Comparator.comparing(StockDifference::getProductId));
+        return differences;
+    }
+
+    private synchronized void apply(String storeId, String productId, int quantity) {
+        int store = stores.encode(storeId);
+        int product = products.encode(productId);
+        if (replay != null) {
+            replay.add(new Change(store, product, quantity));
+        }
+        columns = set(columns, store, product, quantity);
+    }
+
+    private Column[] read() {
+        Column[][] building = {new Column[0]};
+        readOnlyTransaction.executeWithoutResult(status -> inventoryJdbcRepository.streamAll(row -> building[0] = set(building[0],
+                stores.encode(row.getStoreId()), products.encode(row.getProductId()), row.getQuantity())));
+        return building[0];
+    }
+
+    private static Column column(Column[] columns, int store) {
+        Column column = store >= 0 && store < columns.length ? columns[store] : null;
+        return column != null ? column : EMPTY;
+    }
+
+    // Sets one slot, growing the store array or the column as needed; returns the store array to keep
+    private static Column[] set(Column[] columns, int store, int product, int quantity) {
+        Column column = store < columns.length ? columns[store] : null;
+        if (column == null || product >= column.quantities.length) {
+            int capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(product) << 1);
+            columns = withColumn(columns, store, column == null ? new Column(capacity) : new Column(column, capacity));
+            column = columns[store];
+        }
+        column.quantities[product] = quantity;
+        column.present[product >>> 6] |= 1L << product;
+        return columns;
+    }
+
+    private static Column[] withColumn(Column[] columns, int store, Column column) {
+        if (store >= columns.length) {
+            columns = Arrays.copyOf(columns, Math.max(store + 1, columns.length * 2));
+        }
+        columns[store] = column;
+        return columns;
+    }
+
+    private static int words(int capacity) {
+        return (capacity + 63) >>> 6;
+    }
+
+    private record Change(int store, int product, int quantity) {}
+
+    /**
+     * One store's quantities by product code and the bitset of products it has a row for. Only grows
+     * by being copied into a larger column.
+     */
+    private static final class Column {
+
+        private final int[] quantities;
+        private final long[] present;
+
+        private Column(int capacity) {
+            this.quantities = new int[capacity];
+            this.present = new long[words(capacity)];
+        }
+
+        private Column(Column from, int capacity) {
+            this.quantities = Arrays.copyOf(from.quantities, capacity);
+            this.present = Arrays.copyOf(from.present, words(capacity));
+        }
+
+        private boolean has(int product) {
+            return product >= 0 && product < quantities.length && (present[product >>> 6] & 1L << product) != 0;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.mercadolibre.inventory.service;
+
+import com.mercadolibre.inventory.model.InventorySummary;
+import com.mercadolibre.inventory.repository.InventoryJdbcRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-store stock totals kept in memory and moved by every quantity change, so a store summary is
+ * read without touching the {@code inventory} table.
+ * <p>
+ * Totals are loaded from the database on startup. Changes made inside a transaction are counted once
+ * it commits, so rolled back changes never show up. A scheduled verifier recomputes the totals from
+ * the table; a store whose totals differ on two runs in a row, with no change counted in between, is
+ * reported as drifted and reset to the table's values. Stores with ledger changes still waiting in
+ * the write-behind queue are skipped, since the table is behind for them. This also picks up rows
+ * written by other instances sharing the database file.
+ * <p>
+ * The full-table reads run in read-only transactions, so they use the read pool and never hold the
+ * write connection.
+ */
+@Component
+@DependsOn("entityManagerFactory") // the schema has to exist before the totals are loaded
+public class InventorySummaryIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventorySummaryIndex.class);
+
+    private final InventoryJdbcRepository inventoryJdbcRepository;
+    private final InventoryWriteBehind writeBehind;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int lowStockThreshold;
+    private final int outOfStockThreshold;
+    private final Counter driftedStores;
+    private final ConcurrentHashMap<String, Totals> totalsByStore = new ConcurrentHashMap<>();
+
+    public InventorySummaryIndex(InventoryJdbcRepository inventoryJdbcRepository,
+                                 InventoryWriteBehind writeBehind,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${inventory.summary.low-stock-threshold:10}") int lowStockThreshold,
+                                 @Value("${inventory.summary.out-of-stock-threshold:0}") int outOfStockThreshold) {
+        this.inventoryJdbcRepository = inventoryJdbcRepository;
+        this.writeBehind = writeBehind;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.lowStockThreshold = lowStockThreshold;
+        this.outOfStockThreshold = outOfStockThreshold;
+        this.driftedStores = Counter.builder("inventory.summary.drift")
+                .description("Store summaries found out of line with the inventory table and rebuilt")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void load() {
+        Map<String, InventorySummary> summaries = summarizeByStore();
+        summaries.forEach((storeId, summary) -> totalsByStore.computeIfAbsent(storeId, Totals::new).reset(summary));
+        logger.info("Loaded inventory summaries of {} stores", summaries.size());
+    }
+
+    public int getLowStockThreshold() {
+        return lowStockThreshold;
+    }
+
+    public InventorySummary get(String storeId) {
+        Totals totals = totalsByStore.get(storeId);
+        return totals != null ? totals.snapshot() : InventorySummary.empty(storeId);
+    }
+
+    /**
+     * Counts a product's quantity going from {@code previousQuantity} to {@code quantity}, or a new
+     * product when {@code previousQuantity} is null. Inside a transaction the change is counted after commit.
+     */
+    public void recordChange(String storeId, Integer previousQuantity, int quantity) {
+        if (previousQuantity != null && previousQuantity == quantity) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(storeId, previousQuantity, quantity);
+                }
+            });
+        } else {
+            apply(storeId, previousQuantity, quantity);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.summary.verify-interval-ms:300000}",
+            initialDelayString = "${inventory.summary.verify-interval-ms:300000}")
+    public void verify() {
+        Map<String, InventorySummary> actual = summarizeByStore();
+        // Read after the table, so a change flushed in between is at worst seen once as a mismatch
+        Set<String> unflushed = writeBehind.pendingStoreIds();
+        Set<String> storeIds = new HashSet<>(totalsByStore.keySet());
+        storeIds.addAll(actual.keySet());
+        storeIds.removeAll(unflushed);
+
+        int drifted = 0;
+        for (String storeId : storeIds) {
+            InventorySummary expected = actual.getOrDefault(storeId, InventorySummary.empty(storeId));
+            InventorySummary previous = totalsByStore.computeIfAbsent(storeId, Totals::new).verify(expected);
+            if (previous != null) {
+                drifted++;
+                logger.warn("Inventory summary of store {} drifted: was {}, rebuilt as {}", storeId, previous, expected);
+            }
+        }
+        driftedStores.increment(drifted);
+        logger.debug("Verified inventory summaries of {} stores, {} drifted, {} skipped with unflushed changes",
+                storeIds.size(), drifted, unflushed.size());
+    }
+
+    private Map<String, InventorySummary> summarizeByStore() {
+        return readOnlyTransaction.execute(status -> inventoryJdbcRepository.summarizeByStore(lowStockThreshold, outOfStockThreshold));
+    }
+
+    private void apply(String storeId, Integer previousQuantity, int quantity) {
+        totalsByStore.computeIfAbsent(storeId, Totals::new).apply(previousQuantity, quantity);
+    }
+
+    /**
+     * Mutable totals of one store, guarded by its monitor.
+     */
+    private final class Totals {
+
+        private final String storeId;
+        private long totalProducts;
+        private long totalQuantity;
+        private long lowStockCount;
+        private long outOfStockCount;
+        // Changes counted so far, and the count at which the last verification saw a difference (-1 if none)
+        private long changes;
+        private long mismatchAt = -1;
+
+        private Totals(String storeId) {
+            this.storeId = storeId;
+        }
+
+        private synchronized void apply(Integer previousQuantity, int quantity) {
+            if (previousQuantity == null) {
+                totalProducts++;
+            } else {
+                totalQuantity -= previousQuantity;
+                lowStockCount -= previousQuantity <= lowStockThreshold ? 1 : 0;
+                outOfStockCount -= previousQuantity <= outOfStockThreshold ? 1 : 0;
+            }
+            totalQuantity += quantity;
+            lowStockCount += quantity <= lowStockThreshold ? 1 : 0;
+            outOfStockCount += quantity <= outOfStockThreshold ? 1 : 0;
+            changes++;
+        }
+
+        private synchronized InventorySummary snapshot() {
+            return new InventorySummary(storeId, totalProducts, totalQuantity, lowStockCount, outOfStockCount);
+        }
+
+        private synchronized void reset(InventorySummary summary) {
+            totalProducts = summary.getTotalProducts();
+            totalQuantity = summary.getTotalQuantity();
+            lowStockCount = summary.getLowStockCount();
+            outOfStockCount = summary.getOutOfStockCount();
+            mismatchAt = -1;
+        }
+
+        // Returns the drifted totals when they were reset, null otherwise
+        private synchronized InventorySummary verify(InventorySummary expected) {
+            InventorySummary current = snapshot();
+            if (current.sameTotals(expected)) {
+                mismatchAt = -1;
+                return null;
+            }
+            if (mismatchAt != changes) {
+                // May be a change committed but not counted yet; only trusted if nothing changes until the next run
+                mismatchAt = changes;
+                return null;
+            }
+            reset(expected);
+            return current;
+        }
+    }
+}
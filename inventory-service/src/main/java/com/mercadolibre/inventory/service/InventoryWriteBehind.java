@@ -0,0 +1,234 @@
+package com.mercadolibre.inventory.service;
+
+import com.mercadolibre.inventory.model.Inventory;
+import com.mercadolibre.inventory.model.OutboxEvent;
+import com.mercadolibre.inventory.repository.InventoryJdbcRepository;
+import com.mercadolibre.inventory.repository.OutboxJdbcRepository;
+import com.mercadolibre.inventory.repository.SourceOffsetJdbcRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind pipeline for {@link Inventory} rows.
+ * <p>
+ * Pending changes are coalesced per (storeId, productId) key from {@link InventoryIds}, keeping only the newest version, and
+ * written as one JDBC batch per transaction. A flush runs every {@code flush-interval-ms} or as soon
+ * as {@code batch-size} keys are pending. Rows are written as absolute quantities, so a failed flush
+ * simply leaves its entries queued and the retry cannot double count.
+ * <p>
+ * Outbox events raised by those changes are queued here too and inserted in the transaction of the
+ * last batch of a flush, so an event never becomes visible to the relay before the rows it describes.
+ * Kafka source offsets recorded by batches are written the same way.
+ */
+@Component
+public class InventoryWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryWriteBehind.class);
+
+    private final InventoryJdbcRepository inventoryJdbcRepository;
+    private final OutboxJdbcRepository outboxJdbcRepository;
+    private final SourceOffsetJdbcRepository sourceOffsetRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final InventoryIds ids;
+    private final int batchSize;
+
+    private final ConcurrentHashMap<Long, PendingWrite> pending = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<OutboxEvent> events = new ConcurrentLinkedQueue<>();
+    // Events taken off the queue but not committed yet, in order; only used under flushLock
+    private final List<OutboxEvent> unsavedEvents = new ArrayList<>();
+    private final ConcurrentHashMap<String, Long> pendingOffsets = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "inventory-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public InventoryWriteBehind(InventoryJdbcRepository inventoryJdbcRepository,
+                                OutboxJdbcRepository outboxJdbcRepository,
+                                SourceOffsetJdbcRepository sourceOffsetRepository,
+                                PlatformTransactionManager transactionManager,
+                                InventoryIds ids,
+                                @Value("${inventory.write-behind.batch-size:500}") int batchSize) {
+        this.inventoryJdbcRepository = inventoryJdbcRepository;
+        this.outboxJdbcRepository = outboxJdbcRepository;
+        this.sourceOffsetRepository = sourceOffsetRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ids = ids;
+        this.batchSize = batchSize;
+    }
+
+    public void enqueue(Inventory inventory, int version) {
+        long key = ids.key(inventory.getStoreId(), inventory.getProductId());
+        pending.merge(key, new PendingWrite(inventory, version), PendingWrite::newest);
+
+        if (pending.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        }
+    }
+
+    public void enqueueEvent(OutboxEvent event) {
+        events.add(event);
+    }
+
+    public void enqueueSourceOffsets(Map<String, Long> sourceOffsets) {
+        sourceOffsets.forEach((partition, offset) -> pendingOffsets.merge(partition, offset, Math::max));
+    }
+
+    public Map<String, Long> pendingSourceOffsets() {
+        return Collections.unmodifiableMap(pendingOffsets);
+    }
+
+    // Stores with changes not committed to the inventory table yet
+    public Set<String> pendingStoreIds() {
+        Set<String> storeIds = new HashSet<>();
+        pending.values().forEach(write -> storeIds.add(write.inventory().getStoreId()));
+        return storeIds;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.write-behind.flush-interval-ms:200}")
+    public void flush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+
+        try {
+            if (!pending.isEmpty() || !events.isEmpty() || !unsavedEvents.isEmpty() || !pendingOffsets.isEmpty()) {
+                drain();
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        flushLock.lock();
+        try {
+            drain();
+        } finally {
+            flushLock.unlock();
+        }
+        if (!pending.isEmpty() || !unsavedEvents.isEmpty()) {
+            logger.error("Shutting down with {} inventory changes and {} events not persisted",
+                    pending.size(), unsavedEvents.size());
+        }
+    }
+
+    private void drain() {
+        // Taken before the rows: an event is queued after its row, so that row is part of this pass
+        for (OutboxEvent event = events.poll(); event != null; event = events.poll()) {
+            unsavedEvents.add(event);
+        }
+        Map<String, Long> offsets = new HashMap<>(pendingOffsets);
+
+        List<List<Map.Entry<Long, PendingWrite>>> batches = new ArrayList<>();
+        List<Map.Entry<Long, PendingWrite>> batch = new ArrayList<>(batchSize);
+        for (Map.Entry<Long, PendingWrite> entry : pending.entrySet()) {
+            batch.add(Map.entry(entry.getKey(), entry.getValue()));
+            if (batch.size() == batchSize) {
+                batches.add(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty() || batches.isEmpty()) {
+            batches.add(batch);
+        }
+
+        boolean allWritten = true;
+        for (int i = 0; i < batches.size(); i++) {
+            boolean last = i == batches.size() - 1;
+            // Events and offsets wait for the next flush if any of the rows they may refer to failed
+            boolean withEvents = last && allWritten;
+            if (write(batches.get(i), withEvents ? unsavedEvents : List.of(), withEvents ? offsets : Map.of())) {
+                if (withEvents) {
+                    unsavedEvents.clear();
+                    offsets.forEach(pendingOffsets::remove);
+                }
+            } else {
+                allWritten = false;
+            }
+        }
+    }
+
+    private boolean write(List<Map.Entry<Long, PendingWrite>> batch, List<OutboxEvent> batchEvents,
+                          Map<String, Long> offsets) {
+        if (batch.isEmpty() && batchEvents.isEmpty() && offsets.isEmpty()) {
+            return true;
+        }
+
+        List<Inventory> rows = new ArrayList<>(batch.size());
+        for (Map.Entry<Long, PendingWrite> entry : batch) {
+            rows.add(entry.getValue().inventory());
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                if (!rows.isEmpty()) {
+                    inventoryJdbcRepository.batchUpsert(rows);
+                }
+                if (!batchEvents.isEmpty()) {
+                    outboxJdbcRepository.batchInsert(batchEvents);
+                }
+                offsets.forEach(sourceOffsetRepository::advance);
+            });
+        } catch (RuntimeException e) {
+            // Entries stay queued; a newer version enqueued meanwhile is kept as well
+            logger.error("Failed to persist {} inventory changes and {} events, will retry: {}",
+                    rows.size(), batchEvents.size(), e.getMessage(), e);
+            return false;
+        }
+
+        // Only drop entries that were not superseded while the batch was being written
+        for (Map.Entry<Long, PendingWrite> entry : batch) {
+            pending.remove(entry.getKey(), entry.getValue());
+        }
+        logger.debug("Persisted {} inventory changes and {} events in one batch", rows.size(), batchEvents.size());
+        return true;
+    }
+
+    private record PendingWrite(Inventory inventory, int version) {
+
+        private PendingWrite newest(PendingWrite other) {
+            // Wrap-around safe comparison of per-key versions
+            PendingWrite newer = other.version - version > 0 ? other : this;
+            PendingWrite older = newer == other ? this : other;
+            if (older.inventory.getCounter() == null || newer.inventory.getCounter() == null) {
+                return newer;
+            }
+
+            // Snapshots are taken out of version order, so the newer one may miss part of the older one's counter
+            Inventory merged = new Inventory(newer.inventory.getStoreId(), newer.inventory.getProductId(),
+                    newer.inventory.getQuantity());
+            merged.setId(newer.inventory.getId());
+            merged.setLastUpdated(newer.inventory.getLastUpdated());
+            merged.setCounter(newer.inventory.getCounter().copy().merge(older.inventory.getCounter()));
+            return new PendingWrite(merged, newer.version);
+        }
+    }
+}
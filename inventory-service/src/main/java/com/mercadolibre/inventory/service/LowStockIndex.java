@@ -0,0 +1,251 @@
+package com.mercadolibre.inventory.service;
+
+import com.mercadolibre.inventory.model.Inventory;
+import com.mercadolibre.inventory.repository.InventoryJdbcRepository;
+import com.mercadolibre.inventory.repository.ReorderPointRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory stock levels per store, kept in a skip list ordered by quantity, so low-stock listings
+ * are a range scan over the lowest entries instead of a table query.
+ * <p>
+ * Also decides when a product needs a {@code LOW_STOCK_ALERT}. A product is alerted once when its
+ * quantity reaches its reorder point, and is only armed again once it rises more than
+ * {@code hysteresis} above it, so a quantity hovering around the reorder point does not raise an
+ * alert on every change. Products already low on startup count as alerted.
+ * <p>
+ * Like {@link InventorySummaryIndex}, quantities are applied once the surrounding transaction commits.
+ * Commit callbacks of concurrent transactions can run in any order, so a quantity older than the one
+ * held, by {@code lastUpdated}, is ignored. Every {@code reload-interval-ms} the stock levels are read
+ * again from the table, in a read-only transaction, to pick up rows written by other instances; rows
+ * older than what the index holds, such as ledger changes not yet flushed, are skipped the same way.
+ * Entries hold the canonical id strings of {@link InventoryIds}, not the copies read from each row.
+ */
+@Component
+@DependsOn("entityManagerFactory") // the schema has to exist before the stock levels are loaded
+public class LowStockIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(LowStockIndex.class);
+
+    private final InventoryJdbcRepository inventoryJdbcRepository;
+    private final ReorderPointRepository reorderPointRepository;
+    private final InventoryIds ids;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int defaultReorderPoint;
+    private final int hysteresis;
+    private final ConcurrentHashMap<String, StoreStock> stores = new ConcurrentHashMap<>();
+
+    public LowStockIndex(InventoryJdbcRepository inventoryJdbcRepository,
+                         ReorderPointRepository reorderPointRepository,
+                         InventoryIds ids,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${inventory.low-stock.reorder-point:10}") int defaultReorderPoint,
+                         @Value("${inventory.low-stock.hysteresis:5}") int hysteresis) {
+        this.inventoryJdbcRepository = inventoryJdbcRepository;
+        this.reorderPointRepository = reorderPointRepository;
+        this.ids = ids;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.defaultReorderPoint = defaultReorderPoint;
+        this.hysteresis = hysteresis;
+    }
+
+    @PostConstruct
+    void load() {
+        reorderPointRepository.findAll().forEach(reorderPoint ->
+                product(reorderPoint.getStoreId(), reorderPoint.getProductId()).reorderPoint = reorderPoint.getReorderPoint());
+
+        int loaded = readStockLevels();
+        logger.info("Loaded stock levels of {} products in {} stores", loaded, stores.size());
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.low-stock.reload-interval-ms:300000}",
+            initialDelayString = "${inventory.low-stock.reload-interval-ms:300000}")
+    public void reload() {
+        int changed = readStockLevels();
+        logger.debug("Reloaded stock levels, {} products changed", changed);
+    }
+
+    /**
+     * Records a product's new quantity. Returns true when the change brings an armed product to or below
+     * its reorder point; the caller then publishes the alert in the same transaction.
+     */
+    public boolean recordChange(String storeId, String productId, int quantity, LocalDateTime lastUpdated) {
+        ProductStock product = product(storeId, productId);
+        boolean alert;
+        synchronized (product) {
+            alert = !product.alerted && quantity <= reorderPointOf(product);
+            if (alert) {
+                // Taken right away so concurrent changes to the product raise a single alert
+                product.alerted = true;
+            }
+        }
+
+        Runnable apply = () -> {
+            synchronized (product) {
+                if (stores.get(storeId).move(product, quantity, lastUpdated)
+                        && quantity > reorderPointOf(product) + hysteresis) {
+                    product.alerted = false;
+                }
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        apply.run();
+                    } else if (alert) {
+                        synchronized (product) {
+                            product.alerted = false;
+                        }
+                    }
+                }
+            });
+        } else {
+            apply.run();
+        }
+        return alert;
+    }
+
+    public void setReorderPoint(String storeId, String productId, int reorderPoint) {
+        ProductStock product = product(storeId, productId);
+        synchronized (product) {
+            product.reorderPoint = reorderPoint;
+            // Re-evaluated silently; the next change below the new reorder point raises the alert
+            if (product.quantity > reorderPoint + hysteresis) {
+                product.alerted = false;
+            }
+        }
+    }
+
+    public int getReorderPoint(String storeId, String productId) {
+        // Looked up without creating an entry, so reads for unknown products leave the index alone
+        StoreStock store = stores.get(storeId);
+        ProductStock product = store != null ? store.products.get(productId) : null;
+        if (product == null) {
+            return defaultReorderPoint;
+        }
+        synchronized (product) {
+            return reorderPointOf(product);
+        }
+    }
+
+    /**
+     * Products of a store with a quantity at or below {@code threshold}, lowest quantity first.
+     */
+    public List<Inventory> findLowStock(String storeId, int threshold) {
+        StoreStock store = stores.get(storeId);
+        List<Inventory> lowStock = new ArrayList<>();
+        if (store == null) {
+            return lowStock;
+        }
+        for (StockKey key : store.byQuantity.headSet(new StockKey((long) threshold + 1, ""))) {
+            ProductStock product = store.products.get(key.productId());
+            Inventory inventory = new Inventory(storeId, key.productId(), (int) key.quantity());
+            inventory.setLastUpdated(product.lastUpdated);
+            lowStock.add(inventory);
+        }
+        return lowStock;
+    }
+
+    // Applies the rows of the table newer than the index; returns how many products they changed
+    private int readStockLevels() {
+        int[] changed = new int[1];
+        readOnlyTransaction.executeWithoutResult(status -> inventoryJdbcRepository.streamAll(row -> {
+            ProductStock product = product(row.getStoreId(), row.getProductId());
+            synchronized (product) {
+                boolean known = product.indexed;
+                int previous = product.quantity;
+                if (!stores.get(row.getStoreId()).move(product, row.getQuantity(), row.getLastUpdated())
+                        || (known && previous == row.getQuantity())) {
+                    return;
+                }
+                // Alert state follows silently: a product low on load, or lowered by another instance, counts as alerted
+                if (row.getQuantity() <= reorderPointOf(product)) {
+                    product.alerted = true;
+                } else if (row.getQuantity() > reorderPointOf(product) + hysteresis) {
+                    product.alerted = false;
+                }
+                changed[0]++;
+            }
+        }));
+        return changed[0];
+    }
+
+    private ProductStock product(String storeId, String productId) {
+        return stores.computeIfAbsent(ids.store(storeId), id -> new StoreStock())
+                .products.computeIfAbsent(ids.product(productId), ProductStock::new);
+    }
+
+    // Guarded by the product's monitor
+    private int reorderPointOf(ProductStock product) {
+        return product.reorderPoint != null ? product.reorderPoint : defaultReorderPoint;
+    }
+
+    private record StockKey(long quantity, String productId) implements Comparable<StockKey> {
+
+        @Override
+        public int compareTo(StockKey other) {
+            int byQuantity = Long.compare(quantity, other.quantity);
+            return byQuantity != 0 ? byQuantity : productId.compareTo(other.productId);
+        }
+    }
+
+    private static final class StoreStock {
+
+        private final ConcurrentHashMap<String, ProductStock> products = new ConcurrentHashMap<>();
+        private final ConcurrentSkipListSet<StockKey> byQuantity = new ConcurrentSkipListSet<>();
+
+        // Called under the product's monitor. Returns false, leaving the product as is, for a quantity
+        // older than the one it holds
+        private boolean move(ProductStock product, int quantity, LocalDateTime lastUpdated) {
+            if (product.indexed && product.lastUpdated != null && lastUpdated != null
+                    && lastUpdated.isBefore(product.lastUpdated)) {
+                return false;
+            }
+            if (product.indexed) {
+                byQuantity.remove(new StockKey(product.quantity, product.productId));
+            }
+            product.quantity = quantity;
+            product.lastUpdated = lastUpdated;
+            product.indexed = true;
+            byQuantity.add(new StockKey(quantity, product.productId));
+            return true;
+        }
+    }
+
+    /**
+     * Stock level and alert state of one product, guarded by its monitor. Not indexed until its first
+     * quantity is known, e.g. when only its reorder point was loaded.
+     */
+    private static final class ProductStock {
+
+        private final String productId;
+        private int quantity;
+        private volatile LocalDateTime lastUpdated;
+        private boolean indexed;
+        private Integer reorderPoint;
+        private boolean alerted;
+
+        private ProductStock(String productId) {
+            this.productId = productId;
+        }
+    }
+}
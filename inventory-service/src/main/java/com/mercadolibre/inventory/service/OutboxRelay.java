@@ -0,0 +1,177 @@
+package com.mercadolibre.inventory.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mercadolibre.common.model.InventoryEvent;
+import com.mercadolibre.inventory.model.OutboxEvent;
+import com.mercadolibre.inventory.repository.OutboxJdbcRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drains the {@code outbox_event} table to Kafka in id order.
+ * <p>
+ * A batch is sent without waiting on each record, then the longest prefix acknowledged by the broker
+ * is deleted, which is the relay's only progress marker. Anything after the first failure is sent
+ * again on the next run, so delivery is at-least-once; consumers deduplicate on the event id.
+ * <p>
+ * Runs on its own thread rather than the shared scheduler, so a stalled broker, which can hold a run
+ * for {@code send-timeout-ms} per batch, does not delay the write-behind flush or the index jobs.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxJdbcRepository outboxJdbcRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+    private final long relayIntervalMs;
+    private final Timer sendLatency;
+    private final Counter published;
+    private final Counter failed;
+    private final ScheduledExecutorService relayExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public OutboxRelay(OutboxJdbcRepository outboxJdbcRepository,
+                       KafkaTemplate<String, Object> kafkaTemplate,
+                       ObjectMapper objectMapper,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${inventory.outbox.batch-size:200}") int batchSize,
+                       @Value("${inventory.outbox.send-timeout-ms:10000}") long sendTimeoutMs,
+                       @Value("${inventory.outbox.relay-interval-ms:100}") long relayIntervalMs) {
+        this.outboxJdbcRepository = outboxJdbcRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.relayIntervalMs = relayIntervalMs;
+        this.sendLatency = Timer.builder("inventory.events.send.latency")
+                .description("Time from handing an event to the producer until the broker acknowledged it")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.published = Counter.builder("inventory.events.published")
+                .description("Events acknowledged by the broker")
+                .register(meterRegistry);
+        this.failed = Counter.builder("inventory.events.publish.failures")
+                .description("Event sends that failed and were left in the outbox")
+                .register(meterRegistry);
+    }
+
+    // Started once the application is ready, so the first run finds the migrated schema
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        relayExecutor.scheduleWithFixedDelay(this::runRelay, 0, relayIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        relayExecutor.shutdownNow();
+    }
+
+    private void runRelay() {
+        try {
+            relay();
+        } catch (RuntimeException e) {
+            // An exception would cancel the schedule; the events stay in the outbox for the next run
+            logger.error("Outbox relay run failed: {}", e.getMessage(), e);
+        }
+    }
+
+    public void relay() {
+        List<OutboxEvent> batch;
+        do {
+            batch = outboxJdbcRepository.findOldest(batchSize);
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            int sent = send(batch);
+            if (sent > 0) {
+                long lastSentId = batch.get(sent - 1).getId();
+                transactionTemplate.executeWithoutResult(tx -> outboxJdbcRepository.deleteUpTo(lastSentId));
+                logger.debug("Relayed {} outbox events up to id {}", sent, lastSentId);
+            }
+            if (sent < batch.size()) {
+                return;
+            }
+        } while (batch.size() == batchSize);
+    }
+
+    /**
+     * Returns how many events, from the start of the batch, the broker acknowledged.
+     */
+    private int send(List<OutboxEvent> batch) {
+        List<CompletableFuture<SendResult<String, Object>>> futures = new ArrayList<>(batch.size());
+        for (OutboxEvent outboxEvent : batch) {
+            InventoryEvent event = toEvent(outboxEvent);
+            if (event == null) {
+                futures.add(CompletableFuture.completedFuture(null));
+                continue;
+            }
+
+            long start = System.nanoTime();
+            futures.add(kafkaTemplate.send(outboxEvent.getTopic(), outboxEvent.getMessageKey(), event)
+                    .whenComplete((result, error) -> {
+                        if (error == null) {
+                            sendLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                            published.increment();
+                        } else {
+                            failed.increment();
+                        }
+                    }));
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                logger.warn("Failed to relay outbox event {}, will retry: {}", batch.get(i).getId(), e.getMessage());
+                return i;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return i;
+            }
+        }
+        return futures.size();
+    }
+
+    private InventoryEvent toEvent(OutboxEvent outboxEvent) {
+        try {
+            return objectMapper.readValue(outboxEvent.getPayload(), InventoryEvent.class);
+        } catch (JsonProcessingException e) {
+            // Retrying cannot fix a payload we cannot read, so it is dropped rather than blocking the relay
+            logger.error("Discarding unreadable outbox event {}: {}", outboxEvent.getId(), e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.mercadolibre.inventory.service;
+
+import com.mercadolibre.inventory.model.SourceOffset;
+import com.mercadolibre.inventory.repository.SourceOffsetJdbcRepository;
+import com.mercadolibre.inventory.repository.SourceOffsetRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps the Kafka offsets up to which batches sent by sync-service have been applied. Offsets are
+ * stored in the same transaction as the inventory changes of the batch (or the same write-behind
+ * flush when the ledger is enabled), so a consumer that resumes from them applies every event once.
+ */
+@Component
+public class SourceOffsetTracker {
+
+    private final SourceOffsetRepository sourceOffsetRepository;
+    private final SourceOffsetJdbcRepository sourceOffsetJdbcRepository;
+    private final InventoryWriteBehind writeBehind;
+    private final StockLedger stockLedger;
+
+    public SourceOffsetTracker(SourceOffsetRepository sourceOffsetRepository,
+                               SourceOffsetJdbcRepository sourceOffsetJdbcRepository,
+                               InventoryWriteBehind writeBehind,
+                               StockLedger stockLedger) {
+        this.sourceOffsetRepository = sourceOffsetRepository;
+        this.sourceOffsetJdbcRepository = sourceOffsetJdbcRepository;
+        this.writeBehind = writeBehind;
+        this.stockLedger = stockLedger;
+    }
+
+    public Map<String, Long> getAppliedOffsets() {
+        Map<String, Long> offsets = new HashMap<>();
+        for (SourceOffset sourceOffset : sourceOffsetRepository.findAll()) {
+            offsets.put(sourceOffset.getSourcePartition(), sourceOffset.getAppliedOffset());
+        }
+        // Applied to the ledger but not flushed yet
+        writeBehind.pendingSourceOffsets().forEach((partition, offset) -> offsets.merge(partition, offset, Math::max));
+        return offsets;
+    }
+
+    /**
+     * Whether a batch covering these offsets was already applied, i.e. none of them is past what is stored.
+     */
+    public boolean isApplied(Map<String, Long> sourceOffsets) {
+        Map<String, Long> applied = getAppliedOffsets();
+        for (Map.Entry<String, Long> entry : sourceOffsets.entrySet()) {
+            Long appliedOffset = applied.get(entry.getKey());
+            if (appliedOffset == null || entry.getValue() > appliedOffset) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void record(Map<String, Long> sourceOffsets) {
+        if (stockLedger.isEnabled()) {
+            writeBehind.enqueueSourceOffsets(sourceOffsets);
+        } else {
+            sourceOffsets.forEach(sourceOffsetJdbcRepository::advance);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.mercadolibre.inventory.service;
+
+import com.mercadolibre.common.exception.ApiException;
+import com.mercadolibre.common.model.PnCounter;
+import com.mercadolibre.inventory.model.Inventory;
+import com.mercadolibre.inventory.repository.InventoryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stock ledger keyed by (storeId, productId), encoded through {@link InventoryIds}.
+ * <p>
+ * Each slot packs a per-key version and the quantity into one {@code long}, updated with CAS, so
+ * concurrent decrements on the same SKU never wait on a database row lock. Oversell is checked inside
+ * the CAS loop. Every change is handed to {@link InventoryWriteBehind}, which persists it to the
+ * {@code inventory} table in batches; the version lets it keep only the newest change per key.
+ * <p>
+ * Each slot also keeps the row's PN-counter. Changes are recorded in it after the CAS, under the
+ * slot's monitor, so a snapshot may briefly lag its quantity; snapshots are merged when coalesced.
+ * <p>
+ * The ledger assumes it is the only writer of the keys it holds, so it should only be enabled when a
+ * single inventory-service instance owns the database file.
+ */
+@Component
+public class StockLedger {
+
+    private static final int LOAD_STRIPES = 64;
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryWriteBehind writeBehind;
+    private final InventoryIds ids;
+    private final boolean enabled;
+    private final CounterNode counterNode;
+
+    private final ConcurrentHashMap<Long, Slot> slots = new ConcurrentHashMap<>();
+    private final Object[] loadLocks = new Object[LOAD_STRIPES];
+
+    public StockLedger(InventoryRepository inventoryRepository,
+                       InventoryWriteBehind writeBehind,
+                       InventoryIds ids,
+                       @Value("${inventory.ledger.enabled:false}") boolean enabled,
+                       CounterNode counterNode) {
+        this.inventoryRepository = inventoryRepository;
+        this.writeBehind = writeBehind;
+        this.ids = ids;
+        this.enabled = enabled;
+        this.counterNode = counterNode;
+        for (int i = 0; i < LOAD_STRIPES; i++) {
+            loadLocks[i] = new Object();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public LedgerUpdate decrement(String storeId, String productId, int quantity) {
+        Slot slot = slot(storeId, productId, false);
+        if (slot == null) {
+            throw ApiException.inventoryNotFound(storeId, productId);
+        }
+
+        long current;
+        do {
+            current = slot.state.get();
+            if (quantityOf(current) < quantity) {
+                throw ApiException.insufficientInventory(storeId, productId, quantity, quantityOf(current));
+            }
+        } while (!slot.state.compareAndSet(current, next(current, quantityOf(current) - quantity)));
+
+        return touch(slot, current, quantityOf(current) - quantity, true);
+    }
+
+    public LedgerUpdate increment(String storeId, String productId, int quantity) {
+        Slot slot = slot(storeId, productId, true);
+        long current;
+        do {
+            current = slot.state.get();
+        } while (!slot.state.compareAndSet(current, next(current, quantityOf(current) + quantity)));
+
+        return touch(slot, current, quantityOf(current) + quantity, true);
+    }
+
+    public LedgerUpdate set(String storeId, String productId, int quantity) {
+        Slot slot = slot(storeId, productId, true);
+        long current;
+        do {
+            current = slot.state.get();
+        } while (!slot.state.compareAndSet(current, next(current, quantity)));
+
+        return touch(slot, current, quantity, true);
+    }
+
+    /**
+     * Applies a signed change without the oversell check. Only meant for compensating operations
+     * that were already applied, e.g. rolling back an atomic batch.
+     */
+    public LedgerUpdate adjust(String storeId, String productId, int delta) {
+        Slot slot = slot(storeId, productId, true);
+        long current;
+        do {
+            current = slot.state.get();
+        } while (!slot.state.compareAndSet(current, next(current, quantityOf(current) + delta)));
+
+        return touch(slot, current, quantityOf(current) + delta, true);
+    }
+
+    /**
+     * Merges another replica's counter into the slot and moves the quantity by however much the
+     * merged value changed. Merging the same state again changes nothing.
+     */
+    public LedgerUpdate merge(String storeId, String productId, PnCounter counter) {
+        Slot slot = slot(storeId, productId, true);
+        long delta;
+        synchronized (slot) {
+            long before = slot.counter.value();
+            delta = slot.counter.merge(counter).value() - before;
+        }
+
+        long current;
+        do {
+            current = slot.state.get();
+        } while (!slot.state.compareAndSet(current, next(current, Math.toIntExact(quantityOf(current) + delta))));
+
+        return touch(slot, current, Math.toIntExact(quantityOf(current) + delta), false);
+    }
+
+    public Optional<Inventory> peek(String storeId, String productId) {
+        Slot slot = loaded(storeId, productId);
+        if (slot == null) {
+            return Optional.empty();
+        }
+        synchronized (slot) {
+            return Optional.of(slot.toInventory(quantityOf(slot.state.get())));
+        }
+    }
+
+    private LedgerUpdate touch(Slot slot, long previousState, int quantity, boolean recordChange) {
+        slot.lastUpdated = LocalDateTime.now();
+        Inventory inventory;
+        synchronized (slot) {
+            if (recordChange) {
+                counterNode.add(slot.counter, (long) quantity - quantityOf(previousState));
+            }
+            inventory = slot.toInventory(quantity);
+        }
+        writeBehind.enqueue(inventory, versionOf(previousState) + 1);
+        // A slot not loaded from the database is a new row until its first change
+        boolean created = slot.id == null && versionOf(previousState) == 0;
+        return new LedgerUpdate(inventory, quantityOf(previousState), created);
+    }
+
+    private Slot slot(String storeId, String productId, boolean create) {
+        Slot slot = loaded(storeId, productId);
+        if (slot != null) {
+            return slot;
+        }
+
+        // Hydration hits the database, so it is serialized per stripe rather than inside computeIfAbsent
+        int stripe = ((31 * storeId.hashCode() + productId.hashCode()) & 0x7fffffff) % LOAD_STRIPES;
+        synchronized (loadLocks[stripe]) {
+            slot = loaded(storeId, productId);
+            if (slot != null) {
+                return slot;
+            }
+
+            Optional<Inventory> stored = inventoryRepository.findByStoreIdAndProductId(storeId, productId);
+            if (stored.isEmpty() && !create) {
+                return null;
+            }
+
+            // Ids are only encoded once they belong to a row
+            slot = new Slot(ids.store(storeId), ids.product(productId), stored.orElse(null));
+            slots.put(ids.key(storeId, productId), slot);
+            return slot;
+        }
+    }
+
+    private Slot loaded(String storeId, String productId) {
+        long key = ids.existingKey(storeId, productId);
+        return key < 0 ? null : slots.get(key);
+    }
+
+    private static int quantityOf(long state) {
+        return (int) state;
+    }
+
+    private static int versionOf(long state) {
+        return (int) (state >>> 32);
+    }
+
+    private static long next(long state, int quantity) {
+        return ((long) (versionOf(state) + 1) << 32) | (quantity & 0xffffffffL);
+    }
+
+    public record LedgerUpdate(Inventory inventory, int previousQuantity, boolean created) {}
+
+    private static final class Slot {
+
+        private final String storeId;
+        private final String productId;
+        private final Long id;
+        private final AtomicLong state;
+        private volatile LocalDateTime lastUpdated;
+        // Guarded by the slot's monitor
+        private final PnCounter counter;
+
+        // Takes the canonical ids; stored is null for a product not in the database yet
+        private Slot(String storeId, String productId, Inventory stored) {
+            this.storeId = storeId;
+            this.productId = productId;
+            if (stored == null) {
+                this.id = null;
+                this.state = new AtomicLong();
+                this.lastUpdated = LocalDateTime.now();
+                this.counter = new PnCounter();
+            } else {
+                this.id = stored.getId();
+                this.state = new AtomicLong(stored.getQuantity() & 0xffffffffL);
+                this.lastUpdated = stored.getLastUpdated();
+                this.counter = stored.getCounter() != null
+                        ? stored.getCounter().copy()
+                        : PnCounter.seeded(stored.getQuantity());
+            }
+        }
+
+        private Inventory toInventory(int currentQuantity) {
+            Inventory inventory = new Inventory(storeId, productId, currentQuantity);
+            inventory.setId(id);
+            inventory.setLastUpdated(lastUpdated);
+            inventory.setCounter(counter.copy());
+            return inventory;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+-- Schema as Hibernate used to create it, so databases created before migrations were managed
+-- are baselined in place.
+
+CREATE TABLE IF NOT EXISTS stores (
+    id CHARACTER VARYING(255) NOT NULL,
+    active BOOLEAN NOT NULL,
+    location CHARACTER VARYING(255),
+    name CHARACTER VARYING(255),
+    type TINYINT CHECK (type BETWEEN 0 AND 1),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS inventory (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    counter CHARACTER VARYING,
+    lastUpdated TIMESTAMP(6) NOT NULL,
+    productId CHARACTER VARYING(255) NOT NULL,
+    quantity INTEGER NOT NULL,
+    storeId CHARACTER VARYING(255) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_inventory_store_product ON inventory (storeId, productId);
+CREATE INDEX IF NOT EXISTS idx_inventory_store_last_updated ON inventory (storeId, lastUpdated);
+
+CREATE TABLE IF NOT EXISTS outbox_event (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    createdAt TIMESTAMP(6) NOT NULL,
+    messageKey CHARACTER VARYING(255),
+    payload CHARACTER VARYING NOT NULL,
+    topic CHARACTER VARYING(255) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS source_offset (
+    sourcePartition CHARACTER VARYING(255) NOT NULL,
+    appliedOffset BIGINT NOT NULL,
+    PRIMARY KEY (sourcePartition)
+);
+
+CREATE TABLE IF NOT EXISTS reorder_point (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    productId CHARACTER VARYING(255) NOT NULL,
+    reorderPoint INTEGER NOT NULL,
+    storeId CHARACTER VARYING(255) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_reorder_point_store_product ON reorder_point (storeId, productId);
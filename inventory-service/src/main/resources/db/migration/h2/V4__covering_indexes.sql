@@ -0,0 +1,4 @@
+-- Store listings and keyset pages (InventoryJdbcRepository) read only these columns, so they are
+-- served from this index without reading the table. The unique index on (storeId, productId) stays
+-- for the upserts.
+CREATE INDEX IF NOT EXISTS idx_inventory_store_stock ON inventory (storeId, productId, quantity, lastUpdated);
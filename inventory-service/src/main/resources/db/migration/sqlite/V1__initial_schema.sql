@@ -0,0 +1,50 @@
+-- Schema as Hibernate used to create it, so databases created before migrations were managed
+-- are baselined in place. Also adds the unique indexes Hibernate could not create on SQLite,
+-- which the upserts rely on.
+
+CREATE TABLE IF NOT EXISTS stores (
+    id varchar(255) NOT NULL,
+    active boolean NOT NULL,
+    location varchar(255),
+    name varchar(255),
+    type tinyint CHECK (type BETWEEN 0 AND 1),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS inventory (
+    id integer,
+    counter TEXT,
+    lastUpdated timestamp NOT NULL,
+    productId varchar(255) NOT NULL,
+    quantity integer NOT NULL,
+    storeId varchar(255) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_inventory_store_product ON inventory (storeId, productId);
+CREATE INDEX IF NOT EXISTS idx_inventory_store_last_updated ON inventory (storeId, lastUpdated);
+
+CREATE TABLE IF NOT EXISTS outbox_event (
+    id integer,
+    createdAt timestamp NOT NULL,
+    messageKey varchar(255),
+    payload TEXT NOT NULL,
+    topic varchar(255) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS source_offset (
+    sourcePartition varchar(255) NOT NULL,
+    appliedOffset bigint NOT NULL,
+    PRIMARY KEY (sourcePartition)
+);
+
+CREATE TABLE IF NOT EXISTS reorder_point (
+    id integer,
+    productId varchar(255) NOT NULL,
+    reorderPoint integer NOT NULL,
+    storeId varchar(255) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_reorder_point_store_product ON reorder_point (storeId, productId);
@@ -0,0 +1,5 @@
+-- Stock of a product across stores (findByProductId)
+CREATE INDEX IF NOT EXISTS idx_inventory_product_store ON inventory (productId, storeId);
+
+-- Active store ids for full syncs; covers the query, so the table itself is never read
+CREATE INDEX IF NOT EXISTS idx_stores_active ON stores (active, id);
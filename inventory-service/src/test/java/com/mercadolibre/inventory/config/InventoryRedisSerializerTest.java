@@ -0,0 +1,146 @@
+package com.mercadolibre.inventory.config;
+
+import com.mercadolibre.common.model.PnCounter;
+import com.mercadolibre.inventory.model.Inventory;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InventoryRedisSerializerTest {
+
+    private final GenericJackson2JsonRedisSerializer json = new RedisConfig().redisSerializer();
+    private final InventoryRedisSerializer binary =
+            new InventoryRedisSerializer(InventoryRedisSerializer.Codec.BINARY, json);
+    private final InventoryRedisSerializer legacy =
+            new InventoryRedisSerializer(InventoryRedisSerializer.Codec.JSON, json);
+
+    @Test
+    void binaryRoundTripKeepsEveryField() {
+        Inventory inventory = inventory(42L, "store-1", "SKU-123", 17);
+
+        byte[] bytes = binary.serialize(inventory);
+
+        assertThat(bytes[0]).isEqualTo((byte) 2);
+        assertSameFields(binary.deserialize(bytes), inventory);
+    }
+
+    @Test
+    void binaryRoundTripKeepsTheCounter() {
+        Inventory inventory = inventory(42L, "store-1", "SKU-123", 17);
+        PnCounter counter = PnCounter.seeded(10);
+        counter.add("node-a", 300);
+        counter.add("node-a", -290);
+        counter.add("nó-b", -3);
+        counter.add("node-c", Long.MAX_VALUE / 2);
+        inventory.setCounter(counter);
+
+        Inventory read = binary.deserialize(binary.serialize(inventory));
+
+        assertSameFields(read, inventory);
+        assertThat(read.getCounter().getIncrements()).isEqualTo(counter.getIncrements());
+        assertThat(read.getCounter().getDecrements()).isEqualTo(counter.getDecrements());
+        // A merge on the cached value keeps the CRDT state instead of starting from nothing
+        assertThat(read.getCounter().merge(PnCounter.seeded(10)).value()).isEqualTo(counter.value());
+    }
+
+    @Test
+    void binaryRoundTripWithoutCounterLeavesItNull() {
+        Inventory read = binary.deserialize(binary.serialize(inventory(1L, "store-1", "SKU-1", 1)));
+
+        assertThat(read.getCounter()).isNull();
+    }
+
+    @Test
+    void versionOneEntriesAreStillRead() {
+        Inventory inventory = inventory(42L, "store-1", "SKU-123", 17);
+
+        Inventory read = binary.deserialize(versionOne(inventory));
+
+        assertSameFields(read, inventory);
+        assertThat(read.getCounter()).isNull();
+    }
+
+    @Test
+    void binaryRoundTripWithoutIdAndWithMultiByteLengths() {
+        // 200 bytes needs a two-byte length prefix, and the accented ids are multi-byte in UTF-8
+        String productId = "SKU-" + "x".repeat(196);
+        Inventory inventory = inventory(null, "loja-são-paulo", productId, -3);
+
+        Inventory read = binary.deserialize(binary.serialize(inventory));
+
+        assertSameFields(read, inventory);
+        assertThat(read.getId()).isNull();
+    }
+
+    @Test
+    void eachCodecReadsTheOtherOnesEntries() {
+        Inventory inventory = inventory(7L, "store-2", "SKU-9", 5);
+
+        byte[] written = legacy.serialize(inventory);
+        assertThat(new String(written, StandardCharsets.UTF_8)).startsWith("{");
+        assertSameFields(binary.deserialize(written), inventory);
+        assertSameFields(legacy.deserialize(binary.serialize(inventory)), inventory);
+    }
+
+    @Test
+    void binaryIsSmallerThanJson() {
+        Inventory inventory = inventory(7L, "store-2", "SKU-9", 5);
+
+        assertThat(binary.serialize(inventory).length).isLessThan(legacy.serialize(inventory).length / 2);
+    }
+
+    @Test
+    void nullAndEmptyValuesAreAbsent() {
+        assertThat(binary.serialize(null)).isNull();
+        assertThat(binary.deserialize(null)).isNull();
+        assertThat(binary.deserialize(new byte[0])).isNull();
+    }
+
+    @Test
+    void truncatedBinaryEntryFails() {
+        byte[] bytes = binary.serialize(inventory(1L, "store-1", "SKU-1", 1));
+
+        assertThatThrownBy(() -> binary.deserialize(Arrays.copyOf(bytes, bytes.length - 3)))
+                .isInstanceOf(SerializationException.class);
+    }
+
+    // The layout written before the counter was added
+    private static byte[] versionOne(Inventory inventory) {
+        byte[] storeId = inventory.getStoreId().getBytes(StandardCharsets.UTF_8);
+        byte[] productId = inventory.getProductId().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(2 + 8 + 4 + 8 + 4 + 1 + storeId.length + 1 + productId.length);
+        buffer.put((byte) 1);
+        buffer.put((byte) 1);
+        buffer.putLong(inventory.getId());
+        buffer.putInt(inventory.getQuantity());
+        buffer.putLong(inventory.getLastUpdated().toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(inventory.getLastUpdated().getNano());
+        buffer.put((byte) storeId.length).put(storeId);
+        buffer.put((byte) productId.length).put(productId);
+        return buffer.array();
+    }
+
+    private static Inventory inventory(Long id, String storeId, String productId, int quantity) {
+        Inventory inventory = new Inventory(storeId, productId, quantity);
+        inventory.setId(id);
+        inventory.setLastUpdated(LocalDateTime.of(2024, 1, 15, 10, 30, 0, 123_456_789));
+        return inventory;
+    }
+
+    private static void assertSameFields(Inventory actual, Inventory expected) {
+        assertThat(actual.getId()).isEqualTo(expected.getId());
+        assertThat(actual.getStoreId()).isEqualTo(expected.getStoreId());
+        assertThat(actual.getProductId()).isEqualTo(expected.getProductId());
+        assertThat(actual.getQuantity()).isEqualTo(expected.getQuantity());
+        assertThat(actual.getLastUpdated()).isEqualTo(expected.getLastUpdated());
+    }
+}
@@ -0,0 +1,92 @@
+package com.mercadolibre.inventory.config;
+
+import com.mercadolibre.inventory.enums.DatabaseEngine;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LegacySchemaMigrationTest {
+
+    // The tables as Hibernate created them before the counter column existed
+    private static final String LEGACY_STORES =
+            "CREATE TABLE stores (id varchar(255) NOT NULL, active boolean NOT NULL, location varchar(255), " +
+            "name varchar(255), type tinyint, PRIMARY KEY (id))";
+    private static final String LEGACY_INVENTORY =
+            "CREATE TABLE inventory (id bigint, lastUpdated timestamp NOT NULL, productId varchar(255) NOT NULL, " +
+            "quantity integer NOT NULL, storeId varchar(255) NOT NULL, PRIMARY KEY (id))";
+
+    @TempDir
+    Path dataDir;
+
+    @ParameterizedTest
+    @EnumSource(DatabaseEngine.class)
+    void freshDatabaseMigrates(DatabaseEngine engine) {
+        DriverManagerDataSource dataSource = dataSource(engine);
+
+        flyway(dataSource, engine).migrate();
+
+        assertThat(new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(counter) FROM inventory", Integer.class))
+                .isZero();
+    }
+
+    @ParameterizedTest
+    @EnumSource(DatabaseEngine.class)
+    void legacyInventoryTableGainsCounterColumn(DatabaseEngine engine) {
+        DriverManagerDataSource dataSource = dataSource(engine);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute(LEGACY_STORES);
+        jdbcTemplate.execute(LEGACY_INVENTORY);
+        jdbcTemplate.update("INSERT INTO inventory (id, lastUpdated, productId, quantity, storeId) " +
+                "VALUES (1, CURRENT_TIMESTAMP, 'SKU-1', 5, 'STORE-1')");
+
+        flyway(dataSource, engine).migrate();
+
+        jdbcTemplate.update("UPDATE inventory SET counter = '{}' WHERE id = 1");
+        assertThat(jdbcTemplate.queryForObject("SELECT counter FROM inventory WHERE id = 1", String.class))
+                .isEqualTo("{}");
+        assertThat(jdbcTemplate.queryForObject("SELECT quantity FROM inventory WHERE id = 1", Integer.class))
+                .isEqualTo(5);
+    }
+
+    @ParameterizedTest
+    @EnumSource(DatabaseEngine.class)
+    void legacyTableMissingOtherColumnFailsMigration(DatabaseEngine engine) {
+        DriverManagerDataSource dataSource = dataSource(engine);
+        new JdbcTemplate(dataSource).execute("CREATE TABLE stores (id varchar(255) NOT NULL, " +
+                "active boolean NOT NULL, name varchar(255), PRIMARY KEY (id))");
+
+        assertThatThrownBy(() -> flyway(dataSource, engine).migrate())
+                .isInstanceOf(FlywayException.class)
+                .hasStackTraceContaining("stores.location")
+                .hasStackTraceContaining("stores.type");
+    }
+
+    private DriverManagerDataSource dataSource(DatabaseEngine engine) {
+        String url = engine == DatabaseEngine.H2
+                ? "jdbc:h2:" + dataDir.resolve("inventory")
+                : "jdbc:sqlite:" + dataDir.resolve("inventory.db");
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url);
+        dataSource.setDriverClassName(engine.getDriverClassName());
+        return dataSource;
+    }
+
+    // Configured as in application.yml
+    private static Flyway flyway(DriverManagerDataSource dataSource, DatabaseEngine engine) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/" + engine.name().toLowerCase())
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .javaMigrations(new LegacySchemaMigration())
+                .load();
+    }
+}
@@ -0,0 +1,142 @@
+package com.mercadolibre.inventory.repository;
+
+import com.mercadolibre.inventory.config.LegacySchemaMigration;
+import com.mercadolibre.inventory.enums.DatabaseEngine;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Asks a freshly migrated database how it runs each hot query and fails on those that would read a
+ * whole table (or index) instead of seeking into an index, or sort rows an index should already
+ * return in order. Guards the indexes created by the migrations against a dropped index or a query
+ * that no longer matches one. Full-table reads that are intended, like the summary rebuild and the
+ * stock level load, are not listed. Store listings must also be answered from their index alone.
+ */
+class QueryPlanTest {
+
+    @TempDir
+    Path dataDir;
+
+    @ParameterizedTest
+    @EnumSource(DatabaseEngine.class)
+    void hotQueriesUseIndexes(DatabaseEngine engine) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(migratedDataSource(engine));
+        InventoryJdbcRepository inventoryJdbcRepository = new InventoryJdbcRepository(jdbcTemplate, engine);
+
+        List<String> fullScans = new ArrayList<>();
+        for (HotQuery query : hotQueries(inventoryJdbcRepository)) {
+            String plan = explain(jdbcTemplate, engine, query);
+            if (isFullScan(engine, plan)) {
+                fullScans.add(query.name() + " -> " + plan);
+            }
+        }
+
+        assertThat(fullScans).as("hot queries not served by an index").isEmpty();
+    }
+
+    // SQLite only: H2 reads the row for every index entry whatever the index holds
+    @Test
+    void storeListingsAreServedFromACoveringIndex() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(migratedDataSource(DatabaseEngine.SQLITE));
+
+        List<String> tableReads = new ArrayList<>();
+        for (HotQuery query : List.of(
+                new HotQuery("InventoryJdbcRepository.streamByStoreId", InventoryJdbcRepository.SELECT_BY_STORE_SQL, ""),
+                new HotQuery("InventoryJdbcRepository.findPageByStoreId", InventoryJdbcRepository.SELECT_PAGE_SQL, "", "", 1),
+                new HotQuery("StoreRepository.findActiveStoreIds", "SELECT id FROM stores WHERE active = ?", true))) {
+            String plan = explain(jdbcTemplate, DatabaseEngine.SQLITE, query);
+            if (!plan.contains("USING COVERING INDEX")) {
+                tableReads.add(query.name() + " -> " + plan);
+            }
+        }
+
+        assertThat(tableReads).as("queries reading table rows besides the index").isEmpty();
+    }
+
+    private DriverManagerDataSource migratedDataSource(DatabaseEngine engine) {
+        String url = engine == DatabaseEngine.H2
+                ? "jdbc:h2:" + dataDir.resolve("inventory")
+                : "jdbc:sqlite:" + dataDir.resolve("inventory.db");
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(url);
+        dataSource.setDriverClassName(engine.getDriverClassName());
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration/" + engine.name().toLowerCase())
+                .javaMigrations(new LegacySchemaMigration())
+                .load()
+                .migrate();
+        return dataSource;
+    }
+
+    private static List<HotQuery> hotQueries(InventoryJdbcRepository inventoryJdbcRepository) {
+        Timestamp since = new Timestamp(0);
+        // The Spring Data queries are spelled out as the SQL Hibernate generates for them
+        return List.of(
+                new HotQuery("InventoryRepository.findByStoreIdAndProductId",
+                        "SELECT id, counter, lastUpdated, productId, quantity, storeId FROM inventory " +
+                        "WHERE storeId = ? AND productId = ?", "", ""),
+                new HotQuery("InventoryRepository.findByProductId",
+                        "SELECT id, counter, lastUpdated, productId, quantity, storeId FROM inventory " +
+                        "WHERE productId = ?", ""),
+                new HotQuery("InventoryRepository.findByProductIdAndStoreIdIn",
+                        "SELECT id, counter, lastUpdated, productId, quantity, storeId FROM inventory " +
+                        "WHERE productId = ? AND storeId IN (?, ?)", "", "", ""),
+                new HotQuery("InventoryRepository.findByStoreId",
+                        "SELECT id, counter, lastUpdated, productId, quantity, storeId FROM inventory " +
+                        "WHERE storeId = ?", ""),
+                new HotQuery("InventoryRepository.findByStoreIdAndLastUpdatedAfterOrderByLastUpdatedAsc",
+                        "SELECT id, counter, lastUpdated, productId, quantity, storeId FROM inventory " +
+                        "WHERE storeId = ? AND lastUpdated > ? ORDER BY lastUpdated", "", since),
+                new HotQuery("InventoryJdbcRepository.streamByStoreId",
+                        InventoryJdbcRepository.SELECT_BY_STORE_SQL, ""),
+                new HotQuery("InventoryJdbcRepository.findPageByStoreId",
+                        InventoryJdbcRepository.SELECT_PAGE_SQL, "", "", 1),
+                new HotQuery("InventoryJdbcRepository.batchUpsert",
+                        inventoryJdbcRepository.upsertSql(), "", "", 0, since, null),
+                new HotQuery("StoreRepository.findActiveStoreIds",
+                        "SELECT id FROM stores WHERE active = ?", true),
+                new HotQuery("ReorderPointRepository.findByStoreIdAndProductId",
+                        "SELECT id, productId, reorderPoint, storeId FROM reorder_point " +
+                        "WHERE storeId = ? AND productId = ?", "", ""),
+                new HotQuery("OutboxJdbcRepository.deleteUpTo",
+                        "DELETE FROM outbox_event WHERE id <= ?", 0L));
+    }
+
+    private static String explain(JdbcTemplate jdbcTemplate, DatabaseEngine engine, HotQuery query) {
+        if (engine == DatabaseEngine.H2) {
+            return jdbcTemplate.queryForObject("EXPLAIN " + query.sql(), String.class, query.params())
+                    .replaceAll("\\s+", " ");
+        }
+        List<String> details = jdbcTemplate.query("EXPLAIN QUERY PLAN " + query.sql(),
+                (rs, rowNum) -> rs.getString("detail"), query.params());
+        return String.join(" | ", details);
+    }
+
+    private static boolean isFullScan(DatabaseEngine engine, String plan) {
+        if (engine == DatabaseEngine.H2) {
+            return plan.contains(".tableScan");
+        }
+        // SQLite says SEARCH when it seeks into an index and SCAN when it reads all of a table or index
+        for (String step : plan.split(" \\| ")) {
+            if ((step.startsWith("SCAN ") && !step.startsWith("SCAN CONSTANT ROW")) || step.startsWith("USE TEMP B-TREE")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record HotQuery(String name, String sql, Object... params) {
+    }
+}
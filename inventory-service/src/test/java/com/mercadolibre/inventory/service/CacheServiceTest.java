@@ -0,0 +1,108 @@
+package com.mercadolibre.inventory.service;
+
+import com.mercadolibre.inventory.model.Inventory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CacheServiceTest {
+
+    private RedisTemplate<String, Inventory> redisTemplate;
+    private ValueOperations<String, Inventory> valueOperations;
+    private CacheService cacheService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(RedisTemplate.class);
+        valueOperations = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        cacheService = new CacheService(redisTemplate, mock(StringRedisTemplate.class),
+                mock(RedisMessageListenerContainer.class), new SimpleMeterRegistry(), 100, 60_000);
+    }
+
+    @Test
+    void multiGetOnlyAsksRedisForKeysMissingFromTheNearCache() {
+        Inventory nearCached = new Inventory("store-1", "sku-1", 5);
+        Inventory inRedis = new Inventory("store-2", "sku-1", 3);
+        cacheService.updateInventoryCache("store-1", "sku-1", nearCached);
+        when(valueOperations.multiGet(List.of("inventory:store-2:sku-1", "inventory:store-3:sku-1")))
+                .thenReturn(Arrays.asList(inRedis, null));
+
+        Map<String, Inventory> found = cacheService.getInventoriesFromCache(List.of("store-1", "store-2", "store-3"), "sku-1");
+
+        assertThat(found).containsOnly(Map.entry("store-1", nearCached), Map.entry("store-2", inRedis));
+        // The Redis hit is now near-cached as well
+        assertThat(cacheService.getInventoriesFromCache(List.of("store-2"), "sku-1")).containsEntry("store-2", inRedis);
+        verify(valueOperations, never()).multiGet(List.of("inventory:store-2:sku-1"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void warmingNearCachesOnlyTheEntriesRedisDidNotHoldYet() {
+        Inventory stored = new Inventory("store-1", "sku-1", 5);
+        Inventory raced = new Inventory("store-2", "sku-1", 3);
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenReturn(List.of(true, false));
+        when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList((Inventory) null));
+
+        cacheService.warmInventoryCache(List.of(stored, raced));
+
+        assertThat(cacheService.getInventoriesFromCache(List.of("store-1", "store-2"), "sku-1"))
+                .containsOnlyKeys("store-1");
+        verify(valueOperations).multiGet(List.of("inventory:store-2:sku-1"));
+    }
+
+    @Test
+    void entriesWrittenInARolledBackTransactionAreEvictedWithOneDelete() {
+        Inventory first = new Inventory("store-1", "sku-1", 5);
+        Inventory second = new Inventory("store-1", "sku-2", 0);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cacheService.updateInventoryCache(List.of(first, second));
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(redisTemplate).delete(List.of("inventory:store-1:sku-1", "inventory:store-1:sku-2"));
+        assertThat(cacheService.getInventoryFromCache("store-1", "sku-1")).isNull();
+    }
+
+    @Test
+    void entriesOfACommittedTransactionStay() {
+        Inventory inventory = new Inventory("store-1", "sku-1", 5);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cacheService.updateInventoryCache("store-1", "sku-1", inventory);
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(redisTemplate, never()).delete(anyList());
+        assertThat(cacheService.getInventoryFromCache("store-1", "sku-1")).isSameAs(inventory);
+    }
+}
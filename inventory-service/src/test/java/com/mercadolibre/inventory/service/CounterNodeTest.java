@@ -0,0 +1,34 @@
+package com.mercadolibre.inventory.service;
+
+import com.mercadolibre.common.model.PnCounter;
+import com.mercadolibre.inventory.model.Inventory;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CounterNodeTest {
+
+    @Test
+    void changesFoldCountersOfRetiredNodesIntoTheSeed() {
+        Inventory inventory = new Inventory();
+        inventory.setQuantity(10);
+        inventory.changeQuantity("inventory-7f9c", 4);
+        inventory.changeQuantity("inventory-b21e", 6);
+
+        new CounterNode("inventory-1", Set.of("inventory-7f9c", "inventory-b21e")).changeQuantity(inventory, 5);
+
+        assertThat(inventory.getQuantity()).isEqualTo(5);
+        assertThat(inventory.getCounter().value()).isEqualTo(5);
+        assertThat(inventory.getCounter().getIncrements()).containsOnlyKeys(PnCounter.SEED_NODE);
+        assertThat(inventory.getCounter().getDecrements()).containsOnlyKeys(PnCounter.SEED_NODE, "inventory-1");
+    }
+
+    @Test
+    void rejectsItsOwnIdAsRetired() {
+        assertThatThrownBy(() -> new CounterNode("inventory-1", Set.of("inventory-1")))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,42 @@
+package com.mercadolibre.inventory.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mercadolibre.common.model.InventoryDelta;
+import com.mercadolibre.common.model.InventoryEvent;
+import com.mercadolibre.inventory.model.OutboxEvent;
+import com.mercadolibre.inventory.repository.OutboxJdbcRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class EventPublisherServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final OutboxJdbcRepository outboxJdbcRepository = mock(OutboxJdbcRepository.class);
+    private final EventPublisherService publisher = new EventPublisherService(outboxJdbcRepository,
+            mock(InventoryWriteBehind.class), mock(StockLedger.class), objectMapper);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchIsPublishedAsOneEventPerSkuKeyedLikeSingleUpdates() throws Exception {
+        publisher.publishInventoryBatch(List.of(
+                new InventoryDelta("store-1", "sku-1", -2),
+                new InventoryDelta("store-2", "sku-1", 5)));
+
+        ArgumentCaptor<List<OutboxEvent>> events = ArgumentCaptor.forClass(List.class);
+        verify(outboxJdbcRepository).batchInsert(events.capture());
+        assertThat(events.getValue()).extracting(OutboxEvent::getMessageKey)
+                .containsExactly("store-1:sku-1", "store-2:sku-1");
+
+        InventoryEvent second = objectMapper.readValue(events.getValue().get(1).getPayload(), InventoryEvent.class);
+        assertThat(second.getEventType()).isEqualTo("UPDATE");
+        assertThat(second.getStoreId()).isEqualTo("store-2");
+        assertThat(second.getProductId()).isEqualTo("sku-1");
+        assertThat(second.getQuantity()).isEqualTo(5);
+    }
+}
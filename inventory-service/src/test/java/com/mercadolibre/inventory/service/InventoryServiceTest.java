@@ -0,0 +1,163 @@
+package com.mercadolibre.inventory.service;
+
+import com.mercadolibre.common.enums.BatchMode;
+import com.mercadolibre.common.enums.InventoryOperationType;
+import com.mercadolibre.common.model.InventoryBatchRequest;
+import com.mercadolibre.common.model.InventoryBatchResponse;
+import com.mercadolibre.common.model.InventoryDelta;
+import com.mercadolibre.common.model.InventoryOperation;
+import com.mercadolibre.inventory.model.Inventory;
+import com.mercadolibre.inventory.repository.InventoryJdbcRepository;
+import com.mercadolibre.inventory.repository.InventoryRepository;
+import com.mercadolibre.inventory.repository.ReorderPointRepository;
+import com.mercadolibre.inventory.repository.StoreRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryServiceTest {
+
+    private InventoryRepository inventoryRepository;
+    private CacheService cacheService;
+    private EventPublisherService eventPublisherService;
+    private StockLedger ledger;
+    private InventorySnapshot snapshot;
+    private InventoryService service;
+
+    @BeforeEach
+    void setUp() {
+        inventoryRepository = mock(InventoryRepository.class);
+        cacheService = mock(CacheService.class);
+        eventPublisherService = mock(EventPublisherService.class);
+        ledger = new StockLedger(inventoryRepository, mock(InventoryWriteBehind.class),
+                new InventoryIds(new SimpleMeterRegistry()), true, new CounterNode("node-a", Set.of()));
+        snapshot = mock(InventorySnapshot.class);
+        service = new InventoryService(inventoryRepository, mock(InventoryJdbcRepository.class),
+                mock(StoreRepository.class), cacheService, eventPublisherService, ledger,
+                mock(SourceOffsetTracker.class), mock(InventorySummaryIndex.class), mock(LowStockIndex.class),
+                snapshot, mock(ReorderPointRepository.class), new CounterNode("node-a", Set.of()), "store-000");
+    }
+
+    @Test
+    void ledgerChangeQueuesItsEventBeforeTheCacheIsWritten() {
+        stored("store-1", "sku-1", 10);
+
+        service.decrementInventory("store-1", "sku-1", 3, true);
+
+        InOrder order = inOrder(eventPublisherService, cacheService);
+        order.verify(eventPublisherService).publishInventoryUpdate(eq("store-1"), eq("sku-1"), eq(-3), any());
+        order.verify(cacheService).updateInventoryCache(eq("store-1"), eq("sku-1"), any(Inventory.class));
+    }
+
+    @Test
+    void ledgerChangeSurvivesCacheFailureWithItsEventQueued() {
+        stored("store-1", "sku-1", 10);
+        doThrow(new IllegalStateException("redis down"))
+                .when(cacheService).updateInventoryCache(any(), any(), any(Inventory.class));
+
+        Inventory updated = service.incrementInventory("store-1", "sku-1", 4, true);
+
+        assertThat(updated.getQuantity()).isEqualTo(14);
+        assertThat(ledger.peek("store-1", "sku-1")).get().extracting(Inventory::getQuantity).isEqualTo(14);
+        verify(eventPublisherService).publishInventoryUpdate(eq("store-1"), eq("sku-1"), eq(4), any());
+    }
+
+    @Test
+    void ledgerChangeIsUndoneWhenItsEventCannotBeQueued() {
+        stored("store-1", "sku-1", 10);
+        doThrow(new IllegalStateException("cannot serialize"))
+                .when(eventPublisherService).publishInventoryUpdate(any(), any(), anyInt(), any());
+
+        assertThatThrownBy(() -> service.setInventory("store-1", "sku-1", 25, true))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(ledger.peek("store-1", "sku-1")).get().extracting(Inventory::getQuantity).isEqualTo(10);
+    }
+
+    @Test
+    void batchIsUndoneInTheLedgerWhenItsEventsCannotBeQueued() {
+        stored("store-1", "sku-1", 10);
+        stored("store-2", "sku-1", 5);
+        doThrow(new IllegalStateException("cannot serialize"))
+                .when(eventPublisherService).publishInventoryBatch(anyList());
+
+        assertThatThrownBy(() -> service.applyBatch(batch(
+                new InventoryOperation("store-1", "sku-1", InventoryOperationType.DECREMENT, 4),
+                new InventoryOperation("store-2", "sku-1", InventoryOperationType.INCREMENT, 2),
+                new InventoryOperation("store-1", "sku-1", InventoryOperationType.DECREMENT, 1))))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(ledger.peek("store-1", "sku-1")).get().extracting(Inventory::getQuantity).isEqualTo(10);
+        assertThat(ledger.peek("store-2", "sku-1")).get().extracting(Inventory::getQuantity).isEqualTo(5);
+        verify(cacheService, never()).updateInventoryCache(anyCollection());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void batchIsAppliedWithItsEventsWhenTheCacheFails() {
+        stored("store-1", "sku-1", 10);
+        doThrow(new IllegalStateException("redis down")).when(cacheService).updateInventoryCache(anyCollection());
+
+        InventoryBatchResponse response = service.applyBatch(batch(
+                new InventoryOperation("store-1", "sku-1", InventoryOperationType.DECREMENT, 4)));
+
+        assertThat(response.getSuccessCount()).isEqualTo(1);
+        assertThat(ledger.peek("store-1", "sku-1")).get().extracting(Inventory::getQuantity).isEqualTo(6);
+        ArgumentCaptor<List<InventoryDelta>> deltas = ArgumentCaptor.forClass(List.class);
+        verify(eventPublisherService).publishInventoryBatch(deltas.capture());
+        assertThat(deltas.getValue()).extracting(InventoryDelta::getQuantity).containsExactly(-4);
+    }
+
+    @Test
+    void acrossStoresReadsTheLedgerThenOneMultiGetThenTheDatabaseForTheRest() {
+        stored("store-1", "sku-1", 10);
+        service.incrementInventory("store-1", "sku-1", 1, false);
+        Inventory cached = new Inventory("store-2", "sku-1", 7);
+        Inventory fromDatabase = new Inventory("store-3", "sku-1", 2);
+        when(snapshot.storesHolding("sku-1")).thenReturn(List.of("store-1", "store-2", "store-3", "store-4"));
+        when(cacheService.getInventoriesFromCache(List.of("store-2", "store-3", "store-4"), "sku-1"))
+                .thenReturn(Map.of("store-2", cached));
+        when(inventoryRepository.findByProductIdAndStoreIdIn("sku-1", List.of("store-3", "store-4")))
+                .thenReturn(List.of(fromDatabase));
+
+        List<Inventory> inventories = service.getInventoryAcrossStores("sku-1");
+
+        assertThat(inventories).extracting(Inventory::getStoreId, Inventory::getQuantity)
+                .containsExactly(tuple("store-1", 11), tuple("store-2", 7), tuple("store-3", 2));
+        verify(cacheService).warmInventoryCache(List.of(fromDatabase));
+    }
+
+    private static InventoryBatchRequest batch(InventoryOperation... operations) {
+        return new InventoryBatchRequest(BatchMode.BEST_EFFORT, true, List.of(operations));
+    }
+
+    private void stored(String storeId, String productId, int quantity) {
+        Inventory inventory = new Inventory(storeId, productId, quantity);
+        inventory.setId(1L);
+        inventory.setLastUpdated(LocalDateTime.now());
+        when(inventoryRepository.findByStoreIdAndProductId(storeId, productId)).thenReturn(Optional.of(inventory));
+    }
+}
@@ -0,0 +1,159 @@
+package com.mercadolibre.inventory.service;
+
+import com.mercadolibre.inventory.model.AvailabilityMatrix;
+import com.mercadolibre.inventory.model.InventoryView;
+import com.mercadolibre.inventory.model.StockDifference;
+import com.mercadolibre.inventory.repository.InventoryJdbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventorySnapshotTest {
+
+    private final List<InventoryView> rows = new ArrayList<>();
+    private InventoryWriteBehind writeBehind;
+    private PlatformTransactionManager transactionManager;
+    private InventorySnapshot snapshot;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        InventoryJdbcRepository inventoryJdbcRepository = mock(InventoryJdbcRepository.class);
+        doAnswer(invocation -> {
+            rows.forEach(invocation.<Consumer<InventoryView>>getArgument(0));
+            return null;
+        }).when(inventoryJdbcRepository).streamAll(any(Consumer.class));
+        writeBehind = mock(InventoryWriteBehind.class);
+        when(writeBehind.pendingStoreIds()).thenReturn(Set.of());
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        snapshot = new InventorySnapshot(inventoryJdbcRepository, writeBehind, transactionManager,
+                new InventoryIds(new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void tableIsReadInAReadOnlyTransaction() {
+        snapshot.load();
+
+        verify(transactionManager).getTransaction(argThat(TransactionDefinition::isReadOnly));
+    }
+
+    @Test
+    void totalsSumEveryStoreAndLeaveOutProductsWithoutRows() {
+        row("store-000", "SKU-1", 10);
+        row("store-001", "SKU-1", 5);
+        row("store-001", "SKU-2", 0);
+        snapshot.load();
+        snapshot.recordChange("store-002", "SKU-3", 7);
+
+        assertThat(snapshot.totalsByProduct(null))
+                .containsExactlyInAnyOrderEntriesOf(Map.of("SKU-1", 15L, "SKU-2", 0L, "SKU-3", 7L));
+        assertThat(snapshot.totalsByProduct(List.of("SKU-2", "SKU-9")))
+                .containsExactly(entry("SKU-2", 0L), entry("SKU-9", 0L));
+    }
+
+    @Test
+    void totalsSpanProductsPastTheFirstColumnCapacity() {
+        // Codes past 1024 grow the columns and use more than one bitset word
+        for (int i = 0; i < 1500; i++) {
+            row("store-000", "SKU-" + i, 1);
+        }
+        row("store-001", "SKU-1499", 2);
+        snapshot.load();
+
+        Map<String, Long> totals = snapshot.totalsByProduct(null);
+
+        assertThat(totals).hasSize(1500).containsEntry("SKU-0", 1L).containsEntry("SKU-1499", 3L);
+    }
+
+    @Test
+    void storesHoldingListsStoresWithARowByStoreId() {
+        row("store-002", "SKU-1", 0);
+        row("store-000", "SKU-1", 10);
+        row("store-001", "SKU-2", 3);
+        snapshot.load();
+        snapshot.recordChange("store-001", "SKU-1", 4);
+
+        assertThat(snapshot.storesHolding("SKU-1")).containsExactly("store-000", "store-001", "store-002");
+        assertThat(snapshot.storesHolding("SKU-9")).isEmpty();
+    }
+
+    @Test
+    void availabilityHasNullForProductsAStoreDoesNotStock() {
+        row("store-001", "SKU-1", 5);
+        row("store-000", "SKU-1", 10);
+        row("store-000", "SKU-2", 3);
+        snapshot.load();
+
+        AvailabilityMatrix matrix = snapshot.availability(List.of("SKU-1", "SKU-2", "SKU-9"), null);
+
+        assertThat(matrix.getStoreIds()).containsExactly("store-000", "store-001");
+        assertThat(matrix.getQuantities()).isDeepEqualTo(new Integer[][] {{10, 5}, {3, null}, {null, null}});
+        assertThat(snapshot.availability(List.of("SKU-1"), List.of("store-001", "store-404")).getQuantities())
+                .isDeepEqualTo(new Integer[][] {{5, null}});
+    }
+
+    @Test
+    void differencesCoverChangedAndOneSidedProducts() {
+        row("store-000", "SKU-1", 10);
+        row("store-000", "SKU-2", 4);
+        row("store-000", "SKU-3", 0);
+        row("store-001", "SKU-1", 10);
+        row("store-001", "SKU-2", 6);
+        row("store-001", "SKU-4", 0);
+        snapshot.load();
+
+        List<StockDifference> differences = snapshot.differences("store-001", "store-000");
+
+        // SKU-1 matches; SKU-3 and SKU-4 hold zero but only one side has a row
+        assertThat(differences)
+                .extracting(StockDifference::getProductId, StockDifference::getStoreQuantity, StockDifference::getCentralQuantity)
+                .containsExactly(
+                        tuple("SKU-2", 6, 4),
+                        tuple("SKU-3", null, 0),
+                        tuple("SKU-4", 0, null));
+        assertThat(snapshot.differences("store-404", "store-404")).isEmpty();
+    }
+
+    @Test
+    void rebuildPicksUpNewRowsAndKeepsStoresWithUnflushedChanges() {
+        row("store-001", "SKU-1", 5);
+        row("store-002", "SKU-1", 5);
+        snapshot.load();
+        snapshot.recordChange("store-002", "SKU-1", 1);
+
+        // Another instance wrote store-001; store-002's change is still in the write-behind queue
+        rows.clear();
+        row("store-001", "SKU-1", 8);
+        row("store-002", "SKU-1", 5);
+        when(writeBehind.pendingStoreIds()).thenReturn(Set.of("store-002"));
+        snapshot.rebuild();
+
+        assertThat(snapshot.availability(List.of("SKU-1"), List.of("store-001", "store-002")).getQuantities())
+                .isDeepEqualTo(new Integer[][] {{8, 1}});
+    }
+
+    private void row(String storeId, String productId, int quantity) {
+        rows.add(new InventoryView((long) rows.size() + 1, storeId, productId, quantity, LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,138 @@
+package com.mercadolibre.inventory.service;
+
+import com.mercadolibre.common.model.PnCounter;
+import com.mercadolibre.inventory.model.Inventory;
+import com.mercadolibre.inventory.model.OutboxEvent;
+import com.mercadolibre.inventory.repository.InventoryJdbcRepository;
+import com.mercadolibre.inventory.repository.OutboxJdbcRepository;
+import com.mercadolibre.inventory.repository.SourceOffsetJdbcRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InventoryWriteBehindTest {
+
+    private InventoryJdbcRepository inventoryJdbcRepository;
+    private OutboxJdbcRepository outboxJdbcRepository;
+    private SourceOffsetJdbcRepository sourceOffsetRepository;
+    private InventoryWriteBehind writeBehind;
+
+    @BeforeEach
+    void setUp() {
+        inventoryJdbcRepository = mock(InventoryJdbcRepository.class);
+        outboxJdbcRepository = mock(OutboxJdbcRepository.class);
+        sourceOffsetRepository = mock(SourceOffsetJdbcRepository.class);
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        writeBehind = new InventoryWriteBehind(inventoryJdbcRepository, outboxJdbcRepository, sourceOffsetRepository,
+                transactionManager, new InventoryIds(new SimpleMeterRegistry()), 500);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writeBehind.shutdown();
+    }
+
+    @Test
+    void keepsOnlyTheNewestVersionPerKey() {
+        writeBehind.enqueue(row("store-1", "sku-1", 5), 1);
+        writeBehind.enqueue(row("store-1", "sku-1", 7), 3);
+        writeBehind.enqueue(row("store-1", "sku-1", 6), 2);
+        writeBehind.enqueue(row("store-1", "sku-2", 9), 1);
+
+        writeBehind.flush();
+
+        List<Inventory> written = singleBatch();
+        assertThat(written).extracting(Inventory::getProductId, Inventory::getQuantity)
+                .containsExactlyInAnyOrder(
+                        tuple("sku-1", 7),
+                        tuple("sku-2", 9));
+    }
+
+    @Test
+    void versionComparisonSurvivesWrapAround() {
+        writeBehind.enqueue(row("store-1", "sku-1", 1), Integer.MAX_VALUE);
+        writeBehind.enqueue(row("store-1", "sku-1", 2), Integer.MIN_VALUE);
+
+        writeBehind.flush();
+
+        assertThat(singleBatch()).extracting(Inventory::getQuantity).containsExactly(2);
+    }
+
+    @Test
+    void coalescedCountersKeepBothSnapshots() {
+        Inventory older = row("store-1", "sku-1", 5);
+        older.setCounter(counter("node-a", 5));
+        Inventory newer = row("store-1", "sku-1", 8);
+        newer.setCounter(counter("node-b", 3));
+
+        writeBehind.enqueue(newer, 2);
+        writeBehind.enqueue(older, 1);
+        writeBehind.flush();
+
+        Inventory written = singleBatch().get(0);
+        assertThat(written.getQuantity()).isEqualTo(8);
+        assertThat(written.getCounter().value()).isEqualTo(8);
+    }
+
+    @Test
+    void failedFlushKeepsChangesAndEventsQueued() {
+        doThrow(new IllegalStateException("database is locked"))
+                .doNothing()
+                .when(inventoryJdbcRepository).batchUpsert(anyList());
+        writeBehind.enqueue(row("store-1", "sku-1", 5), 1);
+        writeBehind.enqueueEvent(new OutboxEvent("inventory-events", "store-1:sku-1", "{}"));
+        writeBehind.enqueueSourceOffsets(Map.of("inventory-events-0", 42L));
+
+        writeBehind.flush();
+
+        verify(outboxJdbcRepository, never()).batchInsert(anyList());
+        verify(sourceOffsetRepository, never()).advance(anyString(), anyLong());
+        assertThat(writeBehind.pendingStoreIds()).containsExactly("store-1");
+
+        writeBehind.flush();
+
+        verify(inventoryJdbcRepository, times(2)).batchUpsert(anyList());
+        verify(outboxJdbcRepository).batchInsert(anyList());
+        verify(sourceOffsetRepository).advance("inventory-events-0", 42L);
+        assertThat(writeBehind.pendingStoreIds()).isEmpty();
+        assertThat(writeBehind.pendingSourceOffsets()).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Inventory> singleBatch() {
+        ArgumentCaptor<List<Inventory>> rows = ArgumentCaptor.forClass(List.class);
+        verify(inventoryJdbcRepository).batchUpsert(rows.capture());
+        return rows.getValue();
+    }
+
+    private static PnCounter counter(String node, long delta) {
+        PnCounter counter = new PnCounter();
+        counter.add(node, delta);
+        return counter;
+    }
+
+    private static Inventory row(String storeId, String productId, int quantity) {
+        return new Inventory(storeId, productId, quantity);
+    }
+}
@@ -0,0 +1,94 @@
+package com.mercadolibre.inventory.service;
+
+import com.mercadolibre.inventory.model.Inventory;
+import com.mercadolibre.inventory.model.InventoryView;
+import com.mercadolibre.inventory.repository.InventoryJdbcRepository;
+import com.mercadolibre.inventory.repository.ReorderPointRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LowStockIndexTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 15, 10, 0);
+
+    private final List<InventoryView> rows = new ArrayList<>();
+    private LowStockIndex index;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        InventoryJdbcRepository inventoryJdbcRepository = mock(InventoryJdbcRepository.class);
+        doAnswer(invocation -> {
+            rows.forEach(invocation.<Consumer<InventoryView>>getArgument(0));
+            return null;
+        }).when(inventoryJdbcRepository).streamAll(any(Consumer.class));
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenReturn(mock(TransactionStatus.class));
+        index = new LowStockIndex(inventoryJdbcRepository, mock(ReorderPointRepository.class),
+                new InventoryIds(new SimpleMeterRegistry()), transactionManager, 10, 5);
+    }
+
+    @Test
+    void olderChangeCompletingLastIsIgnored() {
+        row("store-1", "SKU-1", 50, T0);
+        index.load();
+
+        index.recordChange("store-1", "SKU-1", 40, T0.plusSeconds(2));
+        index.recordChange("store-1", "SKU-1", 3, T0.plusSeconds(1));
+
+        assertThat(index.findLowStock("store-1", 10)).isEmpty();
+        assertThat(index.findLowStock("store-1", 100)).extracting(Inventory::getQuantity).containsExactly(40);
+    }
+
+    @Test
+    void reloadAppliesNewerRowsAndSkipsOlderOnes() {
+        row("store-1", "SKU-1", 50, T0);
+        row("store-1", "SKU-2", 50, T0);
+        index.load();
+        index.recordChange("store-1", "SKU-2", 20, T0.plusSeconds(5));
+
+        // Another instance lowered SKU-1; SKU-2's table row is behind the change recorded here
+        rows.clear();
+        row("store-1", "SKU-1", 4, T0.plusSeconds(1));
+        row("store-1", "SKU-2", 50, T0);
+        index.reload();
+
+        assertThat(index.findLowStock("store-1", 100))
+                .extracting(Inventory::getProductId, Inventory::getQuantity)
+                .containsExactly(tuple("SKU-1", 4), tuple("SKU-2", 20));
+    }
+
+    @Test
+    void productLoweredByAnotherInstanceIsNotAlertedAgain() {
+        row("store-1", "SKU-1", 50, T0);
+        index.load();
+
+        rows.clear();
+        row("store-1", "SKU-1", 4, T0.plusSeconds(1));
+        index.reload();
+
+        assertThat(index.recordChange("store-1", "SKU-1", 3, T0.plusSeconds(2))).isFalse();
+        // Re-armed once it rises past reorder point plus hysteresis
+        index.recordChange("store-1", "SKU-1", 16, T0.plusSeconds(3));
+        assertThat(index.recordChange("store-1", "SKU-1", 9, T0.plusSeconds(4))).isTrue();
+    }
+
+    private void row(String storeId, String productId, int quantity, LocalDateTime lastUpdated) {
+        rows.add(new InventoryView((long) rows.size() + 1, storeId, productId, quantity, lastUpdated));
+    }
+}
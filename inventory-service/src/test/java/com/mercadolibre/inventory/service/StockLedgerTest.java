@@ -0,0 +1,156 @@
+package com.mercadolibre.inventory.service;
+
+import com.mercadolibre.common.exception.ApiException;
+import com.mercadolibre.common.exception.ErrorCode;
+import com.mercadolibre.inventory.model.Inventory;
+import com.mercadolibre.inventory.repository.InventoryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StockLedgerTest {
+
+    private InventoryRepository inventoryRepository;
+    private InventoryWriteBehind writeBehind;
+    private StockLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        inventoryRepository = mock(InventoryRepository.class);
+        writeBehind = mock(InventoryWriteBehind.class);
+        ledger = new StockLedger(inventoryRepository, writeBehind, new InventoryIds(new SimpleMeterRegistry()),
+                true, new CounterNode("node-a", Set.of()));
+    }
+
+    @Test
+    void concurrentDecrementsNeverOversell() throws Exception {
+        stored("store-1", "sku-1", 1000);
+        int threads = 8;
+        int attemptsPerThread = 200;
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < attemptsPerThread; i++) {
+                        try {
+                            ledger.decrement("store-1", "sku-1", 1);
+                            sold.incrementAndGet();
+                        } catch (ApiException e) {
+                            rejected.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(sold.get()).isEqualTo(1000);
+        assertThat(rejected.get()).isEqualTo(threads * attemptsPerThread - 1000);
+        assertThat(ledger.peek("store-1", "sku-1")).get().extracting(Inventory::getQuantity).isEqualTo(0);
+    }
+
+    @Test
+    void everyChangeBumpsTheVersionHandedToTheWriteBehind() {
+        stored("store-1", "sku-1", 10);
+
+        ledger.decrement("store-1", "sku-1", 3);
+        ledger.increment("store-1", "sku-1", 5);
+        ledger.set("store-1", "sku-1", 4);
+
+        ArgumentCaptor<Inventory> rows = ArgumentCaptor.forClass(Inventory.class);
+        ArgumentCaptor<Integer> versions = ArgumentCaptor.forClass(Integer.class);
+        verify(writeBehind, atLeastOnce()).enqueue(rows.capture(), versions.capture());
+        assertThat(versions.getAllValues()).containsExactly(1, 2, 3);
+        assertThat(rows.getAllValues()).extracting(Inventory::getQuantity).containsExactly(7, 12, 4);
+    }
+
+    @Test
+    void negativeQuantityDoesNotLeakIntoTheVersion() {
+        stored("store-1", "sku-1", 2);
+
+        ledger.adjust("store-1", "sku-1", -5);
+        StockLedger.LedgerUpdate update = ledger.increment("store-1", "sku-1", 1);
+
+        assertThat(update.previousQuantity()).isEqualTo(-3);
+        assertThat(update.inventory().getQuantity()).isEqualTo(-2);
+        ArgumentCaptor<Integer> versions = ArgumentCaptor.forClass(Integer.class);
+        verify(writeBehind, atLeastOnce()).enqueue(any(), versions.capture());
+        assertThat(versions.getAllValues()).containsExactly(1, 2);
+    }
+
+    @Test
+    void insufficientStockLeavesTheSlotUnchanged() {
+        stored("store-1", "sku-1", 2);
+
+        assertThatThrownBy(() -> ledger.decrement("store-1", "sku-1", 3))
+                .isInstanceOfSatisfying(ApiException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.INSUFFICIENT_INVENTORY));
+
+        assertThat(ledger.peek("store-1", "sku-1")).get().extracting(Inventory::getQuantity).isEqualTo(2);
+        verify(writeBehind, never()).enqueue(any(), anyInt());
+    }
+
+    @Test
+    void decrementOfUnknownProductIsNotFoundAndIsNotCached() {
+        when(inventoryRepository.findByStoreIdAndProductId("store-1", "sku-x")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> ledger.decrement("store-1", "sku-x", 1))
+                .isInstanceOfSatisfying(ApiException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo(ErrorCode.INVENTORY_NOT_FOUND));
+
+        assertThat(ledger.peek("store-1", "sku-x")).isEmpty();
+    }
+
+    @Test
+    void incrementOfNewProductCreatesIt() {
+        when(inventoryRepository.findByStoreIdAndProductId("store-1", "sku-new")).thenReturn(Optional.empty());
+
+        StockLedger.LedgerUpdate first = ledger.increment("store-1", "sku-new", 4);
+        StockLedger.LedgerUpdate second = ledger.increment("store-1", "sku-new", 1);
+
+        assertThat(first.created()).isTrue();
+        assertThat(first.inventory().getQuantity()).isEqualTo(4);
+        assertThat(second.created()).isFalse();
+        assertThat(second.inventory().getQuantity()).isEqualTo(5);
+    }
+
+    private void stored(String storeId, String productId, int quantity) {
+        Inventory inventory = new Inventory(storeId, productId, quantity);
+        inventory.setId(1L);
+        when(inventoryRepository.findByStoreIdAndProductId(storeId, productId)).thenReturn(Optional.of(inventory));
+    }
+}
@@ -0,0 +1,125 @@
+package com.mercadolibre.sync.client;
+
+import com.mercadolibre.common.model.ApiResponse;
+import com.mercadolibre.common.model.InventoryBatchRequest;
+import com.mercadolibre.common.model.InventoryBatchResponse;
+import com.mercadolibre.sync.model.InventoryResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typed client for the inventory-service endpoints used by synchronization.
+ * <p>
+ * Calls go through the pooled, load-balanced {@code inventoryWebClient}. Calls that are safe to
+ * repeat are retried with exponential backoff on connection errors, timeouts and 5xx responses;
+ * batch calls without source offsets are not, since inventory-service could not tell a retry from a
+ * new batch, and are only retried when the connection could not be opened at all.
+ */
+@Component
+public class InventoryClient {
+
+    private static final ParameterizedTypeReference<ApiResponse<Map<String, Long>>> OFFSETS_TYPE =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<ApiResponse<List<InventoryResponse>>> CHANGES_TYPE =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<ApiResponse<InventoryBatchResponse>> BATCH_TYPE =
+            new ParameterizedTypeReference<>() {};
+
+    private final WebClient webClient;
+    private final int maxAttempts;
+    private final Duration backoffDelay;
+
+    public InventoryClient(WebClient inventoryWebClient,
+                           @Value("${sync.retry.max-attempts:3}") int maxAttempts,
+                           @Value("${sync.retry.backoff-delay:1000}") long backoffDelay) {
+        this.webClient = inventoryWebClient;
+        this.maxAttempts = maxAttempts;
+        this.backoffDelay = Duration.ofMillis(backoffDelay);
+    }
+
+    public Mono<List<String>> getStoreIds() {
+        return webClient.get()
+                .uri("/api/stores/ids")
+                .retrieve()
+                .bodyToMono(String[].class)
+                .map(List::of)
+                .defaultIfEmpty(List.of())
+                .retryWhen(retry(true));
+    }
+
+    public Mono<Map<String, Long>> getAppliedSourceOffsets() {
+        return webClient.get()
+                .uri("/api/inventory/source-offsets")
+                .retrieve()
+                .bodyToMono(OFFSETS_TYPE)
+                .mapNotNull(ApiResponse::getData)
+                .defaultIfEmpty(Map.of())
+                .retryWhen(retry(true));
+    }
+
+    /**
+     * Rows of a store changed after {@code since}, oldest first; every row of the store when
+     * {@code since} is null.
+     */
+    public Mono<List<InventoryResponse>> getChangesSince(String storeId, LocalDateTime since) {
+        return webClient.get()
+                .uri(uri -> {
+                    uri.path("/api/inventory/{storeId}/changes");
+                    if (since != null) {
+                        uri.queryParam("since", since);
+                    }
+                    return uri.build(storeId);
+                })
+                .retrieve()
+                .bodyToMono(CHANGES_TYPE)
+                .mapNotNull(ApiResponse::getData)
+                .defaultIfEmpty(List.of())
+                .retryWhen(retry(true));
+    }
+
+    /**
+     * Sends a batch to {@code /api/inventory/batch}. Errors and 4xx/5xx responses are signalled as
+     * errors; an empty body completes empty.
+     */
+    public Mono<InventoryBatchResponse> applyBatch(InventoryBatchRequest request) {
+        // A replayed batch carrying source offsets is recognised and skipped by inventory-service
+        boolean idempotent = request.getSourceOffsets() != null && !request.getSourceOffsets().isEmpty();
+        return webClient.post()
+                .uri("/api/inventory/batch")
+                .bodyValue(request)
+                .retrieve()
+                .bodyToMono(BATCH_TYPE)
+                .mapNotNull(ApiResponse::getData)
+                .retryWhen(retry(idempotent));
+    }
+
+    private Retry retry(boolean idempotent) {
+        return Retry.backoff(Math.max(maxAttempts - 1, 0), backoffDelay)
+                .filter(error -> isRetryable(error, idempotent))
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+    }
+
+    private static boolean isRetryable(Throwable error, boolean idempotent) {
+        if (error instanceof WebClientRequestException && error.getCause() instanceof ConnectException) {
+            // Nothing was sent, so even a non-idempotent call can be repeated
+            return true;
+        }
+        if (!idempotent) {
+            return false;
+        }
+        return error instanceof WebClientRequestException
+                || (error instanceof WebClientResponseException response && response.getStatusCode().is5xxServerError());
+    }
+}
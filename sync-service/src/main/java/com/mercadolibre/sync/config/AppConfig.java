@@ -1,14 +1,77 @@
 package com.mercadolibre.sync.config;
 
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Configuration
+@EnableConfigurationProperties(ConflictResolutionProperties.class)
 public class AppConfig {
 
+    @Value("${sync.inventory-client.base-url:http://inventory-service}")
+    private String inventoryBaseUrl;
+
+    @Value("${sync.inventory-client.max-connections:64}")
+    private int maxConnections;
+
+    @Value("${sync.inventory-client.pending-acquire-timeout-ms:5000}")
+    private long pendingAcquireTimeoutMs;
+
+    @Value("${sync.inventory-client.max-idle-time-ms:30000}")
+    private long maxIdleTimeMs;
+
+    @Value("${sync.inventory-client.connect-timeout-ms:2000}")
+    private int connectTimeoutMs;
+
+    @Value("${sync.inventory-client.response-timeout-ms:10000}")
+    private long responseTimeoutMs;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider inventoryConnectionProvider() {
+        // Kept-alive connections are reused across calls, so only the first call to an instance pays for the handshake
+        return ConnectionProvider.builder("inventory-service")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(maxIdleTimeMs))
+                .evictInBackground(Duration.ofMillis(maxIdleTimeMs))
+                .build();
+    }
+
+    /**
+     * WebClient for inventory-service. The host part of the base URL is a service id resolved through
+     * Eureka on every call, so calls are spread over all registered instances.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public WebClient inventoryWebClient(WebClient.Builder builder,
+                                        ConnectionProvider inventoryConnectionProvider,
+                                        ReactorLoadBalancerExchangeFilterFunction loadBalancerFunction) {
+        HttpClient httpClient = HttpClient.create(inventoryConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs))
+                .compress(true);
+
+        return builder
+                .baseUrl(inventoryBaseUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .filter(loadBalancerFunction)
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public ExecutorService storeSyncExecutor() {
+        // One virtual thread per store sync; SyncService bounds how many run at once
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("store-sync-", 0).factory());
     }
 }
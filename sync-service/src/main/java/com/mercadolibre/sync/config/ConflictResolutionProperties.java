@@ -0,0 +1,35 @@
+package com.mercadolibre.sync.config;
+
+import com.mercadolibre.sync.model.ConflictResolutionStrategy;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.Map;
+
+/**
+ * Which strategy resolves a conflict: a product rule wins over a store rule, which wins over the
+ * default.
+ *
+ * @param defaultStrategy strategy used when no rule matches
+ * @param stores          strategy per store id
+ * @param products        strategy per product id, across all stores
+ */
+@ConfigurationProperties(prefix = "sync.conflicts")
+public record ConflictResolutionProperties(
+        @DefaultValue("LAST_WRITE_WINS") ConflictResolutionStrategy defaultStrategy,
+        Map<String, ConflictResolutionStrategy> stores,
+        Map<String, ConflictResolutionStrategy> products) {
+
+    public ConflictResolutionProperties {
+        stores = stores != null ? Map.copyOf(stores) : Map.of();
+        products = products != null ? Map.copyOf(products) : Map.of();
+    }
+
+    public ConflictResolutionStrategy strategyFor(String storeId, String productId) {
+        ConflictResolutionStrategy strategy = products.get(productId);
+        if (strategy == null) {
+            strategy = stores.getOrDefault(storeId, defaultStrategy);
+        }
+        return strategy;
+    }
+}
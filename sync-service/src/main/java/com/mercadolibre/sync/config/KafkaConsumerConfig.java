@@ -1,8 +1,10 @@
 package com.mercadolibre.sync.config;
 
 import com.mercadolibre.common.model.InventoryEvent;
+import com.mercadolibre.sync.service.CentralSyncAggregator;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -10,7 +12,14 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -21,6 +30,40 @@ public class KafkaConsumerConfig {
 
     private final KafkaProperties kafkaProperties;
 
+    // Consumers per listener; useful up to the number of partitions of the topic
+    @Value("${sync.kafka.listener.concurrency:3}")
+    private int concurrency;
+
+    @Value("${sync.kafka.consumer.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${sync.aggregation.window-ms:1000}")
+    private long aggregationWindowMs;
+
+    @Value("${sync.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${sync.retry.backoff-delay:1000}")
+    private long backoffDelay;
+
+    @Value("${sync.retry-topics.topic:inventory-events-failed}")
+    private String failedEventsTopic;
+
+    @Value("${sync.retry-topics.attempts:4}")
+    private int retryTopicAttempts;
+
+    @Value("${sync.retry-topics.initial-delay-ms:1000}")
+    private long retryTopicInitialDelayMs;
+
+    @Value("${sync.retry-topics.multiplier:4}")
+    private double retryTopicMultiplier;
+
+    @Value("${sync.retry-topics.max-delay-ms:60000}")
+    private long retryTopicMaxDelayMs;
+
+    @Value("${sync.retry-topics.partitions:3}")
+    private int retryTopicPartitions;
+
     public KafkaConsumerConfig(KafkaProperties kafkaProperties) {
         this.kafkaProperties = kafkaProperties;
     }
@@ -30,7 +73,7 @@ public class KafkaConsumerConfig {
         Map<String, Object> config = new HashMap<>(kafkaProperties.buildConsumerProperties());
         config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 10);
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
 
         return new DefaultKafkaConsumerFactory<>(
                 config,
@@ -45,9 +88,59 @@ public class KafkaConsumerConfig {
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
         factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        // Offsets of a poll are committed only after the listener returned normally
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        // A failed poll is redelivered from its first record; after the last attempt it is logged and skipped
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(backoffDelay, maxAttempts - 1L)));
         return factory;
     }
 
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, InventoryEvent> syncListenerContainerFactory(
+            CentralSyncAggregator centralSyncAggregator) {
+        ConcurrentKafkaListenerContainerFactory<String, InventoryEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        // Offsets are committed by the aggregator once the window holding them has been applied
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        // Lets a window that stops receiving events be applied once it expires
+        factory.getContainerProperties().setIdleEventInterval(aggregationWindowMs);
+        factory.getContainerProperties().setConsumerRebalanceListener(centralSyncAggregator);
+        return factory;
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, InventoryEvent> retryListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, InventoryEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(concurrency);
+        return factory;
+    }
+
+    /**
+     * Non-blocking retries for events parked by the aggregator: each failed attempt forwards the event
+     * to the next tier ({@code -retry-0}, {@code -retry-1}...), whose consumers wait out an exponentially
+     * growing delay on that partition only. Events still failing after the last attempt, or rejected
+     * by inventory-service as invalid, end up in the {@code -dlt} topic.
+     */
+    @Bean
+    public RetryTopicConfiguration failedEventsRetryTopics(KafkaTemplate<String, Object> kafkaTemplate) {
+        return RetryTopicConfigurationBuilder.newInstance()
+                .includeTopic(failedEventsTopic)
+                .maxAttempts(retryTopicAttempts)
+                .exponentialBackoff(retryTopicInitialDelayMs, retryTopicMultiplier, retryTopicMaxDelayMs)
+                .suffixTopicsWithIndexValues()
+                .autoCreateTopicsWith(retryTopicPartitions, (short) -1)
+                .notRetryOn(WebClientResponseException.BadRequest.class)
+                .listenerFactory("retryListenerContainerFactory")
+                .dltHandlerMethod("inventoryEventListener", "handleDeadLetter")
+                .create(kafkaTemplate);
+    }
+
     @Bean
     public ConsumerFactory<String, Object> genericConsumerFactory() {
         Map<String, Object> config = new HashMap<>(kafkaProperties.buildConsumerProperties());
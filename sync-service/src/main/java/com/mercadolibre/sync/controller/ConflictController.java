@@ -0,0 +1,53 @@
+package com.mercadolibre.sync.controller;
+
+import com.mercadolibre.common.model.ApiResponse;
+import com.mercadolibre.sync.model.ConflictReviewRequest;
+import com.mercadolibre.sync.model.InventoryConflict;
+import com.mercadolibre.sync.service.ConflictResolutionService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/sync/conflicts")
+@Validated
+public class ConflictController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConflictController.class);
+    private final ConflictResolutionService conflictResolutionService;
+
+    public ConflictController(ConflictResolutionService conflictResolutionService) {
+        this.conflictResolutionService = conflictResolutionService;
+    }
+
+    @GetMapping("/review")
+    public ResponseEntity<ApiResponse<List<InventoryConflict>>> getReviewQueue(
+            @RequestParam(defaultValue = "100") @Min(1) @Max(1000) int limit) {
+
+        List<InventoryConflict> conflicts = conflictResolutionService.getReviewQueue(limit);
+        return ResponseEntity.ok(ApiResponse.success("Review queue retrieved successfully", conflicts));
+    }
+
+    @GetMapping("/{conflictId}")
+    public ResponseEntity<ApiResponse<InventoryConflict>> getConflict(@PathVariable String conflictId) {
+        InventoryConflict conflict = conflictResolutionService.getConflict(conflictId);
+        return ResponseEntity.ok(ApiResponse.success("Conflict retrieved successfully", conflict));
+    }
+
+    @PostMapping("/{conflictId}/resolve")
+    public ResponseEntity<ApiResponse<InventoryConflict>> resolveConflict(
+            @PathVariable String conflictId,
+            @RequestBody ConflictReviewRequest request) {
+
+        logger.info("Resolving conflict {} manually", conflictId);
+
+        InventoryConflict conflict = conflictResolutionService.resolveManually(conflictId, request);
+        return ResponseEntity.ok(ApiResponse.success("Conflict resolved successfully", conflict));
+    }
+}
@@ -0,0 +1,84 @@
+package com.mercadolibre.sync.controller;
+
+import com.mercadolibre.common.model.ApiResponse;
+import com.mercadolibre.sync.model.SyncStatus;
+import com.mercadolibre.sync.service.DeadLetterReplayService;
+import com.mercadolibre.sync.service.SyncService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/sync")
+@Validated
+public class SyncController {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyncController.class);
+    private final SyncService syncService;
+    private final DeadLetterReplayService deadLetterReplayService;
+
+    public SyncController(SyncService syncService, DeadLetterReplayService deadLetterReplayService) {
+        this.syncService = syncService;
+        this.deadLetterReplayService = deadLetterReplayService;
+    }
+
+    @PostMapping
+    public ResponseEntity<ApiResponse<SyncStatus>> triggerFullSync() {
+        logger.info("Full synchronization requested");
+
+        SyncStatus status = syncService.submitFullSync();
+        return ResponseEntity.accepted().body(ApiResponse.success("Synchronization triggered successfully", status));
+    }
+
+    @PostMapping("/{storeId}")
+    public ResponseEntity<ApiResponse<SyncStatus>> triggerStoreSync(@PathVariable String storeId) {
+        logger.info("Synchronization of store {} requested", storeId);
+
+        SyncStatus status = syncService.submitStoreSync(storeId);
+        return ResponseEntity.accepted().body(ApiResponse.success("Synchronization triggered successfully", status));
+    }
+
+    @GetMapping("/status")
+    public ResponseEntity<ApiResponse<List<SyncStatus>>> getSyncHistory(
+            @RequestParam(defaultValue = "50") @Min(1) @Max(1000) int limit) {
+
+        List<SyncStatus> statuses = syncService.getSyncHistory(limit);
+        return ResponseEntity.ok(ApiResponse.success("All sync statuses retrieved successfully", statuses));
+    }
+
+    @GetMapping("/status/{syncId}")
+    public ResponseEntity<ApiResponse<SyncStatus>> getSyncStatus(@PathVariable String syncId) {
+        SyncStatus status = syncService.getSyncStatus(syncId);
+        return ResponseEntity.ok(ApiResponse.success("Sync status retrieved successfully", status));
+    }
+
+    @GetMapping("/status/{syncId}/stores")
+    public ResponseEntity<ApiResponse<List<SyncStatus>>> getStoreSyncs(@PathVariable String syncId) {
+        List<SyncStatus> stores = syncService.getStoreSyncs(syncId);
+        return ResponseEntity.ok(ApiResponse.success("Store sync statuses retrieved successfully", stores));
+    }
+
+    @PostMapping("/status/{syncId}/cancel")
+    public ResponseEntity<ApiResponse<SyncStatus>> cancelSync(@PathVariable String syncId) {
+        logger.info("Cancellation of sync {} requested", syncId);
+
+        SyncStatus status = syncService.cancelSync(syncId);
+        return ResponseEntity.accepted().body(ApiResponse.success("Sync cancellation requested", status));
+    }
+
+    @PostMapping("/dead-letters/replay")
+    public ResponseEntity<ApiResponse<Integer>> replayDeadLetters(
+            @RequestParam(defaultValue = "100") @Min(1) @Max(10000) int limit) {
+
+        logger.info("Replay of up to {} dead-lettered events requested", limit);
+
+        int replayed = deadLetterReplayService.replay(limit);
+        return ResponseEntity.ok(ApiResponse.success("Dead letters replayed successfully", replayed));
+    }
+}
@@ -2,42 +2,61 @@ package com.mercadolibre.sync.listener;
 
 
 import com.mercadolibre.common.model.InventoryEvent;
+import com.mercadolibre.sync.service.CentralSyncAggregator;
 import com.mercadolibre.sync.service.ConflictResolutionService;
-import com.mercadolibre.sync.service.SyncService;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 @Component
 public class InventoryEventListener {
 
     private static final Logger logger = LoggerFactory.getLogger(InventoryEventListener.class);
     private final ConflictResolutionService conflictResolutionService;
-    private final SyncService syncService;
+    private final CentralSyncAggregator centralSyncAggregator;
 
     public InventoryEventListener(ConflictResolutionService conflictResolutionService,
-                                  SyncService syncService) {
+                                  CentralSyncAggregator centralSyncAggregator) {
         this.conflictResolutionService = conflictResolutionService;
-        this.syncService = syncService;
+        this.centralSyncAggregator = centralSyncAggregator;
     }
 
     @KafkaListener(
             topics = "inventory-events",
             groupId = "sync-service",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "syncListenerContainerFactory"
     )
-    public void handleInventoryEvent(@Payload InventoryEvent event) {
-        logger.info("Received inventory event: {}", event);
+    public void handleInventoryEvents(List<ConsumerRecord<String, InventoryEvent>> records, Consumer<?, ?> consumer) {
+        logger.debug("Received {} inventory events", records.size());
+        centralSyncAggregator.add(records, consumer);
+    }
 
-        try {
-            processInventoryEvent(event);
-            logger.debug("Successfully processed inventory event: {}", event.getEventId());
-        } catch (Exception e) {
-            logger.error("Failed to process inventory event: {}", event.getEventId(), e);
-            // TODO (evolução): implementar retry/DLQ
-        }
+    /**
+     * Events parked after their window failed. Retry tiers and the dead-letter topic are configured in
+     * {@code KafkaConsumerConfig}; exceptions thrown here send the event to the next tier.
+     */
+    @KafkaListener(
+            topics = "${sync.retry-topics.topic:inventory-events-failed}",
+            groupId = "sync-service-retry",
+            containerFactory = "retryListenerContainerFactory"
+    )
+    public void handleFailedInventoryEvent(InventoryEvent event) {
+        logger.debug("Retrying inventory event {}", event.getEventId());
+        centralSyncAggregator.applyParked(event);
+    }
+
+    public void handleDeadLetter(InventoryEvent event,
+                                 @Header(name = KafkaHeaders.DLT_EXCEPTION_MESSAGE, required = false) String error) {
+        logger.error("Inventory event {} moved to the dead-letter topic: {}. Replay it with POST /api/sync/dead-letters/replay",
+                event.getEventId(), error);
     }
 
     @KafkaListener(
@@ -45,31 +64,17 @@ public class InventoryEventListener {
             groupId = "sync-service-alerts",
             containerFactory = "kafkaListenerContainerFactory"
     )
-    public void handleInventoryAlert(@Payload InventoryEvent event) {
-        logger.warn("Received inventory alert: {}", event);
+    public void handleInventoryAlerts(@Payload List<InventoryEvent> events) {
+        for (InventoryEvent event : events) {
+            logger.warn("Received inventory alert: {}", event);
 
-        // Handle low stock alerts or other critical events
-        if ("LOW_STOCK_ALERT".equals(event.getEventType())) {
-            handleLowStockAlert(event);
+            // Handle low stock alerts or other critical events
+            if ("LOW_STOCK_ALERT".equals(event.getEventType())) {
+                handleLowStockAlert(event);
+            }
         }
     }
 
-    private void processInventoryEvent(InventoryEvent event) {
-
-        logger.debug("Processing inventory event for store: {}, product: {}",
-                event.getStoreId(), event.getProductId());
-
-        try {
-            syncService.syncInventoryEvent(event);
-        } catch (Exception e) {
-            //TODO adicionar exception correta pro kafka retry -> RuntimeException?
-            Thread.currentThread().interrupt();
-            logger.error("Unexpected error processing inventory event: {}", event.getEventId(), e);
-        }
-
-        logger.info("Completed processing inventory event: {}", event.getEventId());
-    }
-
     private void handleLowStockAlert(InventoryEvent event) {
         logger.warn("Handling low stock alert for store: {}, product: {}, quantity: {}",
                 event.getStoreId(), event.getProductId(), event.getQuantity());
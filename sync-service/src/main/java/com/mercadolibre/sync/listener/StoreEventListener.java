@@ -21,7 +21,7 @@ public class StoreEventListener {
     @KafkaListener(
             topics = "store-events",
             groupId = "sync-service-stores",
-            containerFactory = "kafkaListenerContainerFactory"
+            containerFactory = "genericKafkaListenerContainerFactory"
     )
     public void handleStoreEvent(Map<String, Object> event) {
         logger.info("Received store event: {}", event);
@@ -63,7 +63,7 @@ public class StoreEventListener {
         // Clean up sync data for deleted store
         // This would typically involve removing store from sync schedules
         // and archiving sync history
-        syncService.syncStore(storeId);
+        syncService.submitStoreSync(storeId);
         //apagar todos os inventarios com o storeid
     }
 }
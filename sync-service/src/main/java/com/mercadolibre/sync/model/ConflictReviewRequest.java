@@ -0,0 +1,22 @@
+package com.mercadolibre.sync.model;
+
+/**
+ * Decision for a conflict waiting in the manual review queue: either a strategy to apply or the
+ * central quantity to set. An explicit quantity takes precedence.
+ */
+public class ConflictReviewRequest {
+
+    private ConflictResolutionStrategy strategy;
+    private Integer quantity;
+    private String notes;
+
+    public ConflictReviewRequest() {}
+
+    // Getters and setters
+    public ConflictResolutionStrategy getStrategy() { return strategy; }
+    public void setStrategy(ConflictResolutionStrategy strategy) { this.strategy = strategy; }
+    public Integer getQuantity() { return quantity; }
+    public void setQuantity(Integer quantity) { this.quantity = quantity; }
+    public String getNotes() { return notes; }
+    public void setNotes(String notes) { this.notes = notes; }
+}
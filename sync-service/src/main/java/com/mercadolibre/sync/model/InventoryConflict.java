@@ -1,20 +1,44 @@
 package com.mercadolibre.sync.model;
 
+import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
+/**
+ * Disagreement between a store and the central store about a product, kept until it is resolved so
+ * the manual review queue and the history survive restarts.
+ */
+@Entity
+@Table(name = "inventory_conflict", indexes = {
+        @Index(name = "idx_conflict_review", columnList = "requiresManualReview, resolved, conflictDetectedAt")
+})
 public class InventoryConflict {
-    
+
+    @Id
     private String id;
+
+    @Column(nullable = false)
     private String storeId;
+
+    @Column(nullable = false)
     private String productId;
+
     private int storeQuantity;
     private int centralQuantity;
     private LocalDateTime storeTimestamp;
+    // Null when the central store did not report when it last changed
     private LocalDateTime centralTimestamp;
+
+    @Column(nullable = false)
     private LocalDateTime conflictDetectedAt;
+
     private boolean resolved;
     private boolean requiresManualReview;
+
+    @Enumerated(EnumType.STRING)
     private ConflictResolutionStrategy resolutionStrategy;
+
+    // Central quantity chosen by the resolution
+    private Integer resolvedQuantity;
     private LocalDateTime resolvedAt;
     private String resolutionNotes;
 
@@ -125,6 +149,14 @@ public class InventoryConflict {
         this.resolutionStrategy = resolutionStrategy;
     }
 
+    public Integer getResolvedQuantity() {
+        return resolvedQuantity;
+    }
+
+    public void setResolvedQuantity(Integer resolvedQuantity) {
+        this.resolvedQuantity = resolvedQuantity;
+    }
+
     public LocalDateTime getResolvedAt() {
         return resolvedAt;
     }
@@ -155,6 +187,7 @@ public class InventoryConflict {
                 ", resolved=" + resolved +
                 ", requiresManualReview=" + requiresManualReview +
                 ", resolutionStrategy=" + resolutionStrategy +
+                ", resolvedQuantity=" + resolvedQuantity +
                 ", resolvedAt=" + resolvedAt +
                 '}';
     }
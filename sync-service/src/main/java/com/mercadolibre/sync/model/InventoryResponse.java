@@ -10,6 +10,8 @@ public class InventoryResponse {
     private int quantity;
     private LocalDateTime lastUpdated;
 
+    public InventoryResponse() {}
+
     public InventoryResponse(String storeId,
         String productId,
         int quantity,
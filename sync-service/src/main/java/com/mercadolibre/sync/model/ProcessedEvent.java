@@ -0,0 +1,28 @@
+package com.mercadolibre.sync.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Id of an inventory event already applied to the central store. Rows are written and read in bulk
+ * through {@code ProcessedEventJdbcRepository}; the entity only defines the table.
+ */
+@Entity
+@Table(name = "processed_event", indexes = {
+        @Index(name = "idx_processed_event_time", columnList = "processedAt")
+})
+public class ProcessedEvent {
+
+    @Id
+    private String eventId;
+
+    // Epoch milliseconds
+    private long processedAt;
+
+    public ProcessedEvent() {}
+
+    // Getters and setters
+    public String getEventId() { return eventId; }
+    public void setEventId(String eventId) { this.eventId = eventId; }
+    public long getProcessedAt() { return processedAt; }
+    public void setProcessedAt(long processedAt) { this.processedAt = processedAt; }
+}
@@ -0,0 +1,113 @@
+package com.mercadolibre.sync.model;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.mercadolibre.common.model.IdDictionary;
+import jakarta.persistence.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Where reconciliation of a store left off, kept across restarts: the newest {@code lastUpdated}
+ * reconciled, plus the products handled within the overlap window behind it, so re-read rows are not
+ * applied twice.
+ * <p>
+ * A run moves the watermark and stores its central decrements as pending under a new
+ * {@code sequence} before sending them. The decrements are sent in the same chunks until a run
+ * clears them, each chunk carrying the sequence as its source offset, so inventory-service skips a
+ * chunk it already applied when a run is cut short after the central store committed.
+ */
+@Entity
+@Table(name = "reconciliation_watermark")
+public class ReconciliationWatermark {
+
+    @Id
+    private String storeId;
+
+    // Number of the latest run that had decrements to send
+    private long sequence;
+    private LocalDateTime newest;
+
+    @Convert(converter = RecentConverter.class)
+    @Column(columnDefinition = "TEXT")
+    private Map<String, LocalDateTime> recent = new HashMap<>();
+
+    // Decrements of run {@code sequence} not yet known to be applied, null when there are none
+    @Convert(converter = PendingConverter.class)
+    @Column(columnDefinition = "TEXT")
+    private List<InventoryResponse> pending;
+
+    public ReconciliationWatermark() {}
+
+    public ReconciliationWatermark(String storeId) {
+        this.storeId = storeId;
+    }
+
+    public LocalDateTime since(Duration overlap) {
+        return newest == null ? null : newest.minus(overlap);
+    }
+
+    public boolean isProcessed(InventoryResponse change) {
+        LocalDateTime processed = recent.get(change.getProductId());
+        return processed != null && !change.getLastUpdated().isAfter(processed);
+    }
+
+    /**
+     * Moves the watermark past the changes read and, if there are decrements to send, starts a new
+     * run holding them as pending. Product ids are kept as the dictionary's instances.
+     */
+    public void advance(List<InventoryResponse> changes, List<InventoryResponse> decrements, Duration overlap,
+                        IdDictionary productIds) {
+        for (InventoryResponse change : changes) {
+            recent.merge(productIds.intern(change.getProductId()), change.getLastUpdated(), (a, b) -> a.isAfter(b) ? a : b);
+            if (newest == null || change.getLastUpdated().isAfter(newest)) {
+                newest = change.getLastUpdated();
+            }
+        }
+        if (newest != null) {
+            LocalDateTime horizon = newest.minus(overlap);
+            recent.values().removeIf(lastUpdated -> lastUpdated.isBefore(horizon));
+        }
+        if (!decrements.isEmpty()) {
+            sequence++;
+            pending = List.copyOf(decrements);
+        }
+    }
+
+    public boolean hasPending() {
+        return pending != null && !pending.isEmpty();
+    }
+
+    public void clearPending() {
+        pending = null;
+    }
+
+    // Getters and setters
+    public String getStoreId() { return storeId; }
+    public void setStoreId(String storeId) { this.storeId = storeId; }
+    public long getSequence() { return sequence; }
+    public void setSequence(long sequence) { this.sequence = sequence; }
+    public LocalDateTime getNewest() { return newest; }
+    public void setNewest(LocalDateTime newest) { this.newest = newest; }
+    public Map<String, LocalDateTime> getRecent() { return recent; }
+    public void setRecent(Map<String, LocalDateTime> recent) { this.recent = recent != null ? recent : new HashMap<>(); }
+    public List<InventoryResponse> getPending() { return pending; }
+    public void setPending(List<InventoryResponse> pending) { this.pending = pending; }
+
+    @Converter
+    public static class RecentConverter extends JsonConverter<Map<String, LocalDateTime>> {
+        public RecentConverter() {
+            super(new TypeReference<>() {});
+        }
+    }
+
+    @Converter
+    public static class PendingConverter extends JsonConverter<List<InventoryResponse>> {
+        public PendingConverter() {
+            super(new TypeReference<>() {});
+        }
+    }
+}
@@ -1,19 +1,43 @@
 package com.mercadolibre.sync.model;
 
+import jakarta.persistence.*;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+/**
+ * A sync job, or one store's part of a full sync job. Full sync jobs count stores in
+ * {@code successCount}/{@code failureCount} and sum the items of their stores; store rows point to
+ * their job through {@code parentId} and count the changed products they reconciled.
+ */
+@Entity
+@Table(name = "sync_status", indexes = {
+        @Index(name = "idx_sync_status_parent", columnList = "parentId, duration"),
+        @Index(name = "idx_sync_status_start", columnList = "startTime")
+})
 public class SyncStatus {
 
+    @Id
     private String id;
+
+    // Full sync job this store sync belongs to, null for jobs
+    private String parentId;
     private String storeId;
+
+    @Column(nullable = false)
     private String type;
+
+    @Column(nullable = false)
     private String status;
+
     private LocalDateTime startTime;
     private LocalDateTime endTime;
+    // Milliseconds, set when the sync ends
+    private long duration;
     private int itemsProcessed;
     private int successCount;
     private int failureCount;
+
+    @Column(length = 1000)
     private String errorMessage;
 
     public SyncStatus() {
@@ -25,6 +49,8 @@ public class SyncStatus {
     // Getters and setters
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
+    public String getParentId() { return parentId; }
+    public void setParentId(String parentId) { this.parentId = parentId; }
     public String getStoreId() { return storeId; }
     public void setStoreId(String storeId) { this.storeId = storeId; }
     public String getType() { return type; }
@@ -35,6 +61,8 @@ public class SyncStatus {
     public void setStartTime(LocalDateTime startTime) { this.startTime = startTime; }
     public LocalDateTime getEndTime() { return endTime; }
     public void setEndTime(LocalDateTime endTime) { this.endTime = endTime; }
+    public long getDuration() { return duration; }
+    public void setDuration(long duration) { this.duration = duration; }
     public int getItemsProcessed() { return itemsProcessed; }
     public void setItemsProcessed(int itemsProcessed) { this.itemsProcessed = itemsProcessed; }
     public int getSuccessCount() { return successCount; }
@@ -42,23 +70,31 @@ public class SyncStatus {
     public int getFailureCount() { return failureCount; }
     public void setFailureCount(int failureCount) { this.failureCount = failureCount; }
     public String getErrorMessage() { return errorMessage; }
-    public void setErrorMessage(String errorMessage) { this.errorMessage = errorMessage; }
-
-    public void incrementSuccessCount() {
-        this.successCount++;
-        this.itemsProcessed++;
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage != null && errorMessage.length() > 1000 ? errorMessage.substring(0, 1000) : errorMessage;
     }
 
-    public void incrementFailureCount() {
-        this.failureCount++;
-        this.itemsProcessed++;
+    // Synchronized: a full sync counts results from many store syncs running in parallel
+    public synchronized void recordStore(SyncStatus store) {
+        if ("COMPLETED".equals(store.getStatus())) {
+            this.successCount++;
+        } else {
+            this.failureCount++;
+        }
+        this.itemsProcessed += store.getItemsProcessed();
     }
 
-    public long getDuration() {
-        if (startTime != null && endTime != null) {
-            return java.time.Duration.between(startTime, endTime).toMillis();
+    public synchronized void finish(String status) {
+        this.status = status;
+        this.endTime = LocalDateTime.now();
+        if (startTime != null) {
+            this.duration = java.time.Duration.between(startTime, endTime).toMillis();
         }
-        return 0;
+    }
+
+    // Items per second
+    public double getThroughput() {
+        return duration > 0 ? itemsProcessed * 1000.0 / duration : 0;
     }
 
     @Override
@@ -68,7 +104,8 @@ public class SyncStatus {
                 ", storeId='" + storeId + '\'' +
                 ", type='" + type + '\'' +
                 ", status='" + status + '\'' +
-                ", duration=" + getDuration() + "ms" +
+                ", duration=" + duration + "ms" +
+                ", itemsProcessed=" + itemsProcessed +
                 ", successCount=" + successCount +
                 ", failureCount=" + failureCount +
                 '}';
@@ -0,0 +1,62 @@
+package com.mercadolibre.sync.repository;
+
+import com.mercadolibre.sync.model.InventoryConflict;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Bulk inserts for {@code inventory_conflict}. A reconciliation pass can record thousands of
+ * conflicts, which JPA would write one merge at a time since their ids are assigned up front.
+ */
+@Repository
+public class InventoryConflictJdbcRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO inventory_conflict (id, storeId, productId, storeQuantity, centralQuantity, storeTimestamp, " +
+            "centralTimestamp, conflictDetectedAt, resolved, requiresManualReview, resolutionStrategy, resolvedQuantity, " +
+            "resolvedAt, resolutionNotes) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public InventoryConflictJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void batchInsert(List<InventoryConflict> conflicts) {
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        jdbcTemplate.batchUpdate(INSERT_SQL, conflicts, BATCH_SIZE, (ps, conflict) -> {
+            ps.setString(1, conflict.getId());
+            ps.setString(2, conflict.getStoreId());
+            ps.setString(3, conflict.getProductId());
+            ps.setInt(4, conflict.getStoreQuantity());
+            ps.setInt(5, conflict.getCentralQuantity());
+            setTimestamp(ps, 6, conflict.getStoreTimestamp(), utc);
+            setTimestamp(ps, 7, conflict.getCentralTimestamp(), utc);
+            setTimestamp(ps, 8, conflict.getConflictDetectedAt(), utc);
+            ps.setBoolean(9, conflict.isResolved());
+            ps.setBoolean(10, conflict.isRequiresManualReview());
+            ps.setString(11, conflict.getResolutionStrategy() != null ? conflict.getResolutionStrategy().name() : null);
+            ps.setObject(12, conflict.getResolvedQuantity(), Types.INTEGER);
+            setTimestamp(ps, 13, conflict.getResolvedAt(), utc);
+            ps.setString(14, conflict.getResolutionNotes());
+        });
+    }
+
+    private static void setTimestamp(PreparedStatement ps, int index, LocalDateTime value, Calendar utc) throws SQLException {
+        if (value != null) {
+            ps.setTimestamp(index, Timestamp.valueOf(value), utc);
+        } else {
+            ps.setNull(index, Types.TIMESTAMP);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.mercadolibre.sync.repository;
+
+import com.mercadolibre.sync.model.InventoryConflict;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface InventoryConflictRepository extends JpaRepository<InventoryConflict, String> {
+
+    // Manual review queue, oldest first
+    List<InventoryConflict> findByRequiresManualReviewTrueAndResolvedFalseOrderByConflictDetectedAtAsc(Pageable pageable);
+
+    long countByRequiresManualReviewTrueAndResolvedFalse();
+}
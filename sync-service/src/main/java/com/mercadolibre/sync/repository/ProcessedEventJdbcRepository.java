@@ -0,0 +1,49 @@
+package com.mercadolibre.sync.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Persistent set of applied event ids in {@code processed_event}, written one window at a time.
+ */
+@Repository
+public class ProcessedEventJdbcRepository {
+
+    private static final String INSERT_SQL = "INSERT OR IGNORE INTO processed_event (eventId, processedAt) VALUES (?, ?)";
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProcessedEventJdbcRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insertAll(Collection<String> eventIds, long processedAt) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, eventIds, BATCH_SIZE, (ps, eventId) -> {
+            ps.setString(1, eventId);
+            ps.setLong(2, processedAt);
+        });
+    }
+
+    public boolean exists(String eventId) {
+        Boolean found = jdbcTemplate.query("SELECT 1 FROM processed_event WHERE eventId = ?",
+                (ResultSetExtractor<Boolean>) ResultSet::next, eventId);
+        return Boolean.TRUE.equals(found);
+    }
+
+    // Streams the ids recorded since the given time, without holding them all in memory
+    public void forEachSince(long since, Consumer<String> action) {
+        jdbcTemplate.query("SELECT eventId FROM processed_event WHERE processedAt >= ?",
+                (RowCallbackHandler) rs -> action.accept(rs.getString(1)), since);
+    }
+
+    public int deleteBefore(long before) {
+        return jdbcTemplate.update("DELETE FROM processed_event WHERE processedAt < ?", before);
+    }
+}
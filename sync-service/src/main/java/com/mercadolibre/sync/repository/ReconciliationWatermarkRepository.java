@@ -0,0 +1,9 @@
+package com.mercadolibre.sync.repository;
+
+import com.mercadolibre.sync.model.ReconciliationWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReconciliationWatermarkRepository extends JpaRepository<ReconciliationWatermark, String> {
+}
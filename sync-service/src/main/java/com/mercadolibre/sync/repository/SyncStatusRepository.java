@@ -0,0 +1,30 @@
+package com.mercadolibre.sync.repository;
+
+import com.mercadolibre.sync.model.SyncStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SyncStatusRepository extends JpaRepository<SyncStatus, String> {
+
+    // Jobs, newest first
+    List<SyncStatus> findByParentIdIsNullOrderByStartTimeDesc(Pageable pageable);
+
+    // Store syncs of a full sync job, slowest first
+    List<SyncStatus> findByParentIdOrderByDurationDesc(String parentId);
+
+    // Syncs that were running when the service stopped
+    @Modifying
+    @Transactional
+    @Query("UPDATE SyncStatus s SET s.status = 'FAILED', s.endTime = :now, s.errorMessage = :reason " +
+            "WHERE s.status IN ('PENDING', 'RUNNING')")
+    int failUnfinished(@Param("now") LocalDateTime now, @Param("reason") String reason);
+}
@@ -0,0 +1,467 @@
+package com.mercadolibre.sync.service;
+
+import com.mercadolibre.common.model.InventoryDelta;
+import com.mercadolibre.common.model.InventoryEvent;
+import com.mercadolibre.common.model.PnCounter;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Aggregates inventory events into windows before applying them to the central store, so each
+ * window costs one batch call with one operation per distinct product instead of one call per event.
+ * <p>
+ * Events carrying the row's PN-counter are merged per product, with each store's nodes scoped by its
+ * id, and sent as one MERGE operation. Merges are idempotent and a counter holds every earlier
+ * change of its row, so a lost or repeated event is corrected by the next one for that row. Events
+ * without a counter are summed into a net change as before.
+ * <p>
+ * Events whose id was already applied, in this window or an earlier one, are skipped; see
+ * {@link EventDeduplicator}.
+ * <p>
+ * A window is applied when it holds {@code max-events} events, when it is older than
+ * {@code window-ms} (checked on every poll and on container idle events), when it would exceed the
+ * batch endpoint's product limit, or before its partitions are revoked. The last offset of every
+ * partition in the window is sent with the batch and stored by inventory-service in the same
+ * transaction as the changes. They are loaded again whenever a partition is assigned or rewound,
+ * and records at or below them are skipped, so a window that was applied although its call failed is
+ * not applied a second time when it is read again. Kafka commits happen after each window too, but
+ * only as a shortcut: the stored offsets are what keep a window from being applied twice.
+ * <p>
+ * A window the central store does not accept is parked: its events are sent to the retry topics
+ * and its offsets committed, so a failing or slow central store does not hold up the partition.
+ * Parked events are applied one by one by {@link #applyParked}, without source offsets, so before a
+ * window is parked the stored offsets are loaded again: a window they cover was committed although
+ * its call failed, and is treated as applied instead. Only if the offsets cannot be loaded, or
+ * parking fails too, is the window read again after a pause.
+ * <p>
+ * Each consumer thread of the container owns its own window, and all callbacks used here run on that
+ * thread, so windows are never shared.
+ */
+@Component
+public class CentralSyncAggregator implements ConsumerAwareRebalanceListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(CentralSyncAggregator.class);
+
+    private final SyncService syncService;
+    private final EventDeduplicator eventDeduplicator;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final String failedEventsTopic;
+    private final long sendTimeoutMs;
+    private final int maxEvents;
+    private final long windowMs;
+    private final long backoffDelay;
+    private final ThreadLocal<Window> windows = ThreadLocal.withInitial(Window::new);
+    private final ThreadLocal<AppliedOffsets> appliedOffsets = ThreadLocal.withInitial(AppliedOffsets::new);
+
+    public CentralSyncAggregator(SyncService syncService,
+                                 EventDeduplicator eventDeduplicator,
+                                 KafkaTemplate<String, Object> kafkaTemplate,
+                                 @Value("${sync.retry-topics.topic:inventory-events-failed}") String failedEventsTopic,
+                                 @Value("${sync.retry-topics.send-timeout-ms:30000}") long sendTimeoutMs,
+                                 @Value("${sync.aggregation.max-events:5000}") int maxEvents,
+                                 @Value("${sync.aggregation.window-ms:1000}") long windowMs,
+                                 @Value("${sync.retry.backoff-delay:1000}") long backoffDelay) {
+        this.syncService = syncService;
+        this.eventDeduplicator = eventDeduplicator;
+        this.kafkaTemplate = kafkaTemplate;
+        this.failedEventsTopic = failedEventsTopic;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.maxEvents = maxEvents;
+        this.windowMs = windowMs;
+        this.backoffDelay = backoffDelay;
+    }
+
+    public void add(List<ConsumerRecord<String, InventoryEvent>> records, Consumer<?, ?> consumer) {
+        Window window = windows.get();
+        AppliedOffsets applied = appliedOffsets.get();
+        if (applied.isStale() && !load(applied)) {
+            // Without the stored offsets a replayed record cannot be told apart, so the poll is read again
+            Map<TopicPartition, Long> rewindTo = new HashMap<>(window.firstOffsets);
+            for (ConsumerRecord<String, InventoryEvent> pending : records) {
+                rewindTo.merge(new TopicPartition(pending.topic(), pending.partition()), pending.offset(), Math::min);
+            }
+            retryLater(window, consumer, rewindTo);
+            return;
+        }
+
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, InventoryEvent> record = records.get(i);
+            if (applied.covers(record)) {
+                logger.debug("Skipping record {}-{}@{}, already applied", record.topic(), record.partition(), record.offset());
+                window.add(record, false);
+                continue;
+            }
+            if (window.wouldOverflow(record.value()) && !flush(window, consumer)) {
+                // The rest of this poll has not been aggregated, so it has to be read again too
+                Map<TopicPartition, Long> rewindTo = new HashMap<>(window.firstOffsets);
+                for (int j = i; j < records.size(); j++) {
+                    ConsumerRecord<String, InventoryEvent> pending = records.get(j);
+                    rewindTo.merge(new TopicPartition(pending.topic(), pending.partition()), pending.offset(), Math::min);
+                }
+                retryLater(window, consumer, rewindTo);
+                return;
+            }
+            window.add(record, isNew(window, record.value()));
+        }
+
+        if (window.eventCount >= maxEvents || window.ageMs() >= windowMs) {
+            flushOrRetry(window, consumer);
+        }
+    }
+
+    /**
+     * Applies a window that stopped receiving events before it expired. Idle events are published on
+     * the consumer thread, so this sees that consumer's window.
+     */
+    @EventListener
+    public void onIdle(ListenerContainerIdleEvent event) {
+        Window window = windows.get();
+        if (!window.isEmpty()) {
+            flushOrRetry(window, event.getConsumer());
+        }
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        Window window = windows.get();
+        if (window.isEmpty() || flush(window, consumer)) {
+            return;
+        }
+
+        // Revoked partitions are redelivered to their next owner; the ones we keep are read again
+        logger.warn("Discarding unapplied window of {} events on rebalance", window.eventCount);
+        Map<TopicPartition, Long> rewindTo = new HashMap<>(window.firstOffsets);
+        rewindTo.keySet().removeAll(partitions);
+        rewindTo.forEach(consumer::seek);
+        appliedOffsets.get().markStale(rewindTo.keySet());
+        window.clear();
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        appliedOffsets.get().forget(partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        windows.get().clear();
+        appliedOffsets.get().forget(partitions);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+
+        AppliedOffsets applied = appliedOffsets.get();
+        applied.markStale(partitions);
+        if (!load(applied)) {
+            // add() loads them before reading these partitions, and rewinds until it can
+            return;
+        }
+
+        for (TopicPartition partition : partitions) {
+            Long appliedOffset = applied.offsets.get(partition);
+            if (appliedOffset != null && consumer.position(partition) <= appliedOffset) {
+                logger.info("Seeking {} past already applied offset {}", partition, appliedOffset);
+                consumer.seek(partition, appliedOffset + 1);
+            }
+        }
+    }
+
+    /**
+     * Applies an event parked after its window failed, on its own and without source offsets; its id
+     * keeps it from being applied twice. Throws when the central store does not accept it, so the
+     * retry topics try again later.
+     */
+    public void applyParked(InventoryEvent event) {
+        if (event.getEventId() != null && eventDeduplicator.isDuplicate(event.getEventId())) {
+            logger.info("Skipping already applied event {}", event.getEventId());
+            return;
+        }
+
+        Window window = new Window();
+        window.addEvent(event);
+        syncService.applyToCentralStore(window.netChanges, window.counters, Map.of());
+        recordApplied(window);
+    }
+
+    // Loads the stored offsets of the stale partitions; false if inventory-service could not be asked
+    private boolean load(AppliedOffsets applied) {
+        Map<String, Long> stored;
+        try {
+            stored = syncService.getAppliedSourceOffsets();
+        } catch (RuntimeException e) {
+            logger.warn("Could not load applied source offsets of {}: {}", applied.stale, e.getMessage());
+            return false;
+        }
+        applied.update(stored);
+        return true;
+    }
+
+    private boolean isNew(Window window, InventoryEvent event) {
+        if (event == null || event.getEventId() == null) {
+            return true;
+        }
+        if (window.eventIds.contains(event.getEventId()) || eventDeduplicator.isDuplicate(event.getEventId())) {
+            logger.info("Skipping already applied event {}", event.getEventId());
+            return false;
+        }
+        return true;
+    }
+
+    private void flushOrRetry(Window window, Consumer<?, ?> consumer) {
+        if (!flush(window, consumer)) {
+            retryLater(window, consumer, new HashMap<>(window.firstOffsets));
+        }
+    }
+
+    private boolean flush(Window window, Consumer<?, ?> consumer) {
+        Map<String, Long> sourceOffsets = new HashMap<>();
+        window.lastOffsets.forEach((partition, offset) -> sourceOffsets.put(partition.toString(), offset));
+
+        boolean applied = true;
+        try {
+            syncService.applyToCentralStore(window.netChanges, window.counters, sourceOffsets);
+        } catch (RuntimeException e) {
+            logger.error("Failed to apply window of {} events to the central store: {}", window.eventCount, e.getMessage());
+            // A call that timed out may still have committed, and a parked window is applied without its offsets
+            AppliedOffsets stored = appliedOffsets.get();
+            stored.markStale(window.lastOffsets.keySet());
+            if (!load(stored)) {
+                return false;
+            }
+            if (stored.coversAll(window.lastOffsets)) {
+                logger.info("Central store had applied the failed window up to offsets {}", sourceOffsets);
+            } else if (park(window)) {
+                applied = false;
+            } else {
+                return false;
+            }
+        }
+
+        Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+        window.lastOffsets.forEach((partition, offset) -> commits.put(partition, new OffsetAndMetadata(offset + 1)));
+        try {
+            consumer.commitSync(commits);
+        } catch (RuntimeException e) {
+            logger.warn("Failed to commit offsets {}, inventory-service already holds them: {}", commits, e.getMessage());
+        }
+        if (applied) {
+            recordApplied(window);
+            logger.debug("Applied window of {} events as {} product changes", window.eventCount, window.productCount());
+        }
+        window.clear();
+        return true;
+    }
+
+    // Sends the window's events to the first retry topic; false if not all of them could be sent
+    private boolean park(Window window) {
+        List<CompletableFuture<?>> sends = new ArrayList<>(window.records.size());
+        try {
+            for (ConsumerRecord<String, InventoryEvent> record : window.records) {
+                sends.add(kafkaTemplate.send(failedEventsTopic, record.key(), record.value()));
+            }
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException | RuntimeException e) {
+            logger.error("Failed to park {} events on {}: {}", window.records.size(), failedEventsTopic, e.getMessage());
+            return false;
+        }
+
+        logger.warn("Parked {} events on {} for retry", window.records.size(), failedEventsTopic);
+        return true;
+    }
+
+    private void recordApplied(Window window) {
+        try {
+            eventDeduplicator.recordApplied(window.eventIds);
+        } catch (RuntimeException e) {
+            // Redelivery of these records is still caught by the source offsets
+            logger.warn("Failed to record {} applied event ids: {}", window.eventIds.size(), e.getMessage());
+        }
+    }
+
+    private void retryLater(Window window, Consumer<?, ?> consumer, Map<TopicPartition, Long> rewindTo) {
+        window.clear();
+        rewindTo.forEach(consumer::seek);
+        // A failed call may still have committed, so what was applied has to be asked again
+        appliedOffsets.get().markStale(rewindTo.keySet());
+        try {
+            Thread.sleep(backoffDelay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Offsets inventory-service holds as applied, per partition this consumer thread reads. Stale
+     * partitions are the ones whose offsets may have moved since they were loaded.
+     */
+    private static final class AppliedOffsets {
+
+        private final Map<TopicPartition, Long> offsets = new HashMap<>();
+        private final Set<TopicPartition> stale = new HashSet<>();
+
+        private boolean covers(ConsumerRecord<?, ?> record) {
+            Long appliedOffset = offsets.get(new TopicPartition(record.topic(), record.partition()));
+            return appliedOffset != null && record.offset() <= appliedOffset;
+        }
+
+        private boolean coversAll(Map<TopicPartition, Long> lastOffsets) {
+            for (Map.Entry<TopicPartition, Long> last : lastOffsets.entrySet()) {
+                Long appliedOffset = offsets.get(last.getKey());
+                if (appliedOffset == null || appliedOffset < last.getValue()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean isStale() {
+            return !stale.isEmpty();
+        }
+
+        private void markStale(Collection<TopicPartition> partitions) {
+            stale.addAll(partitions);
+        }
+
+        private void update(Map<String, Long> stored) {
+            for (TopicPartition partition : stale) {
+                Long appliedOffset = stored.get(partition.toString());
+                if (appliedOffset != null) {
+                    offsets.put(partition, appliedOffset);
+                }
+            }
+            stale.clear();
+        }
+
+        private void forget(Collection<TopicPartition> partitions) {
+            offsets.keySet().removeAll(partitions);
+            stale.removeAll(partitions);
+        }
+    }
+
+    private static final class Window {
+
+        private final Map<String, Integer> netChanges = new LinkedHashMap<>();
+        private final Map<String, PnCounter> counters = new LinkedHashMap<>();
+        private final Set<String> eventIds = new HashSet<>();
+        // Records whose changes the window holds, to park them if it fails
+        private final List<ConsumerRecord<String, InventoryEvent>> records = new ArrayList<>();
+        private final Map<TopicPartition, Long> firstOffsets = new HashMap<>();
+        private final Map<TopicPartition, Long> lastOffsets = new HashMap<>();
+        private int eventCount;
+        private long openedAt;
+
+        // Skipped events still move the offsets, so they are committed with the window
+        private void add(ConsumerRecord<String, InventoryEvent> record, boolean apply) {
+            if (eventCount++ == 0) {
+                openedAt = System.currentTimeMillis();
+            }
+            TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+            firstOffsets.putIfAbsent(partition, record.offset());
+            lastOffsets.put(partition, record.offset());
+
+            InventoryEvent event = record.value();
+            if (event == null || !apply) {
+                return;
+            }
+            records.add(record);
+            addEvent(event);
+        }
+
+        private void addEvent(InventoryEvent event) {
+            if (event.getEventId() != null) {
+                eventIds.add(event.getEventId());
+            }
+            if ("BATCH_UPDATE".equals(event.getEventType()) && event.getDeltas() != null) {
+                for (InventoryDelta delta : event.getDeltas()) {
+                    addChange(delta.getStoreId(), delta.getProductId(), delta.getQuantity(), delta.getCounter());
+                }
+            } else if (event.getProductId() != null) {
+                addChange(event.getStoreId(), event.getProductId(), event.getQuantity(), event.getCounter());
+            }
+        }
+
+        private void addChange(String storeId, String productId, int quantity, PnCounter counter) {
+            if (counter != null && storeId != null) {
+                counters.computeIfAbsent(productId, id -> new PnCounter()).merge(counter.scoped(storeId));
+            } else {
+                netChanges.merge(productId, quantity, Integer::sum);
+            }
+        }
+
+        // Whether adding the event would take the window past what one batch call accepts
+        private boolean wouldOverflow(InventoryEvent event) {
+            if (isEmpty() || event == null) {
+                return false;
+            }
+
+            int newProducts = 0;
+            if (event.getDeltas() != null) {
+                for (InventoryDelta delta : event.getDeltas()) {
+                    if (!contains(delta.getProductId())) {
+                        newProducts++;
+                    }
+                }
+            } else if (event.getProductId() != null && !contains(event.getProductId())) {
+                newProducts = 1;
+            }
+            return productCount() + newProducts > SyncService.MAX_BATCH_OPERATIONS;
+        }
+
+        private boolean contains(String productId) {
+            return netChanges.containsKey(productId) || counters.containsKey(productId);
+        }
+
+        // Operations the window turns into; a product changed both ways counts twice
+        private int productCount() {
+            return netChanges.size() + counters.size();
+        }
+
+        private long ageMs() {
+            return System.currentTimeMillis() - openedAt;
+        }
+
+        private boolean isEmpty() {
+            return eventCount == 0;
+        }
+
+        private void clear() {
+            netChanges.clear();
+            counters.clear();
+            eventIds.clear();
+            records.clear();
+            firstOffsets.clear();
+            lastOffsets.clear();
+            eventCount = 0;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.mercadolibre.sync.service;
+
+import com.mercadolibre.sync.config.ConflictResolutionProperties;
+import com.mercadolibre.sync.model.ConflictResolutionStrategy;
+import com.mercadolibre.sync.model.InventoryConflict;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Resolves conflicts in bulk with the strategy configured for each store or product.
+ */
+@Component
+public class ConflictResolutionEngine {
+
+    private final ConflictResolutionProperties properties;
+    private final Map<ConflictResolutionStrategy, ConflictResolver> resolvers = new EnumMap<>(ConflictResolutionStrategy.class);
+
+    public ConflictResolutionEngine(ConflictResolutionProperties properties, List<ConflictResolver> customResolvers) {
+        this.properties = properties;
+
+        register(ConflictResolutionStrategy.LAST_WRITE_WINS, ConflictResolutionEngine::lastWriteWins);
+        register(ConflictResolutionStrategy.HIGHER_QUANTITY_WINS,
+                conflict -> Math.max(conflict.getStoreQuantity(), conflict.getCentralQuantity()));
+        register(ConflictResolutionStrategy.LOWER_QUANTITY_WINS,
+                conflict -> Math.min(conflict.getStoreQuantity(), conflict.getCentralQuantity()));
+        register(ConflictResolutionStrategy.MANUAL_REVIEW, conflict -> null);
+        register(ConflictResolutionStrategy.STORE_PRIORITY, InventoryConflict::getStoreQuantity);
+        register(ConflictResolutionStrategy.CENTRAL_PRIORITY, InventoryConflict::getCentralQuantity);
+        register(ConflictResolutionStrategy.MERGE_QUANTITIES,
+                conflict -> conflict.getStoreQuantity() + conflict.getCentralQuantity());
+
+        for (ConflictResolver resolver : customResolvers) {
+            resolvers.put(resolver.strategy(), resolver);
+        }
+    }
+
+    /**
+     * Resolves each conflict in place with its configured strategy. Conflicts the strategy cannot
+     * decide are flagged for manual review. Returns how many were resolved.
+     */
+    public int resolveAll(List<InventoryConflict> conflicts) {
+        LocalDateTime now = LocalDateTime.now();
+        int resolved = 0;
+        for (InventoryConflict conflict : conflicts) {
+            ConflictResolutionStrategy strategy = properties.strategyFor(conflict.getStoreId(), conflict.getProductId());
+            if (resolve(conflict, strategy, now)) {
+                resolved++;
+            }
+        }
+        return resolved;
+    }
+
+    /**
+     * Resolves one conflict with the given strategy, regardless of configuration.
+     */
+    public boolean resolve(InventoryConflict conflict, ConflictResolutionStrategy strategy, LocalDateTime now) {
+        Integer quantity = resolvers.get(strategy).resolve(conflict);
+        conflict.setResolutionStrategy(strategy);
+        if (quantity == null) {
+            conflict.setRequiresManualReview(true);
+            return false;
+        }
+
+        conflict.setResolvedQuantity(Math.max(quantity, 0));
+        conflict.setResolved(true);
+        conflict.setResolvedAt(now);
+        return true;
+    }
+
+    private void register(ConflictResolutionStrategy strategy, Function<InventoryConflict, Integer> resolution) {
+        resolvers.put(strategy, new ConflictResolver() {
+            @Override
+            public ConflictResolutionStrategy strategy() {
+                return strategy;
+            }
+
+            @Override
+            public Integer resolve(InventoryConflict conflict) {
+                return resolution.apply(conflict);
+            }
+        });
+    }
+
+    // Newer side wins; on a tie, or when neither side is dated, the higher quantity wins
+    private static Integer lastWriteWins(InventoryConflict conflict) {
+        LocalDateTime store = conflict.getStoreTimestamp();
+        LocalDateTime central = conflict.getCentralTimestamp();
+        if (store != null && (central == null || store.isAfter(central))) {
+            return conflict.getStoreQuantity();
+        }
+        if (central != null && (store == null || central.isAfter(store))) {
+            return conflict.getCentralQuantity();
+        }
+        return Math.max(conflict.getStoreQuantity(), conflict.getCentralQuantity());
+    }
+}
@@ -1,76 +1,317 @@
 package com.mercadolibre.sync.service;
 
+import com.mercadolibre.common.enums.BatchMode;
+import com.mercadolibre.common.enums.InventoryOperationType;
+import com.mercadolibre.common.exception.ApiException;
+import com.mercadolibre.common.exception.ErrorCode;
+import com.mercadolibre.common.model.IdDictionary;
+import com.mercadolibre.common.model.InventoryBatchRequest;
+import com.mercadolibre.common.model.InventoryBatchResponse;
+import com.mercadolibre.common.model.InventoryOperation;
+import com.mercadolibre.common.model.InventoryOperationResult;
+import com.mercadolibre.sync.client.InventoryClient;
+import com.mercadolibre.sync.model.ConflictResolutionStrategy;
+import com.mercadolibre.sync.model.ConflictReviewRequest;
+import com.mercadolibre.sync.model.InventoryConflict;
+import com.mercadolibre.sync.model.InventoryResponse;
+import com.mercadolibre.sync.model.ReconciliationWatermark;
+import com.mercadolibre.sync.repository.InventoryConflictJdbcRepository;
+import com.mercadolibre.sync.repository.InventoryConflictRepository;
+import com.mercadolibre.sync.repository.ReconciliationWatermarkRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 @Service
 public class ConflictResolutionService {
 
     private static final Logger logger = LoggerFactory.getLogger(ConflictResolutionService.class);
-    @Autowired
-    private RestTemplate restTemplate;
+    private static final String CENTRAL_STORE_ID = "store-000";
+    private final InventoryClient inventoryClient;
+    private final ConflictResolutionEngine conflictResolutionEngine;
+    private final InventoryConflictRepository conflictRepository;
+    private final InventoryConflictJdbcRepository conflictJdbcRepository;
+    private final ReconciliationWatermarkRepository watermarkRepository;
+    private final Duration watermarkOverlap;
+    private final int batchConcurrency;
+    private final Map<String, StoreWatermark> watermarks = new ConcurrentHashMap<>();
+    // Shared by the watermarks, so each keeps the same productId instances instead of a copy per response
+    private final IdDictionary productIds = new IdDictionary();
 
-    public void resolveConflictsForStore(String storeId) {
+    public ConflictResolutionService(InventoryClient inventoryClient,
+                                     ConflictResolutionEngine conflictResolutionEngine,
+                                     InventoryConflictRepository conflictRepository,
+                                     InventoryConflictJdbcRepository conflictJdbcRepository,
+                                     ReconciliationWatermarkRepository watermarkRepository,
+                                     @Value("${sync.reconciliation.watermark-overlap-ms:5000}") long watermarkOverlapMs,
+                                     @Value("${sync.reconciliation.batch-concurrency:4}") int batchConcurrency) {
+        this.inventoryClient = inventoryClient;
+        this.conflictResolutionEngine = conflictResolutionEngine;
+        this.conflictRepository = conflictRepository;
+        this.conflictJdbcRepository = conflictJdbcRepository;
+        this.watermarkRepository = watermarkRepository;
+        this.watermarkOverlap = Duration.ofMillis(watermarkOverlapMs);
+        this.batchConcurrency = batchConcurrency;
+    }
+
+    /**
+     * Reconciles the central store with the rows of a store changed since the previous run. Only the
+     * store's changes are downloaded, starting a little before the last {@code lastUpdated} seen so rows
+     * committed late with an older timestamp (e.g. by the inventory write-behind) are not missed; rows
+     * already handled in that overlap are recognised and skipped.
+     * <p>
+     * The watermark is persisted, and a run's decrements are stored with it before they are sent; a
+     * run cut short is finished first by the next one, with the same batch ids. See
+     * {@link ReconciliationWatermark}.
+     * <p>
+     * Decrements the central store cannot apply are conflicts: they are resolved in bulk with the
+     * configured strategies, applied, and recorded. Returns how many changed products were read.
+     */
+    public int resolveConflictsForStore(String storeId) {
         logger.info("Resolving conflicts for store: {}", storeId);
+        if (CENTRAL_STORE_ID.equalsIgnoreCase(storeId)) {
+            return 0;
+        }
 
+        StoreWatermark cached = watermarks.computeIfAbsent(storeId, id -> new StoreWatermark());
+        // Runs for the same store never overlap, so the watermark is not advanced twice. A lock rather
+        // than synchronized, which would pin a virtual thread to its carrier for the blocking calls below
+        cached.lock.lock();
         try {
-            // 1. Buscar inventário da loja
-            ResponseEntity<List<Map<String, Object>>> storeResponse = restTemplate.exchange(
-                    "http://localhost:8081/api/inventory/" + storeId + "/products",
-                    HttpMethod.GET,
-                    null,
-                    new ParameterizedTypeReference<List<Map<String, Object>>>() {}
-            );
-            List<Map<String, Object>> storeInventory = storeResponse.getBody();
-
-            // 2. Buscar inventário da central
-            ResponseEntity<List<Map<String, Object>>> centralResponse = restTemplate.exchange(
-                    "http://localhost:8081/api/inventory/STORE-000/products",
-                    HttpMethod.GET,
-                    null,
-                    new ParameterizedTypeReference<List<Map<String, Object>>>() {}
-            );
-            List<Map<String, Object>> centralInventory = centralResponse.getBody();
-
-            // 3. Criar mapa da central para acesso rápido
-            Map<String, Map<String, Object>> centralMap = new HashMap<>();
-            for (Map<String, Object> item : centralInventory) {
-                String productId = (String) item.get("productId");
-                centralMap.put(productId, item);
+            ReconciliationWatermark watermark = cached.load(storeId, watermarkRepository, productIds);
+            if (watermark.hasPending()) {
+                logger.info("Finishing reconciliation run {} of store {}", watermark.getSequence(), storeId);
+                applyPending(storeId, watermark);
             }
 
-            // 4. Subtrair da central os produtos que existem na loja
-            for (Map<String, Object> storeItem : storeInventory) {
-                String productId = (String) storeItem.get("productId");
-                Integer quantity = (Integer) storeItem.get("quantity");
-
-                if (productId != null && quantity != null && quantity > 0 && centralMap.containsKey(productId)) {
-                    String decrementUrl = String.format(
-                            "http://localhost:8081/api/inventory/store-000/%s/decrement?quantity=%d",
-                            productId, quantity
-                    );
+            // 1. Buscar as alterações da loja desde a última reconciliação
+            List<InventoryResponse> changes = inventoryClient
+                    .getChangesSince(storeId, watermark.since(watermarkOverlap))
+                    .block();
 
-                    restTemplate.postForEntity(decrementUrl, null, Void.class);
-                    logger.info("Decremented {} units of product {} from central inventory", quantity, productId);
+            // 2. Subtrair da central os produtos alterados na loja
+            List<InventoryResponse> decrements = new ArrayList<>();
+            for (InventoryResponse change : changes) {
+                if (change.getQuantity() > 0 && !watermark.isProcessed(change)) {
+                    decrements.add(change);
                 }
             }
+            watermark.advance(changes, decrements, watermarkOverlap, productIds);
+            watermarkRepository.save(watermark);
+
+            // 3. Resolver os conflitos (decrementos rejeitados pela central)
+            int conflicts = applyPending(storeId, watermark);
+            logger.info("Reconciled {} changed products of store {} ({} central decrements, {} conflicts)",
+                    changes.size(), storeId, decrements.size(), conflicts);
+            return changes.size();
 
         } catch (Exception e) {
+            // Read again next run, in case it moved here but could not be saved
+            cached.watermark = null;
             logger.error("Error resolving conflicts for store {}: {}", storeId, e.getMessage(), e);
+            // Rethrown so the store is counted as failed instead of synced
+            throw ApiException.syncConflict("Failed to resolve conflicts for store " + storeId + ": " + e.getMessage());
+        } finally {
+            cached.lock.unlock();
+        }
+    }
+
+    // Sends the pending decrements, resolves their conflicts and clears them; returns the conflict count
+    private int applyPending(String storeId, ReconciliationWatermark watermark) {
+        if (!watermark.hasPending()) {
+            return 0;
+        }
+        List<InventoryConflict> conflicts = decrementCentral(storeId, watermark.getPending(), watermark.getSequence());
+        if (!conflicts.isEmpty()) {
+            resolveConflicts(storeId, conflicts);
+        }
+        watermark.clearPending();
+        watermarkRepository.save(watermark);
+        return conflicts.size();
+    }
+
+    /**
+     * Sends the decrements in chunks the batch endpoint accepts, up to {@code batchConcurrency} chunks
+     * in flight at once over the pooled connections. Chunks touch distinct products, so their order
+     * does not matter. Each chunk carries {@code reconcile:<store>:<chunk>} at the run's sequence as
+     * its source offset, so inventory-service skips a chunk it already applied for this run. Returns a
+     * conflict for every decrement the central store could not cover.
+     */
+    private List<InventoryConflict> decrementCentral(String storeId, List<InventoryResponse> changes, long sequence) {
+        List<List<InventoryResponse>> chunks = new ArrayList<>();
+        for (int from = 0; from < changes.size(); from += SyncService.MAX_BATCH_OPERATIONS) {
+            chunks.add(changes.subList(from, Math.min(from + SyncService.MAX_BATCH_OPERATIONS, changes.size())));
+        }
+
+        return Flux.range(0, chunks.size())
+                .flatMap(index -> decrementChunk(storeId, chunks.get(index),
+                        Map.of(batchId(storeId, index), sequence)), batchConcurrency)
+                .flatMapIterable(conflicts -> conflicts)
+                .collectList()
+                .blockOptional()
+                .orElse(List.of());
+    }
+
+    private static String batchId(String storeId, int chunk) {
+        return "reconcile:" + storeId + ":" + chunk;
+    }
+
+    private Mono<List<InventoryConflict>> decrementChunk(String storeId, List<InventoryResponse> chunk,
+                                                         Map<String, Long> sourceOffsets) {
+        List<InventoryOperation> operations = new ArrayList<>(chunk.size());
+        for (InventoryResponse change : chunk) {
+            operations.add(new InventoryOperation(CENTRAL_STORE_ID, change.getProductId(), InventoryOperationType.DECREMENT, change.getQuantity()));
+        }
+
+        // No events: these are the central store's side of changes that were already published
+        InventoryBatchRequest request = new InventoryBatchRequest(BatchMode.BEST_EFFORT, false, operations);
+        request.setSourceOffsets(sourceOffsets);
+        return inventoryClient.applyBatch(request)
+                .map(result -> {
+                    if (result.isDuplicate()) {
+                        logger.info("Central store had already applied decrements {}", sourceOffsets);
+                        return List.<InventoryConflict>of();
+                    }
+                    if (result.getFailureCount() == 0) {
+                        return List.<InventoryConflict>of();
+                    }
+
+                    List<InventoryConflict> conflicts = new ArrayList<>(result.getFailureCount());
+                    int unexplained = 0;
+                    for (InventoryOperationResult operationResult : result.getResults()) {
+                        if (operationResult.isSuccess()) {
+                            continue;
+                        }
+                        Integer centralQuantity = centralQuantityOf(operationResult);
+                        if (centralQuantity == null) {
+                            unexplained++;
+                            continue;
+                        }
+                        InventoryResponse change = chunk.get(operationResult.getIndex());
+                        // When the central row last changed is not reported, so last-write-wins favours the store
+                        conflicts.add(new InventoryConflict(storeId, change.getProductId(), change.getQuantity(),
+                                centralQuantity, change.getLastUpdated(), null));
+                    }
+                    if (unexplained > 0) {
+                        logger.warn("Central store rejected {} decrements of store {} for other reasons", unexplained, storeId);
+                    }
+                    return conflicts;
+                })
+                .defaultIfEmpty(List.of());
+    }
+
+    // Quantity the central store holds according to a rejected decrement, or null if the rejection is not a conflict
+    private static Integer centralQuantityOf(InventoryOperationResult result) {
+        if (ErrorCode.INVENTORY_NOT_FOUND.equals(result.getErrorCode())) {
+            return 0;
+        }
+        if (ErrorCode.INSUFFICIENT_INVENTORY.equals(result.getErrorCode())) {
+            return result.getQuantity();
+        }
+        return null;
+    }
+
+    /**
+     * Resolves a pass's conflicts with the configured strategies, sets the chosen central quantities
+     * and records every conflict, including those left for manual review. Logs once per pass.
+     */
+    private void resolveConflicts(String storeId, List<InventoryConflict> conflicts) {
+        int resolved = conflictResolutionEngine.resolveAll(conflicts);
+
+        List<InventoryOperation> sets = new ArrayList<>(resolved);
+        for (InventoryConflict conflict : conflicts) {
+            if (conflict.isResolved() && conflict.getResolvedQuantity() != conflict.getCentralQuantity()) {
+                sets.add(new InventoryOperation(CENTRAL_STORE_ID, conflict.getProductId(), InventoryOperationType.SET, conflict.getResolvedQuantity()));
+            }
         }
+        setCentral(sets);
+        conflictJdbcRepository.batchInsert(conflicts);
+
+        logger.info("Store {}: {} conflicts, {} resolved automatically, {} queued for review",
+                storeId, conflicts.size(), resolved, conflicts.size() - resolved);
     }
 
+    /**
+     * Records changes the central store rejected while synced events were applied, for manual review:
+     * they are sums over stores, with no single store side or timestamp a strategy could weigh.
+     */
+    public void queueForReview(List<InventoryConflict> conflicts) {
+        for (InventoryConflict conflict : conflicts) {
+            conflict.setRequiresManualReview(true);
+        }
+        conflictJdbcRepository.batchInsert(conflicts);
+        logger.warn("Queued {} central changes rejected during event sync for review", conflicts.size());
+    }
+
+    private void setCentral(List<InventoryOperation> operations) {
+        List<InventoryBatchRequest> requests = new ArrayList<>();
+        for (int from = 0; from < operations.size(); from += SyncService.MAX_BATCH_OPERATIONS) {
+            requests.add(new InventoryBatchRequest(BatchMode.BEST_EFFORT, false, new ArrayList<>(operations.subList(from,
+                    Math.min(from + SyncService.MAX_BATCH_OPERATIONS, operations.size())))));
+        }
+
+        Flux.fromIterable(requests)
+                .flatMap(inventoryClient::applyBatch, batchConcurrency)
+                .then()
+                .block();
+    }
+
+    public List<InventoryConflict> getReviewQueue(int limit) {
+        return conflictRepository.findByRequiresManualReviewTrueAndResolvedFalseOrderByConflictDetectedAtAsc(
+                PageRequest.of(0, limit));
+    }
+
+    public InventoryConflict getConflict(String conflictId) {
+        return conflictRepository.findById(conflictId)
+                .orElseThrow(() -> ApiException.notFound("Conflict not found: " + conflictId));
+    }
+
+    /**
+     * Settles a conflict from the review queue with an explicit central quantity or a strategy, and
+     * applies the result to the central store.
+     */
+    public InventoryConflict resolveManually(String conflictId, ConflictReviewRequest request) {
+        InventoryConflict conflict = getConflict(conflictId);
+        if (conflict.isResolved()) {
+            throw ApiException.badRequest("Conflict " + conflictId + " is already resolved");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (request.getQuantity() != null) {
+            if (request.getQuantity() < 0) {
+                throw ApiException.validationError("Quantity cannot be negative");
+            }
+            conflict.setResolutionStrategy(ConflictResolutionStrategy.MANUAL_REVIEW);
+            conflict.setResolvedQuantity(request.getQuantity());
+            conflict.setResolved(true);
+            conflict.setResolvedAt(now);
+        } else if (request.getStrategy() == null || request.getStrategy() == ConflictResolutionStrategy.MANUAL_REVIEW
+                || !conflictResolutionEngine.resolve(conflict, request.getStrategy(), now)) {
+            throw ApiException.validationError("A quantity or a strategy that decides the conflict is required");
+        }
+
+        if (conflict.getResolvedQuantity() != conflict.getCentralQuantity()) {
+            setCentral(List.of(new InventoryOperation(CENTRAL_STORE_ID, conflict.getProductId(), InventoryOperationType.SET,
+                    conflict.getResolvedQuantity())));
+        }
+        conflict.setResolutionNotes(request.getNotes());
+        logger.info("Conflict {} resolved manually: central quantity of product {} set to {}",
+                conflictId, conflict.getProductId(), conflict.getResolvedQuantity());
+        return conflictRepository.save(conflict);
+    }
 
     private void simulateConflictResolution(String storeId) {
         // Simulate different conflict scenarios and resolution
@@ -92,28 +333,23 @@ public class ConflictResolutionService {
         logger.info("Conflict resolution completed for store: {}", storeId);
     }
 
-    public String resolveInventoryConflict(String storeId, String productId,
-                                           int storeQuantity, LocalDateTime storeTimestamp,
-                                           int centralQuantity, LocalDateTime centralTimestamp) {
-
-        logger.debug("Resolving inventory conflict for store: {}, product: {}", storeId, productId);
-
-        // Last write wins strategy
-        if (storeTimestamp.isAfter(centralTimestamp)) {
-            logger.info("Using store data (newer timestamp) for store: {}, product: {}", storeId, productId);
-            return "STORE_DATA_USED";
-        } else if (centralTimestamp.isAfter(storeTimestamp)) {
-            logger.info("Using central data (newer timestamp) for store: {}, product: {}", storeId, productId);
-            return "CENTRAL_DATA_USED";
-        } else {
-            // Same timestamp, use higher quantity (or other business rule)
-            if (storeQuantity > centralQuantity) {
-                logger.info("Using store data (higher quantity) for store: {}, product: {}", storeId, productId);
-                return "STORE_DATA_USED";
-            } else {
-                logger.info("Using central data for store: {}, product: {}", storeId, productId);
-                return "CENTRAL_DATA_USED";
+    // Lock and cached watermark of a store; the watermark is read on first use and after a failed run
+    private static final class StoreWatermark {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private ReconciliationWatermark watermark;
+
+        private ReconciliationWatermark load(String storeId, ReconciliationWatermarkRepository repository,
+                                             IdDictionary productIds) {
+            if (watermark == null) {
+                ReconciliationWatermark stored = repository.findById(storeId)
+                        .orElseGet(() -> new ReconciliationWatermark(storeId));
+                Map<String, LocalDateTime> recent = new HashMap<>();
+                stored.getRecent().forEach((productId, lastUpdated) -> recent.put(productIds.intern(productId), lastUpdated));
+                stored.setRecent(recent);
+                watermark = stored;
             }
+            return watermark;
         }
     }
 }
@@ -0,0 +1,19 @@
+package com.mercadolibre.sync.service;
+
+import com.mercadolibre.sync.model.ConflictResolutionStrategy;
+import com.mercadolibre.sync.model.InventoryConflict;
+
+/**
+ * Implementation of one {@link ConflictResolutionStrategy}. Built-in resolvers exist for every
+ * strategy; a bean of this type replaces the built-in one for its strategy.
+ */
+public interface ConflictResolver {
+
+    ConflictResolutionStrategy strategy();
+
+    /**
+     * Returns the quantity the central store should hold, or {@code null} if the conflict needs a
+     * person to decide. Called once per conflict of a bulk pass, so it should not log or do I/O.
+     */
+    Integer resolve(InventoryConflict conflict);
+}
@@ -0,0 +1,105 @@
+package com.mercadolibre.sync.service;
+
+import com.mercadolibre.common.model.InventoryEvent;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends dead-lettered inventory events back to the start of the retry pipeline, e.g. once the
+ * central store problem that exhausted their retries is fixed.
+ */
+@Service
+public class DeadLetterReplayService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterReplayService.class);
+    // Committed offsets of this group mark how far the dead-letter topic has been replayed
+    private static final String REPLAY_GROUP = "sync-service-dlt-replay";
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(2);
+
+    private final ConsumerFactory<String, InventoryEvent> consumerFactory;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final String failedEventsTopic;
+    private final String deadLetterTopic;
+    private final long sendTimeoutMs;
+
+    public DeadLetterReplayService(ConsumerFactory<String, InventoryEvent> consumerFactory,
+                                   KafkaTemplate<String, Object> kafkaTemplate,
+                                   @Value("${sync.retry-topics.topic:inventory-events-failed}") String failedEventsTopic,
+                                   @Value("${sync.retry-topics.send-timeout-ms:30000}") long sendTimeoutMs) {
+        this.consumerFactory = consumerFactory;
+        this.kafkaTemplate = kafkaTemplate;
+        this.failedEventsTopic = failedEventsTopic;
+        this.deadLetterTopic = failedEventsTopic + "-dlt";
+        this.sendTimeoutMs = sendTimeoutMs;
+    }
+
+    /**
+     * Replays up to {@code limit} dead letters not replayed before, oldest first per partition, and
+     * returns how many were sent. Replays run one at a time.
+     */
+    public synchronized int replay(int limit) {
+        try (Consumer<String, InventoryEvent> consumer = consumerFactory.createConsumer(REPLAY_GROUP, "replay")) {
+            List<PartitionInfo> partitionInfos = consumer.partitionsFor(deadLetterTopic);
+            if (partitionInfos == null || partitionInfos.isEmpty()) {
+                return 0;
+            }
+            List<TopicPartition> partitions = new ArrayList<>(partitionInfos.size());
+            for (PartitionInfo info : partitionInfos) {
+                partitions.add(new TopicPartition(info.topic(), info.partition()));
+            }
+            consumer.assign(partitions);
+
+            int replayed = 0;
+            List<CompletableFuture<?>> sends = new ArrayList<>();
+            Map<TopicPartition, OffsetAndMetadata> commits = new HashMap<>();
+            while (replayed < limit) {
+                ConsumerRecords<String, InventoryEvent> records = consumer.poll(POLL_TIMEOUT);
+                if (records.isEmpty()) {
+                    break;
+                }
+                for (ConsumerRecord<String, InventoryEvent> record : records) {
+                    if (replayed == limit) {
+                        break;
+                    }
+                    if (record.value() != null) {
+                        sends.add(kafkaTemplate.send(failedEventsTopic, record.key(), record.value()));
+                        replayed++;
+                    }
+                    commits.put(new TopicPartition(record.topic(), record.partition()), new OffsetAndMetadata(record.offset() + 1));
+                }
+            }
+
+            // Progress is only committed once every replayed event is back on the retry pipeline
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture[0])).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+            if (!commits.isEmpty()) {
+                consumer.commitSync(commits);
+            }
+            logger.info("Replayed {} dead-lettered inventory events to {}", replayed, failedEventsTopic);
+            return replayed;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while replaying dead letters", e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not replay dead letters from " + deadLetterTopic + ": " + e.getMessage(), e);
+        }
+    }
+}
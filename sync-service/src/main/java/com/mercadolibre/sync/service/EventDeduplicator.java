@@ -0,0 +1,161 @@
+package com.mercadolibre.sync.service;
+
+import com.mercadolibre.sync.repository.ProcessedEventJdbcRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Remembers the ids of events applied to the central store for {@code retention-ms}, so an event
+ * published twice (e.g. re-sent by the inventory outbox relay after a crash, under a new Kafka offset)
+ * is applied once. Source offsets already cover redelivery of the same records after a rebalance.
+ * <p>
+ * Ids are kept in two rotating Bloom filters, each covering half the retention, backed by the
+ * {@code processed_event} table. A filter miss proves an event is new, so only the rare hits (real
+ * duplicates and false positives) are checked against the table. The filters are rebuilt from the
+ * table on startup.
+ */
+@Component
+public class EventDeduplicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventDeduplicator.class);
+
+    private final ProcessedEventJdbcRepository processedEventRepository;
+    private final long retentionMs;
+    private final int expectedEvents;
+    private final double falsePositiveRate;
+    // Rotation writes previous before current, so readers checking current first never miss a generation
+    private volatile BloomFilter current;
+    private volatile BloomFilter previous;
+    private volatile long rotatedAt;
+
+    public EventDeduplicator(ProcessedEventJdbcRepository processedEventRepository,
+                             @Value("${sync.dedup.retention-ms:86400000}") long retentionMs,
+                             @Value("${sync.dedup.expected-events:1000000}") int expectedEvents,
+                             @Value("${sync.dedup.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.processedEventRepository = processedEventRepository;
+        this.retentionMs = retentionMs;
+        this.expectedEvents = expectedEvents;
+        this.falsePositiveRate = falsePositiveRate;
+        this.previous = new BloomFilter(expectedEvents, falsePositiveRate);
+        this.current = new BloomFilter(expectedEvents, falsePositiveRate);
+        this.rotatedAt = System.currentTimeMillis();
+    }
+
+    @PostConstruct
+    void load() {
+        BloomFilter filter = current;
+        int[] loaded = new int[1];
+        processedEventRepository.forEachSince(System.currentTimeMillis() - retentionMs, eventId -> {
+            filter.put(eventId);
+            loaded[0]++;
+        });
+        logger.info("Loaded {} applied event ids into the deduplication filter", loaded[0]);
+    }
+
+    public boolean isDuplicate(String eventId) {
+        if (eventId == null) {
+            return false;
+        }
+        if (!current.mightContain(eventId) && !previous.mightContain(eventId)) {
+            return false;
+        }
+        return processedEventRepository.exists(eventId);
+    }
+
+    /**
+     * Records events whose changes reached the central store.
+     */
+    public void recordApplied(Collection<String> eventIds) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        processedEventRepository.insertAll(eventIds, System.currentTimeMillis());
+        BloomFilter filter = current;
+        for (String eventId : eventIds) {
+            filter.put(eventId);
+        }
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void rotate() {
+        long now = System.currentTimeMillis();
+        if (now - rotatedAt < retentionMs / 2) {
+            return;
+        }
+
+        previous = current;
+        current = new BloomFilter(expectedEvents, falsePositiveRate);
+        rotatedAt = now;
+        int deleted = processedEventRepository.deleteBefore(now - retentionMs);
+        logger.info("Rotated the deduplication filter, forgot {} event ids", deleted);
+    }
+
+    /**
+     * Bloom filter over a lock-free bit array, safe for concurrent puts and reads. Positions come from
+     * two 64-bit hashes combined as {@code h1 + i * h2}.
+     */
+    private static final class BloomFilter {
+
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+
+        private BloomFilter(int expectedInsertions, double falsePositiveRate) {
+            long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.words = new AtomicLongArray((int) Math.max(1, (bits + 63) / 64));
+            this.bitCount = words.length() * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        }
+
+        private void put(String value) {
+            long h1 = hash(value);
+            long h2 = mix(h1) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long bits = words.get(word);
+                while ((bits & mask) == 0 && !words.compareAndSet(word, bits, bits | mask)) {
+                    bits = words.get(word);
+                }
+            }
+        }
+
+        private boolean mightContain(String value) {
+            long h1 = hash(value);
+            long h2 = mix(h1) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // 64-bit FNV-1a over the UTF-8 bytes, finished with a mix so nearby ids spread out
+        private static long hash(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                hash ^= b;
+                hash *= 0x100000001b3L;
+            }
+            return mix(hash);
+        }
+
+        // SplitMix64 finalizer
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
@@ -1,183 +1,364 @@
 package com.mercadolibre.sync.service;
 
-import com.mercadolibre.common.model.ApiResponse;
-import com.mercadolibre.common.model.InventoryEvent;
-import com.mercadolibre.sync.model.InventoryResponse;
+import com.mercadolibre.common.enums.BatchMode;
+import com.mercadolibre.common.enums.InventoryOperationType;
+import com.mercadolibre.common.exception.ApiException;
+import com.mercadolibre.common.model.InventoryBatchRequest;
+import com.mercadolibre.common.model.InventoryBatchResponse;
+import com.mercadolibre.common.model.InventoryOperation;
+import com.mercadolibre.common.model.InventoryOperationResult;
+import com.mercadolibre.common.model.PnCounter;
+import com.mercadolibre.sync.client.InventoryClient;
+import com.mercadolibre.sync.model.InventoryConflict;
 import com.mercadolibre.sync.model.SyncStatus;
+import com.mercadolibre.sync.repository.SyncStatusRepository;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
-import java.io.SyncFailedException;
 import java.time.LocalDateTime;
-import java.util.Arrays;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class SyncService {
 
     private static final Logger logger = LoggerFactory.getLogger(SyncService.class);
+    private static final String CENTRAL_STORE_ID = "store-000";
+    // Upper bound of operations accepted by the batch endpoint
+    public static final int MAX_BATCH_OPERATIONS = 1000;
     private final ConflictResolutionService conflictResolutionService;
-    @Autowired
-    private RestTemplate restTemplate;
-
-
-    public SyncService(ConflictResolutionService conflictResolutionService) {
+    private final InventoryClient inventoryClient;
+    private final SyncStatusRepository syncStatusRepository;
+    private final ExecutorService storeSyncExecutor;
+    private final Semaphore storeSyncPermits;
+    private final long storeTimeoutMs;
+    private final Map<String, RunningSync> runningSyncs = new ConcurrentHashMap<>();
+
+    public SyncService(ConflictResolutionService conflictResolutionService,
+                       InventoryClient inventoryClient,
+                       SyncStatusRepository syncStatusRepository,
+                       ExecutorService storeSyncExecutor,
+                       @Value("${sync.full-sync.concurrency:16}") int concurrency,
+                       @Value("${sync.full-sync.store-timeout-ms:60000}") long storeTimeoutMs) {
         this.conflictResolutionService = conflictResolutionService;
+        this.inventoryClient = inventoryClient;
+        this.syncStatusRepository = syncStatusRepository;
+        this.storeSyncExecutor = storeSyncExecutor;
+        this.storeSyncPermits = new Semaphore(concurrency);
+        this.storeTimeoutMs = storeTimeoutMs;
     }
 
     @Scheduled(fixedRate = 300000) // Every 5 minutes
     public void scheduledSync() {
         logger.info("Starting scheduled synchronization");
-        syncAllStores();
+        submitFullSync();
     }
 
-    @Async
-    public CompletableFuture<SyncStatus> syncAllStores() {
-        SyncStatus status = new SyncStatus();
-        status.setStartTime(LocalDateTime.now());
-        status.setType("FULL_SYNC");
+    @PostConstruct
+    void failInterruptedSyncs() {
+        int failed = syncStatusRepository.failUnfinished(LocalDateTime.now(), "Interrupted by a restart of the sync service");
+        if (failed > 0) {
+            logger.warn("Marked {} syncs left unfinished by the previous run as failed", failed);
+        }
+    }
 
-        try {
-            // Buscar IDs das lojas do endpoint REST
-            ResponseEntity<String[]> response = restTemplate.getForEntity(
-                    "http://inventory-service:8081/api/stores/ids",
-                    String[].class
-            );
+    /**
+     * Starts a sync of every store in the background and returns its job, which can be polled and
+     * cancelled by id. Each store's part is recorded as its own row with its duration, the changed
+     * products it reconciled and the resulting throughput.
+     */
+    public SyncStatus submitFullSync() {
+        SyncStatus job = new SyncStatus();
+        job.setType("FULL_SYNC");
+        return start(job, this::runFullSync);
+    }
 
-            List<String> storeIds = Arrays.asList(response.getBody());
+    public SyncStatus submitStoreSync(String storeId) {
+        SyncStatus job = new SyncStatus();
+        job.setStoreId(storeId);
+        job.setType("STORE_SYNC");
+        return start(job, this::runStoreSync);
+    }
 
-            if (storeIds.isEmpty()) {
-                logger.warn("No stores found to synchronize");
-            }
+    /**
+     * Live status of a running sync, or the recorded one of a finished sync.
+     */
+    public SyncStatus getSyncStatus(String syncId) {
+        RunningSync running = runningSyncs.get(syncId);
+        if (running != null) {
+            return running.status;
+        }
+        return syncStatusRepository.findById(syncId)
+                .orElseThrow(() -> ApiException.notFound("Sync not found: " + syncId));
+    }
 
-            logger.info("Found {} stores to sync: {}", storeIds.size(), storeIds);
+    public List<SyncStatus> getSyncHistory(int limit) {
+        return syncStatusRepository.findByParentIdIsNullOrderByStartTimeDesc(PageRequest.of(0, limit));
+    }
 
-            // assume q a loja 000 tem todos os produtos cadastrados
-            storeIds.forEach(storeId -> {
-                try {
-                    syncStore(storeId);
-                    status.incrementSuccessCount();
-                } catch (Exception e) {
-                    logger.error("Failed to sync store {}: {}", storeId, e.getMessage());
-                    status.incrementFailureCount();
-                }
-            });
+    // Store syncs of a full sync, slowest first
+    public List<SyncStatus> getStoreSyncs(String syncId) {
+        getSyncStatus(syncId);
+        return syncStatusRepository.findByParentIdOrderByDurationDesc(syncId);
+    }
+
+    /**
+     * Stops a running sync: no further stores are started and the sync is recorded as cancelled. Store
+     * syncs already under way are left to finish, since stopping one halfway through its batches could
+     * apply part of its changes twice, and are still recorded.
+     */
+    public SyncStatus cancelSync(String syncId) {
+        RunningSync running = runningSyncs.get(syncId);
+        if (running == null) {
+            getSyncStatus(syncId);
+            throw ApiException.badRequest("Sync " + syncId + " is not running");
+        }
+        running.cancel();
+        logger.info("Cancelling sync {}", syncId);
+        return running.status;
+    }
+
+    private SyncStatus start(SyncStatus status, SyncJob job) {
+        syncStatusRepository.save(status);
+        RunningSync running = new RunningSync(status);
+        runningSyncs.put(status.getId(), running);
+        storeSyncExecutor.execute(() -> run(running, job));
+        return status;
+    }
+
+    private void run(RunningSync running, SyncJob job) {
+        SyncStatus status = running.status;
+        try {
+            running.attach();
+            status.setStartTime(LocalDateTime.now());
+            status.setStatus("RUNNING");
+            syncStatusRepository.save(status);
 
-            status.setEndTime(LocalDateTime.now());
-            status.setStatus("COMPLETED");
+            job.run(status);
+            status.finish("COMPLETED");
             logger.info("Synchronization completed: {}", status);
 
         } catch (Exception e) {
-            status.setEndTime(LocalDateTime.now());
-            status.setStatus("FAILED");
-            status.setErrorMessage(e.getMessage());
-            logger.error("Synchronization failed: {}", e.getMessage());
+            if (running.cancelled) {
+                status.finish("CANCELLED");
+                logger.info("Synchronization cancelled: {}", status);
+            } else {
+                status.setErrorMessage(e.getMessage());
+                status.finish("FAILED");
+                logger.error("Synchronization {} failed: {}", status.getId(), e.getMessage());
+            }
+        } finally {
+            running.detach();
+            save(status);
+            runningSyncs.remove(status.getId());
         }
-
-        return CompletableFuture.completedFuture(status);
     }
 
-    @Async
-    public CompletableFuture<SyncStatus> syncStore(String storeId) {
-        SyncStatus status = new SyncStatus();
-        status.setStartTime(LocalDateTime.now());
-        status.setStoreId(storeId);
-        status.setType("STORE_SYNC");
-
-        try {
-            logger.info("Syncing store: {}", storeId);
+    private void runFullSync(SyncStatus job) throws Exception {
+        // Buscar IDs das lojas do endpoint REST
+        List<String> storeIds = inventoryClient.getStoreIds().block();
 
-            // Simulate sync process with conflict resolution
-            conflictResolutionService.resolveConflictsForStore(storeId);
+        if (storeIds.isEmpty()) {
+            logger.warn("No stores found to synchronize");
+        }
 
+        logger.info("Found {} stores to sync: {}", storeIds.size(), storeIds);
 
+        // assume q a loja 000 tem todos os produtos cadastrados
+        List<CompletableFuture<Void>> storeSyncs = new ArrayList<>(storeIds.size());
+        for (String storeId : storeIds) {
+            storeSyncs.add(startStoreSync(storeId, job));
+        }
+        // Interruptible, unlike join(), so a cancelled sync stops waiting
+        CompletableFuture.allOf(storeSyncs.toArray(new CompletableFuture[0])).get();
+    }
 
-            status.setEndTime(LocalDateTime.now());
-            status.setStatus("COMPLETED");
-            status.incrementSuccessCount();
+    /**
+     * Starts one store sync once a permit is free, so at most {@code sync.full-sync.concurrency} run
+     * at a time and the per-store timeout only counts running time. A timed-out store is counted as
+     * failed, but keeps its permit until its reconciliation actually ends, so stores left running in
+     * the background still count towards the limit.
+     */
+    private CompletableFuture<Void> startStoreSync(String storeId, SyncStatus job) throws InterruptedException {
+        storeSyncPermits.acquire();
+        SyncStatus store = new SyncStatus();
+        store.setParentId(job.getId());
+        store.setStoreId(storeId);
+        store.setType("STORE_SYNC");
+        store.setStatus("RUNNING");
+        CompletableFuture<Integer> reconciliation = CompletableFuture
+                .supplyAsync(() -> conflictResolutionService.resolveConflictsForStore(storeId), storeSyncExecutor);
+        reconciliation.whenComplete((items, error) -> storeSyncPermits.release());
+        // The timeout completes a copy, so it only decides what is reported and not when the permit is freed
+        return reconciliation.copy()
+                .orTimeout(storeTimeoutMs, TimeUnit.MILLISECONDS)
+                // Async: timeouts complete on the JDK's shared delay thread, which must not wait on the database
+                .handleAsync((items, error) -> {
+                    if (error == null) {
+                        store.setItemsProcessed(items);
+                        store.finish("COMPLETED");
+                    } else {
+                        Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                        String reason = cause instanceof TimeoutException
+                                ? "timed out after " + storeTimeoutMs + " ms"
+                                : cause.getMessage();
+                        logger.error("Failed to sync store {}: {}", storeId, reason);
+                        store.setErrorMessage(reason);
+                        store.finish("FAILED");
+                    }
+                    job.recordStore(store);
+                    save(store);
+                    return null;
+                }, storeSyncExecutor);
+    }
 
-            logger.info("Store {} synchronized successfully", storeId);
+    private void runStoreSync(SyncStatus status) throws InterruptedException {
+        String storeId = status.getStoreId();
+        logger.info("Syncing store: {}", storeId);
+        try {
+            // Run apart so a cancel only stops the wait, never a reconciliation halfway through its batches
+            status.setItemsProcessed(CompletableFuture
+                    .supplyAsync(() -> conflictResolutionService.resolveConflictsForStore(storeId), storeSyncExecutor)
+                    .get());
+            status.setSuccessCount(1);
+        } catch (ExecutionException e) {
+            status.setFailureCount(1);
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        }
+    }
 
-        } catch (Exception e) {
-            status.setEndTime(LocalDateTime.now());
-            status.setStatus("FAILED");
-            status.setErrorMessage(e.getMessage());
-            status.incrementFailureCount();
+    // The history must not fail the sync it describes
+    private void save(SyncStatus status) {
+        try {
+            syncStatusRepository.save(status);
+        } catch (RuntimeException e) {
+            logger.warn("Could not record sync {}: {}", status.getId(), e.getMessage());
+        }
+    }
 
-            logger.error("Failed to sync store {}: {}", storeId, e.getMessage());
+    /**
+     * Applies per-product changes to the central store in one batch call: counters are merged into the
+     * central rows, and net changes from events without a counter are added to them. The source offsets
+     * are stored by inventory-service together with the changes, which makes a retried call a no-op.
+     * Failed calls throw.
+     */
+    public void applyToCentralStore(Map<String, Integer> netChanges, Map<String, PnCounter> counters,
+                                    Map<String, Long> sourceOffsets) {
+        List<InventoryOperation> operations = new ArrayList<>(netChanges.size() + counters.size());
+        counters.forEach((productId, counter) -> {
+            InventoryOperation merge = new InventoryOperation(CENTRAL_STORE_ID, productId, InventoryOperationType.MERGE, 0);
+            merge.setCounter(counter);
+            operations.add(merge);
+        });
+        netChanges.forEach((productId, quantity) -> {
+            if (quantity > 0) {
+                operations.add(new InventoryOperation(CENTRAL_STORE_ID, productId, InventoryOperationType.INCREMENT, quantity));
+            } else if (quantity < 0) {
+                operations.add(new InventoryOperation(CENTRAL_STORE_ID, productId, InventoryOperationType.DECREMENT, -quantity));
+            }
+        });
+        if (operations.size() > MAX_BATCH_OPERATIONS) {
+            throw new IllegalArgumentException("At most " + MAX_BATCH_OPERATIONS + " products can be applied at once");
+        }
+        if (operations.isEmpty()) {
+            // Everything cancelled out; committing the Kafka offsets is enough
+            return;
         }
 
-        return CompletableFuture.completedFuture(status);
+        applyCentralBatch(operations, sourceOffsets);
+        logger.info("Applied {} net changes to the central store up to offsets {}", operations.size(), sourceOffsets);
     }
 
-    public SyncStatus getSyncStatus(String syncId) {
-        // In a real implementation, this would query a database
-        SyncStatus status = new SyncStatus();
-        status.setId(syncId);
-        status.setStatus("COMPLETED");
-        status.setStartTime(LocalDateTime.now().minusMinutes(5));
-        status.setEndTime(LocalDateTime.now());
-        return status;
+    public Map<String, Long> getAppliedSourceOffsets() {
+        return inventoryClient.getAppliedSourceOffsets().block();
     }
 
-    public void syncInventoryEvent(InventoryEvent event) {
-        logger.debug("Syncing inventory event for store: {}, product: {}, quantity: {}",
-                event.getStoreId(), event.getProductId(), event.getQuantity());
+    private void applyCentralBatch(List<InventoryOperation> operations, Map<String, Long> sourceOffsets) {
+        // Central store updates must not publish events of their own, or they would be synced again
+        InventoryBatchRequest request = new InventoryBatchRequest(BatchMode.BEST_EFFORT, false, operations);
+        request.setSourceOffsets(sourceOffsets);
+        logger.debug("Calling central store batch API with {} operations", operations.size());
+
+        // Errors and 4xx/5xx responses are thrown once retries run out, which leaves the poll uncommitted
+        InventoryBatchResponse result = inventoryClient.applyBatch(request).block();
+        if (result != null && result.isDuplicate()) {
+            logger.info("Central store had already applied offsets {}", sourceOffsets);
+        } else if (result != null && result.getFailureCount() > 0) {
+            // Rejected operations (e.g. not enough central stock) would fail again, so they are not
+            // retried but queued for review, where a central quantity can be set by hand
+            List<InventoryConflict> conflicts = new ArrayList<>(result.getFailureCount());
+            LocalDateTime now = LocalDateTime.now();
+            for (InventoryOperationResult operationResult : result.getResults()) {
+                if (operationResult.isSuccess()) {
+                    continue;
+                }
+                InventoryOperation operation = operations.get(operationResult.getIndex());
+                logger.warn("Central store rejected {} of {} for product {}: {}",
+                        operationResult.getType(), operation.getQuantity(),
+                        operationResult.getProductId(), operationResult.getMessage());
+                InventoryConflict conflict = new InventoryConflict(CENTRAL_STORE_ID, operation.getProductId(),
+                        operation.getQuantity(), operationResult.getQuantity() != null ? operationResult.getQuantity() : 0,
+                        now, null);
+                conflict.setResolutionNotes("Rejected " + operation.getType() + " from event sync: " + operationResult.getMessage());
+                conflicts.add(conflict);
+            }
+            try {
+                conflictResolutionService.queueForReview(conflicts);
+            } catch (RuntimeException e) {
+                // The batch is applied and its offsets stored, so failing the window would not bring these back
+                logger.error("Failed to record {} rejected central changes: {}", conflicts.size(), e.getMessage());
+            }
+        }
+    }
 
+    @FunctionalInterface
+    private interface SyncJob {
+        void run(SyncStatus status) throws Exception;
+    }
 
-        String centralStoreBaseUrl = "http://inventory-service:8081/api/inventory/store-000";
-        try {
-            String url;
-
-            if (event.getQuantity() > 0) {
-                // Quantity positiva - increment
-                url = String.format("%s/%s/increment?quantity=%d&publishEvent=false",
-                        centralStoreBaseUrl,
-                        event.getProductId(),
-                        event.getQuantity());
-            } else {
-                // Quantity negativa - decrement (usando valor absoluto)
-                int absoluteQuantity = Math.abs(event.getQuantity());
-                url = String.format("%s/%s/decrement?quantity=%d&publishEvent=false",
-                        centralStoreBaseUrl,
-                        event.getProductId(),
-                        absoluteQuantity);
-            }
+    // Lets a cancel interrupt the sync's thread while it waits for permits or stores, and only then
+    private static final class RunningSync {
+
+        private final SyncStatus status;
+        private Thread thread;
+        private volatile boolean cancelled;
 
-            logger.debug("Calling central store API: {}", url);
+        private RunningSync(SyncStatus status) {
+            this.status = status;
+        }
 
-            ResponseEntity<ApiResponse<InventoryResponse>> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.POST,
-                    null,
-                    new ParameterizedTypeReference<ApiResponse<InventoryResponse>>() {}
-            );
+        private synchronized void attach() {
+            thread = Thread.currentThread();
+            if (cancelled) {
+                thread.interrupt();
+            }
+        }
 
-            if (response.getStatusCode().is2xxSuccessful()) {
-                logger.info("Successfully synced central inventory for product: {}, event: {}",
-                        event.getProductId(), event.getEventId());
-            } else {
-                logger.warn("Failed to sync central inventory. Status: {}, Event: {}",
-                        response.getStatusCode(), event.getEventId());
-                // TODO kafka retry mechanism
-                //throw new SyncFailedException("Failed to sync inventory event: " + event.getEventId());
+        private synchronized void cancel() {
+            cancelled = true;
+            if (thread != null) {
+                thread.interrupt();
             }
+        }
 
-        } catch (Exception e) {
-            logger.error("Error syncing inventory event: {}", event.getEventId(), e);
-            //throw new SyncFailedException("Failed to sync inventory event: " + event.getEventId());
+        private synchronized void detach() {
+            thread = null;
+            Thread.interrupted();
         }
     }
-
 }
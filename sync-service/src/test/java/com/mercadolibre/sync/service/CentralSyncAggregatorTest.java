@@ -0,0 +1,131 @@
+package com.mercadolibre.sync.service;
+
+import com.mercadolibre.common.model.InventoryEvent;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CentralSyncAggregatorTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("inventory-events", 0);
+
+    private final SyncService syncService = mock(SyncService.class);
+    private final EventDeduplicator eventDeduplicator = mock(EventDeduplicator.class);
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+    private final Consumer<?, ?> consumer = mock(Consumer.class);
+    // window-ms 0 applies every poll right away
+    private final CentralSyncAggregator aggregator = new CentralSyncAggregator(syncService, eventDeduplicator,
+            kafkaTemplate, "inventory-events-failed", 1000, 5000, 0, 0);
+    private final List<Map<String, Integer>> appliedChanges = new ArrayList<>();
+
+    @Test
+    void replayedRecordsAtOrBelowTheStoredOffsetAreSkipped() {
+        // The check before parking cannot reach inventory-service, so the window is read again
+        when(syncService.getAppliedSourceOffsets())
+                .thenReturn(Map.of())
+                .thenThrow(new IllegalStateException("inventory-service down"))
+                .thenReturn(Map.of(PARTITION.toString(), 1L));
+        recordAppliedChanges();
+        aggregator.onPartitionsAssigned(consumer, List.of(PARTITION));
+
+        // The call fails on the client side after inventory-service committed offsets 0 and 1
+        doAnswer(invocation -> {
+            throw new IllegalStateException("read timed out");
+        }).doAnswer(invocation -> {
+            appliedChanges.add(new HashMap<>(invocation.getArgument(0)));
+            return null;
+        }).when(syncService).applyToCentralStore(anyMap(), anyMap(), anyMap());
+        when(kafkaTemplate.send(any(String.class), any(), any())).thenThrow(new IllegalStateException("no broker"));
+
+        aggregator.add(List.of(record(0, "SKU-1"), record(1, "SKU-2")), consumer);
+        verify(consumer).seek(PARTITION, 0L);
+
+        aggregator.add(List.of(record(0, "SKU-1"), record(1, "SKU-2"), record(2, "SKU-3")), consumer);
+
+        assertThat(appliedChanges).containsExactly(Map.of("SKU-3", -1));
+    }
+
+    @Test
+    void pollIsReadAgainWhileTheStoredOffsetsCannotBeLoaded() {
+        when(syncService.getAppliedSourceOffsets())
+                .thenThrow(new IllegalStateException("inventory-service down"))
+                .thenThrow(new IllegalStateException("inventory-service down"))
+                .thenReturn(Map.of(PARTITION.toString(), 0L));
+        recordAppliedChanges();
+        aggregator.onPartitionsAssigned(consumer, List.of(PARTITION));
+
+        aggregator.add(List.of(record(0, "SKU-1"), record(1, "SKU-2")), consumer);
+        verify(consumer).seek(PARTITION, 0L);
+        assertThat(appliedChanges).isEmpty();
+
+        aggregator.add(List.of(record(0, "SKU-1"), record(1, "SKU-2")), consumer);
+
+        assertThat(appliedChanges).containsExactly(Map.of("SKU-2", -1));
+    }
+
+    @Test
+    void windowCommittedBeforeItsCallTimedOutIsNotParked() {
+        when(syncService.getAppliedSourceOffsets()).thenReturn(Map.of(), Map.of(PARTITION.toString(), 1L));
+        aggregator.onPartitionsAssigned(consumer, List.of(PARTITION));
+        doThrow(new IllegalStateException("read timed out"))
+                .when(syncService).applyToCentralStore(anyMap(), anyMap(), anyMap());
+
+        aggregator.add(List.of(record(0, "SKU-1"), record(1, "SKU-2")), consumer);
+
+        verify(kafkaTemplate, never()).send(any(String.class), any(), any());
+        verify(consumer, never()).seek(any(TopicPartition.class), anyLong());
+        verify(consumer).commitSync(Map.of(PARTITION, new OffsetAndMetadata(2)));
+        verify(eventDeduplicator).recordApplied(anyCollection());
+    }
+
+    @Test
+    void windowTheCentralStoreDidNotCommitIsParked() {
+        when(syncService.getAppliedSourceOffsets()).thenReturn(Map.of());
+        aggregator.onPartitionsAssigned(consumer, List.of(PARTITION));
+        doThrow(new IllegalStateException("central store unavailable"))
+                .when(syncService).applyToCentralStore(anyMap(), anyMap(), anyMap());
+        when(kafkaTemplate.send(any(String.class), any(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        aggregator.add(List.of(record(0, "SKU-1"), record(1, "SKU-2")), consumer);
+
+        verify(kafkaTemplate, times(2)).send(eq("inventory-events-failed"), any(), any());
+        verify(consumer).commitSync(Map.of(PARTITION, new OffsetAndMetadata(2)));
+        verify(eventDeduplicator, never()).recordApplied(anyCollection());
+    }
+
+    private void recordAppliedChanges() {
+        doAnswer(invocation -> {
+            appliedChanges.add(new HashMap<>(invocation.getArgument(0)));
+            return null;
+        }).when(syncService).applyToCentralStore(anyMap(), anyMap(), anyMap());
+    }
+
+    private static ConsumerRecord<String, InventoryEvent> record(long offset, String productId) {
+        InventoryEvent event = new InventoryEvent("store-1", productId, -1, "UPDATE");
+        return new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), offset, "store-1:" + productId, event);
+    }
+}
@@ -0,0 +1,120 @@
+package com.mercadolibre.sync.service;
+
+import com.mercadolibre.common.enums.BatchMode;
+import com.mercadolibre.common.exception.ApiException;
+import com.mercadolibre.common.model.InventoryBatchRequest;
+import com.mercadolibre.common.model.InventoryBatchResponse;
+import com.mercadolibre.sync.client.InventoryClient;
+import com.mercadolibre.sync.model.InventoryResponse;
+import com.mercadolibre.sync.model.ReconciliationWatermark;
+import com.mercadolibre.sync.repository.InventoryConflictJdbcRepository;
+import com.mercadolibre.sync.repository.InventoryConflictRepository;
+import com.mercadolibre.sync.repository.ReconciliationWatermarkRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConflictResolutionServiceTest {
+
+    private static final LocalDateTime CHANGED_AT = LocalDateTime.of(2026, 10, 1, 12, 0);
+
+    private final InventoryClient inventoryClient = mock(InventoryClient.class);
+    private final ReconciliationWatermarkRepository watermarkRepository = mock(ReconciliationWatermarkRepository.class);
+    // Rows as written to the database, so every read goes through the JSON columns
+    private final Map<String, Map<String, String>> rows = new HashMap<>();
+
+    @BeforeEach
+    void storeWatermarksAsRows() {
+        ReconciliationWatermark.RecentConverter recentConverter = new ReconciliationWatermark.RecentConverter();
+        ReconciliationWatermark.PendingConverter pendingConverter = new ReconciliationWatermark.PendingConverter();
+        when(watermarkRepository.save(any())).thenAnswer(invocation -> {
+            ReconciliationWatermark watermark = invocation.getArgument(0);
+            Map<String, String> row = new HashMap<>();
+            row.put("sequence", Long.toString(watermark.getSequence()));
+            row.put("newest", watermark.getNewest() == null ? null : watermark.getNewest().toString());
+            row.put("recent", recentConverter.convertToDatabaseColumn(watermark.getRecent()));
+            row.put("pending", pendingConverter.convertToDatabaseColumn(watermark.getPending()));
+            rows.put(watermark.getStoreId(), row);
+            return watermark;
+        });
+        when(watermarkRepository.findById(any())).thenAnswer(invocation -> {
+            Map<String, String> row = rows.get(invocation.<String>getArgument(0));
+            if (row == null) {
+                return Optional.empty();
+            }
+            ReconciliationWatermark watermark = new ReconciliationWatermark(invocation.getArgument(0));
+            watermark.setSequence(Long.parseLong(row.get("sequence")));
+            watermark.setNewest(row.get("newest") == null ? null : LocalDateTime.parse(row.get("newest")));
+            watermark.setRecent(recentConverter.convertToEntityAttribute(row.get("recent")));
+            watermark.setPending(pendingConverter.convertToEntityAttribute(row.get("pending")));
+            return Optional.of(watermark);
+        });
+    }
+
+    @Test
+    void runCutShortAfterTheCentralStoreCommittedIsFinishedWithTheSameBatchIdAfterARestart() {
+        InventoryResponse change = new InventoryResponse("store-1", "SKU-1", 3, CHANGED_AT);
+        when(inventoryClient.getChangesSince(eq("store-1"), isNull())).thenReturn(Mono.just(List.of(change)));
+        // The first call commits but times out on the client, the resent one is recognised
+        when(inventoryClient.applyBatch(any()))
+                .thenReturn(Mono.error(new IllegalStateException("read timed out")))
+                .thenReturn(Mono.just(InventoryBatchResponse.duplicate(BatchMode.BEST_EFFORT)));
+
+        assertThatThrownBy(() -> newService().resolveConflictsForStore("store-1")).isInstanceOf(ApiException.class);
+
+        // The row is read again in the overlap of the persisted watermark
+        when(inventoryClient.getChangesSince("store-1", CHANGED_AT.minusSeconds(5))).thenReturn(Mono.just(List.of(change)));
+        assertThat(newService().resolveConflictsForStore("store-1")).isEqualTo(1);
+
+        ArgumentCaptor<InventoryBatchRequest> requests = ArgumentCaptor.forClass(InventoryBatchRequest.class);
+        verify(inventoryClient, times(2)).applyBatch(requests.capture());
+        assertThat(requests.getAllValues()).extracting(InventoryBatchRequest::getSourceOffsets)
+                .containsOnly(Map.of("reconcile:store-1:0", 1L));
+        ReconciliationWatermark stored = watermarkRepository.findById("store-1").orElseThrow();
+        assertThat(stored.hasPending()).isFalse();
+        assertThat(stored.getNewest()).isEqualTo(CHANGED_AT);
+    }
+
+    @Test
+    void laterRunsSendTheirDecrementsUnderANewSequence() {
+        InventoryResponse first = new InventoryResponse("store-1", "SKU-1", 3, CHANGED_AT);
+        InventoryResponse second = new InventoryResponse("store-1", "SKU-1", 2, CHANGED_AT.plusMinutes(10));
+        when(inventoryClient.getChangesSince(eq("store-1"), isNull())).thenReturn(Mono.just(List.of(first)));
+        when(inventoryClient.getChangesSince("store-1", CHANGED_AT.minusSeconds(5))).thenReturn(Mono.just(List.of(second)));
+        when(inventoryClient.applyBatch(any()))
+                .thenReturn(Mono.just(new InventoryBatchResponse(BatchMode.BEST_EFFORT, List.of())));
+        ConflictResolutionService service = newService();
+
+        service.resolveConflictsForStore("store-1");
+        service.resolveConflictsForStore("store-1");
+
+        ArgumentCaptor<InventoryBatchRequest> requests = ArgumentCaptor.forClass(InventoryBatchRequest.class);
+        verify(inventoryClient, times(2)).applyBatch(requests.capture());
+        assertThat(requests.getAllValues()).extracting(InventoryBatchRequest::getSourceOffsets)
+                .containsExactly(Map.of("reconcile:store-1:0", 1L), Map.of("reconcile:store-1:0", 2L));
+    }
+
+    // A new instance holds nothing in memory, as after a restart
+    private ConflictResolutionService newService() {
+        return new ConflictResolutionService(inventoryClient, mock(ConflictResolutionEngine.class),
+                mock(InventoryConflictRepository.class), mock(InventoryConflictJdbcRepository.class),
+                watermarkRepository, 5000, 4);
+    }
+}
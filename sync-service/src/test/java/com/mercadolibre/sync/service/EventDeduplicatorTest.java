@@ -0,0 +1,110 @@
+package com.mercadolibre.sync.service;
+
+import com.mercadolibre.sync.repository.ProcessedEventJdbcRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EventDeduplicatorTest {
+
+    private static final int EXPECTED_EVENTS = 10_000;
+
+    private final ProcessedEventJdbcRepository repository = mock(ProcessedEventJdbcRepository.class);
+
+    @Test
+    void recordedEventsAreConfirmedAgainstTheTable() {
+        EventDeduplicator deduplicator = deduplicator(86_400_000);
+        when(repository.exists("event-1")).thenReturn(true);
+
+        deduplicator.recordApplied(List.of("event-1"));
+
+        assertThat(deduplicator.isDuplicate("event-1")).isTrue();
+        verify(repository).insertAll(any(), anyLong());
+        verify(repository).exists("event-1");
+    }
+
+    @Test
+    void filterMissesSkipTheTableAtAboutTheConfiguredRate() {
+        EventDeduplicator deduplicator = deduplicator(86_400_000);
+        deduplicator.recordApplied(ids(EXPECTED_EVENTS));
+
+        for (String eventId : ids(EXPECTED_EVENTS)) {
+            assertThat(deduplicator.isDuplicate(eventId)).isFalse();
+        }
+
+        // Only false positives reach the table
+        long hits = mockingDetails(repository).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("exists"))
+                .count();
+        // 1% configured, with room for variance
+        assertThat(hits).isLessThan(EXPECTED_EVENTS * 2 / 100);
+        assertThat(deduplicator.isDuplicate(null)).isFalse();
+    }
+
+    @Test
+    void idsAreKeptForOneRotationAndForgottenAfterTheSecond() {
+        // A retention of 0 rotates on every call
+        EventDeduplicator deduplicator = deduplicator(0);
+        deduplicator.recordApplied(List.of("event-1"));
+
+        deduplicator.rotate();
+        deduplicator.isDuplicate("event-1");
+        verify(repository).exists("event-1");
+
+        deduplicator.rotate();
+        assertThat(deduplicator.isDuplicate("event-1")).isFalse();
+        verify(repository).exists("event-1");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void loadRebuildsTheFilterFromTheTable() {
+        doAnswer(invocation -> {
+            invocation.<Consumer<String>>getArgument(1).accept("event-1");
+            return null;
+        }).when(repository).forEachSince(anyLong(), any(Consumer.class));
+        EventDeduplicator deduplicator = deduplicator(86_400_000);
+
+        deduplicator.load();
+        deduplicator.isDuplicate("event-1");
+        deduplicator.isDuplicate("event-2");
+
+        verify(repository).exists("event-1");
+        verify(repository, never()).exists("event-2");
+    }
+
+    @Test
+    void emptyBatchIsNotRecorded() {
+        deduplicator(86_400_000).recordApplied(Set.of());
+
+        verify(repository, never()).insertAll(any(), anyLong());
+        verify(repository, never()).exists(anyString());
+    }
+
+    private EventDeduplicator deduplicator(long retentionMs) {
+        return new EventDeduplicator(repository, retentionMs, EXPECTED_EVENTS, 0.01);
+    }
+
+    private static List<String> ids(int count) {
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(UUID.randomUUID().toString());
+        }
+        return ids;
+    }
+}
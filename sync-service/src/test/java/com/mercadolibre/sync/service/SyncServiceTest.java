@@ -0,0 +1,93 @@
+package com.mercadolibre.sync.service;
+
+import com.mercadolibre.common.enums.BatchMode;
+import com.mercadolibre.common.enums.InventoryOperationType;
+import com.mercadolibre.common.exception.ErrorCode;
+import com.mercadolibre.common.model.InventoryBatchResponse;
+import com.mercadolibre.common.model.InventoryOperation;
+import com.mercadolibre.common.model.InventoryOperationResult;
+import com.mercadolibre.sync.client.InventoryClient;
+import com.mercadolibre.sync.model.InventoryConflict;
+import com.mercadolibre.sync.repository.SyncStatusRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SyncServiceTest {
+
+    private final ConflictResolutionService conflictResolutionService = mock(ConflictResolutionService.class);
+    private final InventoryClient inventoryClient = mock(InventoryClient.class);
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void centralOperationsRejectedDuringEventSyncAreQueuedForReview() {
+        InventoryOperation rejected = new InventoryOperation("store-000", "SKU-2", InventoryOperationType.DECREMENT, 7);
+        when(inventoryClient.applyBatch(any())).thenReturn(Mono.just(new InventoryBatchResponse(BatchMode.BEST_EFFORT, List.of(
+                InventoryOperationResult.success(0, new InventoryOperation("store-000", "SKU-1", InventoryOperationType.INCREMENT, 3), 8),
+                InventoryOperationResult.failure(1, rejected, ErrorCode.INSUFFICIENT_INVENTORY, "Insufficient inventory", 4)))));
+        SyncService syncService = new SyncService(conflictResolutionService, inventoryClient,
+                mock(SyncStatusRepository.class), executor, 1, 50);
+
+        // Operations follow the order of the net changes
+        Map<String, Integer> netChanges = new LinkedHashMap<>();
+        netChanges.put("SKU-1", 3);
+        netChanges.put("SKU-2", -7);
+
+        syncService.applyToCentralStore(netChanges, Map.of(), Map.of("inventory-events-0", 41L));
+
+        ArgumentCaptor<List<InventoryConflict>> conflicts = ArgumentCaptor.forClass(List.class);
+        verify(conflictResolutionService).queueForReview(conflicts.capture());
+        assertThat(conflicts.getValue()).singleElement().satisfies(conflict -> {
+            assertThat(conflict.getStoreId()).isEqualTo("store-000");
+            assertThat(conflict.getProductId()).isEqualTo("SKU-2");
+            assertThat(conflict.getStoreQuantity()).isEqualTo(7);
+            assertThat(conflict.getCentralQuantity()).isEqualTo(4);
+            assertThat(conflict.getResolutionNotes()).contains("DECREMENT");
+        });
+    }
+
+    @Test
+    void timedOutStoreKeepsItsPermitUntilItsReconciliationEnds() throws Exception {
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        CountDownLatch secondStarted = new CountDownLatch(1);
+        when(inventoryClient.getStoreIds()).thenReturn(Mono.just(List.of("store-1", "store-2")));
+        when(conflictResolutionService.resolveConflictsForStore("store-1")).thenAnswer(invocation -> {
+            releaseFirst.await();
+            return 0;
+        });
+        when(conflictResolutionService.resolveConflictsForStore("store-2")).thenAnswer(invocation -> {
+            secondStarted.countDown();
+            return 0;
+        });
+        // One store at a time, timed out after 50 ms
+        SyncService syncService = new SyncService(conflictResolutionService, inventoryClient,
+                mock(SyncStatusRepository.class), executor, 1, 50);
+
+        syncService.submitFullSync();
+
+        assertThat(secondStarted.await(500, TimeUnit.MILLISECONDS)).isFalse();
+        releaseFirst.countDown();
+        assertThat(secondStarted.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+}